@@ -0,0 +1,70 @@
+package com.project.back_end.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.CursorPage;
+import com.project.back_end.util.PageCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The appointment list response path after the query returns: building AppointmentDTOs from
+ * projected rows (what the JPQL constructor expression does per row), cutting the keyset page,
+ * and serializing the list with an ObjectMapper configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+public class AppointmentDtoBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private List<Object[]> rows;
+    private List<AppointmentDTO> dtos;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        rows = new ArrayList<>(size + 1);
+        for (int i = 0; i <= size; i++) {
+            rows.add(new Object[]{(long) i + 1, (long) (i % 20) + 1, "Dr Doctor " + (i % 20),
+                    (long) i + 1000, "Patient " + i, "patient" + i + "@example.com", String.format("%010d", i),
+                    i + " Main Street", start.plusHours(i), i % 2, 60});
+        }
+        dtos = project(rows);
+        dtos.remove(size);
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public CursorPage<AppointmentDTO> projectPage() {
+        return CursorPage.of(project(rows), size, a -> PageCursor.after(a.getAppointmentTime(), a.getId()));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    private static List<AppointmentDTO> project(List<Object[]> rows) {
+        List<AppointmentDTO> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new AppointmentDTO((Long) row[0], (Long) row[1], (String) row[2], (Long) row[3],
+                    (String) row[4], (String) row[5], (String) row[6], (String) row[7],
+                    (LocalDateTime) row[8], (Integer) row[9], (Integer) row[10]));
+        }
+        return result;
+    }
+}
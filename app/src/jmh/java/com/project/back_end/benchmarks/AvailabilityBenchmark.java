@@ -0,0 +1,91 @@
+package com.project.back_end.benchmarks;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.models.WeeklySlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.DoctorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * DoctorService.getDoctorAvailability for a doctor with a full-day template and a third of
+ * it booked. "cached" reads a day kept in the availability index; "cold" rebuilds the day
+ * from the (in-memory) repositories on every call.
+ */
+@State(Scope.Benchmark)
+public class AvailabilityBenchmark {
+
+    private static final int SLOTS = 24;
+
+    @Param({"cached", "cold"})
+    public String mode;
+
+    private DoctorService doctorService;
+    private LocalDate date;
+
+    @Setup
+    public void setUp() {
+        date = LocalDate.now().plusDays(1);
+        List<LocalTime> template = new ArrayList<>(SLOTS);
+        List<AppointmentInterval> booked = new ArrayList<>();
+        for (int i = 0; i < SLOTS; i++) {
+            LocalTime time = LocalTime.of(8, 0).plusMinutes(30L * i);
+            template.add(time);
+            if (i % 3 == 0) {
+                // Half-hour visits, so each one blocks exactly its own slot
+                Appointment visit = Fixtures.appointment(1L, date.atTime(time), 30);
+                visit.setId((long) i);
+                booked.add(Fixtures.interval(visit));
+            }
+        }
+
+        DoctorRepository doctorRepository = Fixtures.repository(DoctorRepository.class, Map.of(
+                "findTemplate", args -> Optional.of(new DoctorTemplate() {
+                    @Override
+                    public Long getDoctorId() {
+                        return 1L;
+                    }
+
+                    @Override
+                    public SlotMask getSlotMask() {
+                        return SlotMask.of(template);
+                    }
+
+                    @Override
+                    public WeeklySlotMask getWeeklySlotMask() {
+                        return null;
+                    }
+                })));
+        AppointmentRepository appointmentRepository = Fixtures.repository(AppointmentRepository.class, Map.of(
+                "findIntervals", args -> booked));
+
+        ScheduleExceptionRepository scheduleExceptionRepository = Fixtures.repository(ScheduleExceptionRepository.class, Map.of(
+                "findEndingOnOrAfter", args -> List.of()));
+
+        AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository, scheduleExceptionRepository);
+        Fixtures.setField(index, "windowDays", "cached".equals(mode) ? 14 : 0);
+        Fixtures.setField(index, "ttlSeconds", 30L);
+        doctorService = new DoctorService(doctorRepository, appointmentRepository, null, index, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public List<LocalTime> getDoctorAvailability() {
+        return doctorService.getDoctorAvailability(1L, date);
+    }
+}
@@ -0,0 +1,129 @@
+package com.project.back_end.benchmarks;
+
+import com.project.back_end.BackEndApplication;
+import com.project.back_end.DTO.BookingResult;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.TokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BOOKINGS appointments for one doctor as one bookAppointments call against as many
+ * bookAppointment calls, per appointment. Boots the application on an in-memory H2 database,
+ * so the difference is statements and flushes rather than network round trips.
+ */
+@State(Scope.Benchmark)
+public class BulkBookingBenchmark {
+
+    private static final int BOOKINGS = 400;
+    private static final List<LocalTime> HOURS = List.of(LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(11, 0),
+            LocalTime.of(12, 0), LocalTime.of(14, 0), LocalTime.of(15, 0), LocalTime.of(16, 0), LocalTime.of(17, 0));
+
+    private ConfigurableApplicationContext context;
+    private AppointmentService appointmentService;
+    private AppointmentRepository appointmentRepository;
+    private DoctorRepository doctorRepository;
+    private Patient patient;
+    private String token;
+    private List<Appointment> schedule;
+    private int doctors;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackEndApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments, so they override application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:bulk-booking;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        // Prescriptions are not booked here; fail fast when no MongoDB is running
+                        "--spring.data.mongodb.uri=mongodb://localhost:27017/prescriptions?serverSelectionTimeoutMS=100",
+                        "--logging.level.root=WARN");
+        appointmentService = context.getBean(AppointmentService.class);
+        appointmentRepository = context.getBean(AppointmentRepository.class);
+        doctorRepository = context.getBean(DoctorRepository.class);
+
+        Patient p = new Patient();
+        p.setName("Bulk Patient");
+        p.setEmail("bulk.patient@example.com");
+        p.setPassword("secret1");
+        p.setPhone("5550003333");
+        p.setAddress("Main Street 1");
+        patient = context.getBean(PatientRepository.class).save(p);
+        token = context.getBean(TokenService.class).generateToken(patient.getEmail(), "patient", patient.getId());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // A new doctor per invocation; the days start past the availability index window
+    @Setup(Level.Invocation)
+    public void newSchedule() {
+        Doctor doctor = doctorRepository.save(new Doctor(null, "Dr Bulk " + doctors, "Cardiology",
+                "bulk" + doctors++ + "@example.com", "secret1", "5550004444", new ArrayList<>(HOURS)));
+        LocalDate firstDay = LocalDate.now().plusDays(30);
+        schedule = new ArrayList<>(BOOKINGS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDateTime time = firstDay.plusDays(i / HOURS.size()).atTime(HOURS.get(i % HOURS.size()));
+            Doctor doctorRef = new Doctor();
+            doctorRef.setId(doctor.getId());
+            Patient patientRef = new Patient();
+            patientRef.setId(patient.getId());
+            Appointment appointment = new Appointment();
+            appointment.setDoctor(doctorRef);
+            appointment.setPatient(patientRef);
+            appointment.setAppointmentTime(time);
+            appointment.setDurationMinutes(60);
+            schedule.add(appointment);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearAppointments() {
+        appointmentRepository.deleteAllInBatch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKINGS)
+    public void single() {
+        for (Appointment appointment : schedule) {
+            if (appointmentService.bookAppointment(appointment, token) != 1) {
+                throw new IllegalStateException("single booking rejected");
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKINGS)
+    public List<BookingResult> bulk() {
+        List<BookingResult> results = appointmentService.bookAppointments(schedule);
+        if (results.stream().anyMatch(r -> r.getResult() != 1)) {
+            throw new IllegalStateException("bulk booking rejected");
+        }
+        return results;
+    }
+}
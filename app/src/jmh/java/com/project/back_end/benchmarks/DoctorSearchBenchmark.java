@@ -0,0 +1,105 @@
+package com.project.back_end.benchmarks;
+
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorSummary;
+import com.project.back_end.services.DoctorSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One typeahead lookup over 50,000 doctors, cycling through every keystroke of a few searches
+ * the way the search box sends them. "memo" serves broad prefixes from the memo; "scan" turns
+ * the memo off so every lookup is a range scan.
+ */
+@State(Scope.Benchmark)
+public class DoctorSearchBenchmark {
+
+    private static final int DOCTORS = 50_000;
+    private static final String[] FIRST = {"Anna", "Élodie", "Bruno", "Chen", "Dmitri", "Fatima", "Greta", "Hiro",
+            "Ines", "José", "Kofi", "Lena", "Mateo", "Nadia", "Omar", "Priya", "Rosa", "Sven", "Tomás", "Yara"};
+    private static final String[] LAST = {"Martin", "Müller", "Nguyen", "García", "Okafor", "Rossi", "Silva",
+            "Tanaka", "Kowalski", "Dubois", "Haddad", "Larsen", "Novak", "Park", "Singh", "Weber"};
+    private static final String[] SPECIALTIES = {"Cardiology", "Dermatology", "Neurology", "Pediatrics",
+            "Orthopedics", "Oncology", "Psychiatry", "Radiology"};
+
+    @Param({"memo", "scan"})
+    public String mode;
+
+    private DoctorSearchIndex index;
+    private String[] keystrokes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<DoctorSummary> rows = new ArrayList<>(DOCTORS);
+        for (int i = 0; i < DOCTORS; i++) {
+            String name = FIRST[i % FIRST.length] + " " + LAST[(i / FIRST.length) % LAST.length] + " " + suffix(i);
+            rows.add(summary((long) i + 1, name, SPECIALTIES[i % SPECIALTIES.length]));
+        }
+        DoctorRepository repository = Fixtures.repository(DoctorRepository.class, Map.of(
+                "findSummariesAfter", args -> {
+                    long afterId = (long) args[0];
+                    int size = ((Pageable) args[1]).getPageSize();
+                    return rows.stream().filter(r -> r.getId() > afterId).limit(size).toList();
+                }));
+
+        index = new DoctorSearchIndex(repository);
+        Fixtures.setField(index, "defaultLimit", 10);
+        Fixtures.setField(index, "maxLimit", 50);
+        Fixtures.setField(index, "memoThreshold", "memo".equals(mode) ? 500 : Integer.MAX_VALUE);
+        Fixtures.setField(index, "memoMaxEntries", 10_000);
+        index.warmUp();
+
+        List<String> typed = new ArrayList<>();
+        for (String search : List.of("Elodie Mu", "jose garc", "cardiology priya", "tom", "n")) {
+            for (int i = 1; i <= search.length(); i++) {
+                typed.add(search.substring(0, i));
+            }
+        }
+        keystrokes = typed.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public List<DoctorSearchIndex.Suggestion> search() {
+        String query = keystrokes[next];
+        next = (next + 1) % keystrokes.length;
+        return index.search(query, 10);
+    }
+
+    // Distinct pronounceable third name token so the index holds many different keys
+    private static String suffix(int i) {
+        char[] letters = new char[4];
+        for (int k = 0; k < letters.length; k++) {
+            letters[k] = (char) ('a' + (i % 26));
+            i /= 26;
+        }
+        return new String(letters);
+    }
+
+    private static DoctorSummary summary(Long id, String name, String specialty) {
+        return new DoctorSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getSpecialty() {
+                return specialty;
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.project.back_end.benchmarks;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins so benchmarks run without a database or a Spring context.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    // Sets a private field, such as an @Value property, on an object built outside Spring
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException("No field " + name + " on " + target.getClass());
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    // Repository whose listed methods answer from memory; anything else fails loudly
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + " fixture";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            };
+        });
+    }
+
+    // Unsaved appointment with a doctor reference carrying only its id
+    static Appointment appointment(long doctorId, LocalDateTime time, int minutes) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentTime(time);
+        appointment.setDurationMinutes(minutes);
+        return appointment;
+    }
+
+    // Live projection of an appointment, as the interval queries return it
+    static AppointmentInterval interval(Appointment appointment) {
+        return new AppointmentInterval() {
+            @Override
+            public Long getId() {
+                return appointment.getId();
+            }
+
+            @Override
+            public Long getDoctorId() {
+                return appointment.getDoctor().getId();
+            }
+
+            @Override
+            public LocalDateTime getAppointmentTime() {
+                return appointment.getAppointmentTime();
+            }
+
+            @Override
+            public int getDurationMinutes() {
+                return appointment.getDurationMinutes();
+            }
+        };
+    }
+}
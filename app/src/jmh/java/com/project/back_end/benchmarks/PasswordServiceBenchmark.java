@@ -0,0 +1,50 @@
+package com.project.back_end.benchmarks;
+
+import com.project.back_end.services.PasswordService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * BCrypt hashing and verification through the hashing executor, per cost factor; expect
+ * milliseconds per operation, doubling with each cost step.
+ */
+@State(Scope.Benchmark)
+public class PasswordServiceBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "12"})
+    public int cost;
+
+    private PasswordService passwordService;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordService = new PasswordService();
+        Fixtures.setField(passwordService, "configuredCost", cost);
+        Fixtures.setField(passwordService, "queueCapacity", 64);
+        Fixtures.setField(passwordService, "timeoutMillis", 60_000L);
+        passwordService.init();
+        hash = passwordService.hashPassword(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordService.shutdown();
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return passwordService.hashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return passwordService.verifyPassword(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,107 @@
+package com.project.back_end.benchmarks;
+
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.PatientRepository.PatientIdentity;
+import com.project.back_end.services.PatientIdentityFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Duplicate detection for one registration with N existing patients, one candidate in ten a
+ * duplicate. "scan" streams every patient as PatientController used to; "filter" asks the
+ * identity filter first and only looks up possible hits. Password hashing is left out.
+ */
+@State(Scope.Benchmark)
+public class PatientRegistrationBenchmark {
+
+    private static final int CANDIDATES = 1_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int patients;
+
+    @Param({"scan", "filter"})
+    public String mode;
+
+    private List<String[]> existing;
+    private Set<String> taken;
+    private PatientIdentityFilter filter;
+    private String[][] candidates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        existing = new ArrayList<>(patients);
+        taken = new HashSet<>(patients * 4);
+        for (int i = 0; i < patients; i++) {
+            String[] identity = identity(i);
+            existing.add(identity);
+            taken.add(identity[0]);
+            taken.add(identity[1]);
+        }
+
+        candidates = new String[CANDIDATES][];
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates[i] = i % 10 == 0 ? identity(i * (patients / CANDIDATES)) : identity(patients + i);
+        }
+
+        PatientRepository repository = Fixtures.repository(PatientRepository.class, Map.of(
+                "count", args -> (long) patients,
+                "findIdentitiesAfter", args -> page((long) args[0], 10_000)));
+        filter = new PatientIdentityFilter(repository);
+        Fixtures.setField(filter, "minCapacity", 100_000);
+        Fixtures.setField(filter, "falsePositiveRate", 0.01);
+        filter.warmUp();
+    }
+
+    @Benchmark
+    public boolean isDuplicate() {
+        String[] candidate = candidates[next];
+        next = (next + 1) % CANDIDATES;
+        if ("scan".equals(mode)) {
+            return existing.stream().anyMatch(p -> p[0].equalsIgnoreCase(candidate[0]) || p[1].equalsIgnoreCase(candidate[1]));
+        }
+        // The set stands in for existsByEmailOrPhone
+        return filter.mightExist(candidate[0], candidate[1])
+                && (taken.contains(candidate[0]) || taken.contains(candidate[1]));
+    }
+
+    private List<PatientIdentity> page(long afterId, int size) {
+        int from = (int) Math.min(afterId, patients);
+        int to = Math.min(patients, from + size);
+        List<PatientIdentity> page = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            long id = i + 1;
+            String[] identity = existing.get(i);
+            page.add(new PatientIdentity() {
+                @Override
+                public Long getId() {
+                    return id;
+                }
+
+                @Override
+                public String getEmail() {
+                    return identity[0];
+                }
+
+                @Override
+                public String getPhone() {
+                    return identity[1];
+                }
+            });
+        }
+        return page;
+    }
+
+    private static String[] identity(int n) {
+        return new String[]{"patient" + n + "@example.com", String.format("%010d", n)};
+    }
+}
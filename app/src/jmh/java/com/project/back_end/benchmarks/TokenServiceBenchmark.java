@@ -0,0 +1,47 @@
+package com.project.back_end.benchmarks;
+
+import com.project.back_end.security.AuthMetrics;
+import com.project.back_end.services.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Issuing, parsing and validating JWTs. Tokens carry role and id claims, so none of these
+ * paths reaches a repository.
+ */
+@State(Scope.Benchmark)
+public class TokenServiceBenchmark {
+
+    private TokenService tokenService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenService = new TokenService(null, null, null, new AuthMetrics(new SimpleMeterRegistry()));
+        Fixtures.setField(tokenService, "jwtSecret", "benchmark-secret-key-long-enough-for-hmac-sha256");
+        Fixtures.setField(tokenService, "jwtExpiration", 604_800_000L);
+        Fixtures.setField(tokenService, "cacheMaxSize", 10_000);
+        Fixtures.setField(tokenService, "denyListExpectedEntries", 10_000);
+        tokenService.init();
+        token = tokenService.generateToken("doctor@example.com", "doctor", 42L);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenService.generateToken("doctor@example.com", "doctor", 42L);
+    }
+
+    @Benchmark
+    public String extractEmail() {
+        return tokenService.extractEmail(token);
+    }
+
+    // Served from the verified-token cache after the first call
+    @Benchmark
+    public boolean validateToken() {
+        return tokenService.validateToken(token, "doctor");
+    }
+}
@@ -0,0 +1,216 @@
+package com.project.back_end.benchmarks;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.models.WeeklySlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import com.project.back_end.security.AuthMetrics;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Requests per second for booking and cold availability reads on a 200-thread platform pool
+ * (Tomcat's default) against one virtual thread per request. Every store call blocks for a
+ * fixed latency, behind a connection pool of 50 or none. With the pool both modes should be
+ * capped by it; without one only the platform pool caps throughput.
+ */
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+    private static final int REQUESTS = 2000;
+    private static final long STORE_LATENCY_MILLIS = 20;
+    private static final int SLOTS_PER_DOCTOR = 4;
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(30);
+    private static final List<LocalTime> TEMPLATE = List.of(LocalTime.of(9, 0), LocalTime.of(10, 0),
+            LocalTime.of(11, 0), LocalTime.of(12, 0));
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    // Connection pool size; 0 for none
+    @Param({"50", "0"})
+    public int pool;
+
+    private ExecutorService executor;
+    private Semaphore connections;
+    private final Map<String, Appointment> table = new ConcurrentHashMap<>();
+    private DoctorService doctorService;
+    private AppointmentService appointmentService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        connections = pool == 0 ? null : new Semaphore(pool);
+
+        DoctorRepository doctorRepository = Fixtures.repository(DoctorRepository.class, Map.of(
+                "findTemplate", args -> call(() -> Optional.of(template())),
+                "lockByIds", args -> call(() -> List.copyOf((Collection<?>) args[0]))));
+        AppointmentRepository appointmentRepository = Fixtures.repository(AppointmentRepository.class, Map.of(
+                "findIntervals", args -> call(() -> intervals((Long) args[0], (LocalDateTime) args[1], (LocalDateTime) args[2])),
+                "saveAndFlush", args -> call(() -> insert((Appointment) args[0]))));
+        ScheduleExceptionRepository scheduleExceptionRepository = Fixtures.repository(ScheduleExceptionRepository.class, Map.of(
+                "findEndingOnOrAfter", args -> List.of()));
+
+        // The day is outside the index window, so every read and overlap check is a store call
+        AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository, scheduleExceptionRepository);
+        Fixtures.setField(index, "windowDays", 0);
+        doctorService = new DoctorService(doctorRepository, appointmentRepository, null, index, null, null, null, null, null, null);
+
+        Patient patient = new Patient();
+        patient.setId(1L);
+        PatientRepository patientRepository = Fixtures.repository(PatientRepository.class, Map.of(
+                "findByEmail", args -> patient));
+        TokenService tokenService = new TokenService(null, null, patientRepository, new AuthMetrics(new SimpleMeterRegistry()));
+        Fixtures.setField(tokenService, "jwtSecret", "benchmark-secret-key-long-enough-for-hmac-sha256");
+        Fixtures.setField(tokenService, "jwtExpiration", 604_800_000L);
+        Fixtures.setField(tokenService, "cacheMaxSize", 10_000);
+        Fixtures.setField(tokenService, "denyListExpectedEntries", 10_000);
+        tokenService.init();
+        token = tokenService.generateToken("patient@example.com", "patient", 1L);
+        // Each booking's transaction is the lock and the two store calls inside it
+        PlatformTransactionManager transactionManager = Fixtures.repository(PlatformTransactionManager.class, Map.of(
+                "getTransaction", args -> new SimpleTransactionStatus(),
+                "commit", args -> null,
+                "rollback", args -> null));
+        appointmentService = new AppointmentService(appointmentRepository, tokenService, index, patientRepository, null,
+                doctorRepository, new TransactionTemplate(transactionManager));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Each invocation books the same slots again
+    @Setup(Level.Invocation)
+    public void clearBookings() {
+        table.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void availability() throws Exception {
+        List<Callable<Boolean>> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            long doctorId = i + 1;
+            requests.add(() -> doctorService.getDoctorAvailability(doctorId, DAY).size() == TEMPLATE.size());
+        }
+        run(requests);
+    }
+
+    // Bookings spread over many doctors; the slot locks serialize only requests for the same doctor
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void booking() throws Exception {
+        List<Callable<Boolean>> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            Appointment appointment = Fixtures.appointment(i / SLOTS_PER_DOCTOR + 1, DAY.atTime(TEMPLATE.get(i % SLOTS_PER_DOCTOR)),
+                    Appointment.DEFAULT_DURATION_MINUTES);
+            requests.add(() -> appointmentService.bookAppointment(appointment, token) == 1);
+        }
+        run(requests);
+    }
+
+    private void run(List<Callable<Boolean>> requests) throws Exception {
+        List<Future<Boolean>> outcomes = new ArrayList<>(requests.size());
+        for (Callable<Boolean> request : requests) {
+            outcomes.add(executor.submit(request));
+        }
+        for (Future<Boolean> outcome : outcomes) {
+            if (!outcome.get()) {
+                throw new IllegalStateException("request failed on " + threads + " threads");
+            }
+        }
+    }
+
+    // Stands in for the database: every call holds a pooled connection for the store latency
+    private <T> T call(Callable<T> query) {
+        try {
+            if (connections != null) connections.acquire();
+            try {
+                Thread.sleep(STORE_LATENCY_MILLIS);
+                return query.call();
+            } finally {
+                if (connections != null) connections.release();
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<AppointmentInterval> intervals(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        return table.values().stream().filter(a -> a.getDoctor().getId().equals(doctorId)
+                && !a.getAppointmentTime().isBefore(from) && a.getAppointmentTime().isBefore(to))
+                .map(Fixtures::interval).toList();
+    }
+
+    private Appointment insert(Appointment appointment) {
+        String key = appointment.getDoctor().getId() + "|" + appointment.getAppointmentTime();
+        if (table.putIfAbsent(key, appointment) != null) {
+            throw new DataIntegrityViolationException("Duplicate entry for uk_appointment_doctor_time");
+        }
+        return appointment;
+    }
+
+    private static DoctorTemplate template() {
+        return new DoctorTemplate() {
+            @Override
+            public Long getDoctorId() {
+                return 1L;
+            }
+
+            @Override
+            public SlotMask getSlotMask() {
+                return SlotMask.of(TEMPLATE);
+            }
+
+            @Override
+            public WeeklySlotMask getWeeklySlotMask() {
+                return null;
+            }
+        };
+    }
+}
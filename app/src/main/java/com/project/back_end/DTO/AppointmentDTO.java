@@ -27,9 +27,19 @@ public class AppointmentDTO {
 
     private LocalDateTime appointmentTime;
     private int status;
+    private int durationMinutes;
 
     private LocalDate appointmentDate;
     private LocalTime appointmentTimeOnly;
     private LocalDateTime endTime;
 
+    // Used by JPQL constructor expressions; the date/time parts are derived like Appointment's
+    public AppointmentDTO(Long id, Long doctorId, String doctorName,
+                          Long patientId, String patientName, String patientEmail, String patientPhone, String patientAddress,
+                          LocalDateTime appointmentTime, int status, int durationMinutes) {
+        this(id, doctorId, doctorName, patientId, patientName, patientEmail, patientPhone, patientAddress,
+                appointmentTime, status, durationMinutes,
+                appointmentTime.toLocalDate(), appointmentTime.toLocalTime(), appointmentTime.plusMinutes(durationMinutes));
+    }
+
 }
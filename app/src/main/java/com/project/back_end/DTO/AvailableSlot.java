@@ -0,0 +1,18 @@
+package com.project.back_end.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableSlot {
+
+    private Long doctorId;
+    private String doctorName;
+    private String specialty;
+    private LocalDateTime time;
+}
@@ -0,0 +1,16 @@
+package com.project.back_end.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingResult {
+
+    // Same codes as AppointmentService.bookAppointments; appointmentId is set only when booked
+    private int result;
+    private Long appointmentId;
+    private String message;
+}
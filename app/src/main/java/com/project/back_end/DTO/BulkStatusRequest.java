@@ -0,0 +1,19 @@
+package com.project.back_end.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequest {
+
+    // Either the appointment ids, or a date range [from, to] covering every appointment in it
+    private List<Long> ids;
+    private LocalDate from;
+    private LocalDate to;
+}
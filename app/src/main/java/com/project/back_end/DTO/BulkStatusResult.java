@@ -0,0 +1,17 @@
+package com.project.back_end.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResult {
+
+    private int updated;
+    // Requested ids that do not exist or belong to another doctor; always empty for a date range
+    private List<Long> skipped;
+}
@@ -0,0 +1,45 @@
+package com.project.back_end.DTO;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Progress of a background doctor deletion; written by the worker thread, polled by admins
+@Getter
+public class DeletionJob {
+
+    public static final String RUNNING = "running";
+    public static final String DONE = "done";
+    public static final String FAILED = "failed";
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long doctorId;
+    private final long total;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile long deleted;
+    private volatile String status = RUNNING;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    // total is the appointment count when the job started; bookings made since are swept at the end
+    public DeletionJob(Long doctorId, long total) {
+        this.doctorId = doctorId;
+        this.total = total;
+    }
+
+    public void progress(int rows) {
+        deleted += rows;
+    }
+
+    public void finish() {
+        finishedAt = LocalDateTime.now();
+        status = DONE;
+    }
+
+    public void fail(String message) {
+        error = message;
+        finishedAt = LocalDateTime.now();
+        status = FAILED;
+    }
+}
@@ -0,0 +1,23 @@
+package com.project.back_end.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorAvailability {
+
+    private Long doctorId;
+    // Every slot the doctor offers on at least one of the dates, in time order
+    private List<LocalTime> slots;
+    // One string per date: character i is '1' when slots[i] is free that day and '0' when booked
+    // or not offered that day (other weekday hours, holiday, vacation)
+    private Map<LocalDate, String> days;
+}
@@ -0,0 +1,18 @@
+package com.project.back_end.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeGap {
+
+    // [start, end): offered by the doctor's schedule and overlapped by no appointment
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private int minutes;
+}
@@ -0,0 +1,64 @@
+package com.project.back_end.config;
+
+import com.project.back_end.models.Appointment;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the appointment id generator ahead of the ids already in the table. Appointment ids used
+ * to come from AUTO_INCREMENT; the pooled table generator that replaced it would otherwise start
+ * at 1. Runs before the web server takes requests and only ever raises the stored value, so it is
+ * safe on every start and alongside other nodes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentIdSeed implements SmartInitializingSingleton {
+
+    static final String GENERATOR_TABLE = "id_generator";
+    static final String SEGMENT = "appointment";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            seed();
+        } catch (Exception e) {
+            // Inserts may collide with old ids until the next start retries
+            log.error("Appointment id seed failed", e);
+        }
+    }
+
+    // The generator value after seeding. The pooled optimizer hands out the block ending at the
+    // stored value, so one allocation above the highest id starts right after it
+    public long seed() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM appointment", Long.class);
+        long floor = maxId + Appointment.ID_ALLOCATION_SIZE;
+        if (raise(floor) == 0 && current() == null) {
+            try {
+                jdbcTemplate.update("INSERT INTO " + GENERATOR_TABLE + " (name, next_val) VALUES (?, ?)", SEGMENT, floor);
+            } catch (DuplicateKeyException e) {
+                // Another node or the generator itself created the row first
+                raise(floor);
+            }
+        }
+        long value = current();
+        log.info("Appointment id generator at {}, highest existing id {}", value, maxId);
+        return value;
+    }
+
+    private int raise(long floor) {
+        return jdbcTemplate.update("UPDATE " + GENERATOR_TABLE + " SET next_val = ? WHERE name = ? AND next_val < ?",
+                floor, SEGMENT, floor);
+    }
+
+    private Long current() {
+        return jdbcTemplate.query("SELECT next_val FROM " + GENERATOR_TABLE + " WHERE name = ?",
+                rs -> rs.next() ? rs.getLong(1) : null, SEGMENT);
+    }
+}
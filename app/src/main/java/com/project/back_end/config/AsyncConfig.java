@@ -0,0 +1,10 @@
+package com.project.back_end.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// @Async methods run on Boot's applicationTaskExecutor (virtual threads under the virtual profile)
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
@@ -0,0 +1,39 @@
+package com.project.back_end.config;
+
+import com.project.back_end.security.VerifiedTokenCache;
+import com.project.back_end.services.TokenService;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Service timers come from @Timed through {@link TimedAspect}. Controller routes, repository
+ * invocations and the Hikari and Mongo pools are instrumented by Spring Boot itself.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Read from the cache's own counters at scrape time; nothing is added to the validation path
+    @Bean
+    public MeterBinder tokenCacheMetrics(TokenService tokenService) {
+        return registry -> {
+            VerifiedTokenCache cache = tokenService.getTokenCache();
+            FunctionCounter.builder("auth.token.cache.requests", cache, VerifiedTokenCache::hitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("auth.token.cache.requests", cache, VerifiedTokenCache::missCount)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("auth.token.cache.evictions", cache, VerifiedTokenCache::evictionCount)
+                    .register(registry);
+            Gauge.builder("auth.token.cache.size", cache, VerifiedTokenCache::size).register(registry);
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.project.back_end.config;
+
+import com.project.back_end.models.Prescription;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Creates the indexes declared on Mongo documents at startup. Spring Data leaves automatic
+ * index creation off, and the prescription save path relies on the unique appointmentId index,
+ * so the indexes are in place before the web server accepts requests and startup fails when
+ * they cannot be created.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexConfig implements SmartInitializingSingleton {
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    // Runs once every singleton exists, ahead of the lifecycle phase that starts the web server
+    @Override
+    public void afterSingletonsInstantiated() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        IndexOperations indexOps = mongoTemplate.indexOps(Prescription.class);
+        try {
+            resolver.resolveIndexFor(Prescription.class).forEach(indexOps::ensureIndex);
+        } catch (RuntimeException e) {
+            // Existing duplicates or an unreachable store; serving without the index would let duplicates in
+            throw new IllegalStateException("Could not create prescription indexes", e);
+        }
+        log.info("Prescription indexes are in place");
+    }
+}
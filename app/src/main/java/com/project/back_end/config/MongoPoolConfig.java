@@ -0,0 +1,33 @@
+package com.project.back_end.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool limits for the prescription store. Once requests run on virtual threads
+ * this pool, not the servlet thread count, decides how many Mongo calls are in flight.
+ */
+@Configuration
+public class MongoPoolConfig {
+
+    @Value("${mongo.pool.max-size:100}")
+    private int maxSize;
+
+    @Value("${mongo.pool.min-size:0}")
+    private int minSize;
+
+    @Value("${mongo.pool.max-wait-ms:120000}")
+    private long maxWaitMillis;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer() {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .minSize(minSize)
+                .maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS));
+    }
+}
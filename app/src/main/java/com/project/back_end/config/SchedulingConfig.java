@@ -0,0 +1,10 @@
+package com.project.back_end.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled jobs (the appointment archive mover, the doctor search refresh)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
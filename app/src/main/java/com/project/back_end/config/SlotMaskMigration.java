@@ -0,0 +1,149 @@
+package com.project.back_end.config;
+
+import com.project.back_end.models.SlotMask;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies slot templates from the old doctor_available_times collection table into
+ * doctor.slot_mask, then fills doctor_slot for every mask that has slots but no rows there yet.
+ * Runs once the schema update has added the column and table and before the web server takes
+ * requests; only doctors still missing their mask or rows are touched, so it is safe on every
+ * start. The old table is left in place for a rollback to the previous release.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SlotMaskMigration implements SmartInitializingSingleton {
+
+    static final String LEGACY_TABLE = "doctor_available_times";
+    static final String SLOT_TABLE = "doctor_slot";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${doctor.slot-mask.migration.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            migrate();
+        } catch (Exception e) {
+            // Unmigrated doctors keep an empty template until the next start retries
+            log.error("Slot mask migration failed", e);
+        }
+    }
+
+    // Number of doctors given a mask from the legacy table
+    public int migrate() {
+        if (!legacyTableExists()) {
+            backfillSlots();
+            return 0;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        int[] migrated = {0};
+        long[] current = {-1};
+        List<LocalTime> times = new ArrayList<>();
+        jdbcTemplate.query("SELECT d.id, t.available_times FROM doctor d JOIN " + LEGACY_TABLE + " t ON t.doctor_id = d.id " +
+                "WHERE d.slot_mask IS NULL ORDER BY d.id", (ResultSet rs) -> {
+            long doctorId = rs.getLong(1);
+            if (doctorId != current[0]) {
+                migrated[0] += add(batch, current[0], times);
+                current[0] = doctorId;
+            }
+            LocalTime time = rs.getObject(2, LocalTime.class);
+            if (time != null && SlotMask.index(time) < 0) {
+                log.warn("Dropping off-grid slot {} of doctor {}", time, doctorId);
+            } else if (time != null) {
+                times.add(time);
+            }
+        });
+        migrated[0] += add(batch, current[0], times);
+        flush(batch);
+
+        // Doctors without any legacy slots still need a non-null mask
+        int empty = jdbcTemplate.update("UPDATE doctor SET slot_mask = ? WHERE slot_mask IS NULL", SlotMask.EMPTY.encode());
+        if (migrated[0] > 0 || empty > 0) {
+            log.info("Migrated slot templates of {} doctors, {} without slots", migrated[0], empty);
+        }
+        backfillSlots();
+        return migrated[0];
+    }
+
+    // Number of doctors given doctor_slot rows from their mask: masks copied above, or written
+    // before the table existed. Empty masks have no rows and are skipped in the query
+    public int backfillSlots() {
+        List<Object[]> rows = new ArrayList<>();
+        int[] doctors = {0};
+        jdbcTemplate.query("SELECT d.id, d.slot_mask FROM doctor d WHERE d.slot_mask IS NOT NULL AND d.slot_mask <> ? " +
+                "AND NOT EXISTS (SELECT 1 FROM " + SLOT_TABLE + " s WHERE s.doctor_id = d.id)", (ResultSet rs) -> {
+            long doctorId = rs.getLong(1);
+            for (int slot : SlotMask.decode(rs.getString(2)).slots()) {
+                rows.add(new Object[]{doctorId, slot});
+            }
+            doctors[0]++;
+            if (rows.size() >= batchSize) {
+                insertSlots(rows);
+            }
+        }, SlotMask.EMPTY.encode());
+        insertSlots(rows);
+        if (doctors[0] > 0) {
+            log.info("Filled {} for {} doctors", SLOT_TABLE, doctors[0]);
+        }
+        return doctors[0];
+    }
+
+    private void insertSlots(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + SLOT_TABLE + " (doctor_id, slot) VALUES (?, ?)", rows);
+            rows.clear();
+        }
+    }
+
+    private int add(List<Object[]> batch, long doctorId, List<LocalTime> times) {
+        if (doctorId < 0) {
+            return 0;
+        }
+        batch.add(new Object[]{SlotMask.of(times).encode(), doctorId});
+        times.clear();
+        if (batch.size() >= batchSize) {
+            flush(batch);
+        }
+        return 1;
+    }
+
+    private void flush(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE doctor SET slot_mask = ? WHERE id = ? AND slot_mask IS NULL", batch);
+            batch.clear();
+        }
+    }
+
+    // Unquoted identifiers are stored lower case by MySQL and upper case by H2
+    private boolean legacyTableExists() {
+        Boolean exists = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{LEGACY_TABLE, LEGACY_TABLE.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
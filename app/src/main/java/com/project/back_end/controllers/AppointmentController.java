@@ -1,5 +1,10 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.BookingResult;
+import com.project.back_end.DTO.BulkStatusRequest;
+import com.project.back_end.DTO.BulkStatusResult;
+import com.project.back_end.DTO.CursorPage;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.Service;
@@ -11,7 +16,9 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/appointments")
@@ -29,8 +36,24 @@ public class AppointmentController {
         }
 
         int result = appointmentService.bookAppointment(appointment, token);
-        return result == 1 ? ResponseEntity.ok("Appointment booked successfully")
-                : ResponseEntity.status(500).body("Booking failed");
+        return switch (result) {
+            case 1 -> ResponseEntity.ok("Appointment booked successfully");
+            case -1 -> ResponseEntity.status(409).body(AppointmentService.SLOT_TAKEN);
+            case -3 -> ResponseEntity.status(404).body(AppointmentService.DOCTOR_NOT_FOUND);
+            case -4 -> ResponseEntity.status(400).body(AppointmentService.INVALID_APPOINTMENT);
+            default -> ResponseEntity.status(500).body("Booking failed");
+        };
+    }
+
+    // 1b. Book many appointments at once (admin only): one result per appointment, in request order
+    @PostMapping("/bulk/{token}")
+    public ResponseEntity<?> bookAppointments(@PathVariable String token, @RequestBody List<Appointment> appointments) {
+        if (!sharedService.validateToken(token, "admin")) {
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        List<BookingResult> results = appointmentService.bookAppointments(appointments);
+        return ResponseEntity.ok(results);
     }
 
     // 2. Update an appointment (patient only)
@@ -41,7 +64,12 @@ public class AppointmentController {
         }
 
         String result = appointmentService.updateAppointment(appointment.getId(), appointment, token);
-        return ResponseEntity.ok(result);
+        return switch (result) {
+            case AppointmentService.SLOT_TAKEN -> ResponseEntity.status(409).body(result);
+            case AppointmentService.DOCTOR_NOT_FOUND -> ResponseEntity.status(404).body(result);
+            case AppointmentService.INVALID_APPOINTMENT -> ResponseEntity.status(400).body(result);
+            default -> ResponseEntity.ok(result);
+        };
     }
 
     // 3. Cancel an appointment (patient only)
@@ -55,12 +83,14 @@ public class AppointmentController {
         return ResponseEntity.ok(result);
     }
 
-    // 4. Doctor views appointments (filtered by date and patient name)
+    // 4. Doctor views appointments (filtered by date and patient name), one keyset page at a time
     @GetMapping("/view/{token}")
     public ResponseEntity<?> getAppointments(
             @PathVariable String token,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-            @RequestParam(required = false) String patientName
+            @RequestParam(required = false) String patientName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
     ) {
         if (!sharedService.validateToken(token, "doctor")) {
             return ResponseEntity.status(401).body("Invalid or expired token");
@@ -69,8 +99,11 @@ public class AppointmentController {
         LocalDateTime start = date.atStartOfDay();
         LocalDateTime end = date.plusDays(1).atStartOfDay();
 
-        List<Appointment> appointments = appointmentService.getAppointments(token, start, end, patientName);
-        return ResponseEntity.ok(appointments);
+        CursorPage<AppointmentDTO> page = appointmentService.getAppointments(token, start, end, patientName, cursor, size);
+        Map<String, Object> response = new HashMap<>();
+        response.put("appointments", page.getItems());
+        response.put("nextCursor", page.getNextCursor());
+        return ResponseEntity.ok(response);
     }
 
     // 5. Doctor changes appointment status (e.g., to mark as completed or cancelled)
@@ -83,4 +116,16 @@ public class AppointmentController {
         appointmentService.changeStatus(id, status, token);
         return ResponseEntity.ok("Status updated");
     }
+
+    // 5b. Doctor sets one status on many appointments at once: listed ids or a date range
+    @PutMapping("/status/bulk/{status}/{token}")
+    public ResponseEntity<?> changeStatuses(@PathVariable int status, @PathVariable String token,
+                                            @RequestBody BulkStatusRequest request) {
+        if (!sharedService.validateToken(token, "doctor")) {
+            return ResponseEntity.status(401).body("Invalid or expired token");
+        }
+
+        BulkStatusResult result = appointmentService.changeStatuses(token, status, request);
+        return ResponseEntity.ok(result);
+    }
 }
@@ -1,6 +1,14 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.DTO.AvailableSlot;
+import com.project.back_end.DTO.CursorPage;
+import com.project.back_end.DTO.DeletionJob;
+import com.project.back_end.DTO.DoctorAvailability;
+import com.project.back_end.DTO.FreeGap;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.ScheduleException;
+import com.project.back_end.services.DoctorDeletionJobs;
+import com.project.back_end.services.DoctorSearchIndex;
 import com.project.back_end.services.DoctorService;
 import com.project.back_end.services.Service;
 import com.project.back_end.DTO.Login;
@@ -11,10 +19,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("${api.path}doctor")
@@ -22,6 +32,7 @@ import java.util.Map;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final DoctorDeletionJobs doctorDeletionJobs;
     private final Service sharedService;
 
     // 1. Check doctor's availability on a specific date
@@ -40,11 +51,116 @@ public class DoctorController {
         return ResponseEntity.ok(availability);
     }
 
-    // 2. Get all doctors
+    // 1b. Availability matrix for several doctors (ids or a specialty) over a date range
+    @GetMapping("/availability/{user}/{token}")
+    public ResponseEntity<?> getAvailabilityRange(
+            @PathVariable String user,
+            @PathVariable String token,
+            @RequestParam(required = false) List<Long> doctorIds,
+            @RequestParam(required = false) String specialty,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if (!sharedService.validateToken(token, user)) {
+            return ResponseEntity.status(401).body("Invalid or expired token");
+        }
+
+        List<DoctorAvailability> availability = doctorService.getAvailability(doctorIds, specialty, from, to);
+        return ResponseEntity.ok(availability);
+    }
+
+    // 1c. Earliest free slots across a specialty or a doctor list, optionally within a time-of-day window
+    @GetMapping("/earliest/{user}/{token}")
+    public ResponseEntity<?> findEarliestSlots(
+            @PathVariable String user,
+            @PathVariable String token,
+            @RequestParam(required = false) List<Long> doctorIds,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime windowStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime windowEnd,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (!sharedService.validateToken(token, user)) {
+            return ResponseEntity.status(401).body("Invalid or expired token");
+        }
+
+        List<AvailableSlot> slots = doctorService.findEarliestSlots(doctorIds, specialty, after, windowStart, windowEnd, limit);
+        return ResponseEntity.ok(slots);
+    }
+
+    // 1d. Holidays, vacations and one-off hours of the doctor behind the token
+    @PostMapping("/schedule/exceptions/{token}")
+    public ResponseEntity<?> addScheduleException(
+            @PathVariable String token,
+            @Valid @RequestBody ScheduleException exception
+    ) {
+        if (!sharedService.validateToken(token, "doctor")) {
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        int result = doctorService.addScheduleException(token, exception);
+        return switch (result) {
+            case 1 -> ResponseEntity.status(201).body(exception);
+            case -1 -> ResponseEntity.status(409).body("Overlaps an existing schedule exception");
+            case -2 -> ResponseEntity.badRequest().body("endDate must be on or after startDate");
+            default -> ResponseEntity.status(500).body("Error saving schedule exception");
+        };
+    }
+
+    @GetMapping("/schedule/exceptions/{token}")
+    public ResponseEntity<?> getScheduleExceptions(@PathVariable String token) {
+        if (!sharedService.validateToken(token, "doctor")) {
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        return ResponseEntity.ok(doctorService.getScheduleExceptions(token));
+    }
+
+    @DeleteMapping("/schedule/exceptions/{exceptionId}/{token}")
+    public ResponseEntity<?> deleteScheduleException(
+            @PathVariable Long exceptionId,
+            @PathVariable String token
+    ) {
+        if (!sharedService.validateToken(token, "doctor")) {
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        int result = doctorService.deleteScheduleException(token, exceptionId);
+        return switch (result) {
+            case 1 -> ResponseEntity.ok("Schedule exception deleted");
+            case -1 -> ResponseEntity.status(404).body("Schedule exception not found");
+            default -> ResponseEntity.status(500).body("Deletion failed");
+        };
+    }
+
+    // 1e. Free stretches on a date long enough for a visit of the given length
+    @GetMapping("/gaps/{user}/{doctorId}/{date}/{token}")
+    public ResponseEntity<?> getFreeGaps(
+            @PathVariable String user,
+            @PathVariable Long doctorId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @PathVariable String token,
+            @RequestParam(defaultValue = "15") int minutes
+    ) {
+        if (!sharedService.validateToken(token, user)) {
+            return ResponseEntity.status(401).body("Invalid or expired token");
+        }
+
+        List<FreeGap> gaps = doctorService.getFreeGaps(doctorId, date, minutes);
+        return ResponseEntity.ok(gaps);
+    }
+
+    // 2. Get all doctors, one keyset page at a time
     @GetMapping
-    public ResponseEntity<?> getAllDoctors() {
+    public ResponseEntity<?> getAllDoctors(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        CursorPage<Doctor> page = doctorService.getDoctors(cursor, size);
         Map<String, Object> response = new HashMap<>();
-        response.put("doctors", doctorService.getDoctors());
+        response.put("doctors", page.getItems());
+        response.put("nextCursor", page.getNextCursor());
         return ResponseEntity.ok(response);
     }
 
@@ -96,7 +212,8 @@ public class DoctorController {
         };
     }
 
-    // 6. Delete doctor by ID (admin only)
+    // 6. Delete doctor by ID (admin only); appointments are removed in the background and the
+    // returned job can be polled through 6b
     @DeleteMapping("/delete/{doctorId}/{token}")
     public ResponseEntity<?> deleteDoctor(
             @PathVariable Long doctorId,
@@ -106,12 +223,28 @@ public class DoctorController {
             return ResponseEntity.status(401).body("Unauthorized");
         }
 
-        int result = doctorService.deleteDoctor(doctorId);
-        return switch (result) {
-            case 1 -> ResponseEntity.ok("Doctor deleted successfully");
-            case -1 -> ResponseEntity.status(404).body("Doctor not found");
-            default -> ResponseEntity.status(500).body("Deletion failed");
-        };
+        Optional<DeletionJob> job = doctorDeletionJobs.start(doctorId);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(404).body("Doctor not found");
+        }
+        return ResponseEntity.accepted().body(job.get());
+    }
+
+    // 6b. Progress of a doctor deletion (admin only)
+    @GetMapping("/delete/status/{jobId}/{token}")
+    public ResponseEntity<?> getDeletionStatus(
+            @PathVariable String jobId,
+            @PathVariable String token
+    ) {
+        if (!sharedService.validateToken(token, "admin")) {
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        Optional<DeletionJob> job = doctorDeletionJobs.get(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(404).body("Deletion job not found");
+        }
+        return ResponseEntity.ok(job.get());
     }
 
     // 7. Filter doctors by name and specialty
@@ -123,4 +256,14 @@ public class DoctorController {
         List<Doctor> results = doctorService.filterDoctorByNameAndSpecialty(name, specialty);
         return ResponseEntity.ok(results);
     }
+
+    // 8. Typeahead suggestions by name and specialty prefixes, ranked, served from memory
+    @GetMapping("/autocomplete")
+    public ResponseEntity<?> autocomplete(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit
+    ) {
+        List<DoctorSearchIndex.Suggestion> suggestions = doctorService.autocomplete(q, limit);
+        return ResponseEntity.ok(suggestions);
+    }
 }
@@ -1,7 +1,14 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.PasswordService;
+import com.project.back_end.services.TokenService;
+import com.project.back_end.util.PageCursor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -20,6 +27,57 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    // Unparseable bodies, including slot times off the 15-minute grid
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, String>> handleUnreadableBody(HttpMessageNotReadableException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Malformed request body");
+        Throwable cause = ex.getMostSpecificCause();
+        error.put("message", cause instanceof IllegalArgumentException ? cause.getMessage() : "The request body could not be read");
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(PageCursor.InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursor(PageCursor.InvalidCursorException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Invalid cursor");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(DoctorService.InvalidAvailabilityRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidAvailabilityRequest(DoctorService.InvalidAvailabilityRequestException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Invalid availability request");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(AppointmentService.InvalidBulkRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidBulkRequest(AppointmentService.InvalidBulkRequestException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Invalid bulk request");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(TokenService.UnknownAccountException.class)
+    public ResponseEntity<Map<String, String>> handleUnknownAccount(TokenService.UnknownAccountException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Unauthorized");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+    }
+
+    // The hashing executor is full; ask the client to retry instead of queueing more work
+    @ExceptionHandler(PasswordService.HashingBusyException.class)
+    public ResponseEntity<Map<String, String>> handleHashingBusy(PasswordService.HashingBusyException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service busy");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception ex) {
         Map<String, String> error = new HashMap<>();
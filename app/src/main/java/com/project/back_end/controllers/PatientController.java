@@ -1,6 +1,7 @@
 package com.project.back_end.controllers;
 
 import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.CursorPage;
 
 import com.project.back_end.DTO.Login;
 import com.project.back_end.models.Patient;
@@ -11,7 +12,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/patient")
@@ -24,17 +27,12 @@ public class PatientController {
     // 1. Patient Registration
     @PostMapping("/register")
     public ResponseEntity<?> createPatient(@Valid @RequestBody Patient patient) {
-        // Check if already exists by email or phone
-        if (patientService.getAllPatients().stream()
-                .anyMatch(p -> p.getEmail().equalsIgnoreCase(patient.getEmail()) ||
-                        p.getPhone().equalsIgnoreCase(patient.getPhone()))) {
-            return ResponseEntity.status(409).body("Patient already exists");
-        }
-
         int result = patientService.createPatient(patient);
-        return result == 1
-                ? ResponseEntity.status(201).body("Patient registered successfully")
-                : ResponseEntity.status(500).body("Failed to register patient");
+        return switch (result) {
+            case 1 -> ResponseEntity.status(201).body("Patient registered successfully");
+            case -1 -> ResponseEntity.status(409).body("Patient already exists");
+            default -> ResponseEntity.status(500).body("Failed to register patient");
+        };
     }
 
     // 2. Patient Login
@@ -54,15 +52,21 @@ public class PatientController {
         return ResponseEntity.ok(patient);
     }
 
-    // 4. Get All Appointments of Logged-in Patient
+    // 4. Get All Appointments of Logged-in Patient, one keyset page at a time
     @GetMapping("/appointments/{token}")
-    public ResponseEntity<?> getPatientAppointments(@PathVariable String token) {
+    public ResponseEntity<?> getPatientAppointments(
+            @PathVariable String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         if (!sharedService.validateToken(token, "patient")) {
             return ResponseEntity.status(403).body("Invalid or expired token");
         }
 
-        List<AppointmentDTO> appointments = patientService.getPatientAppointments(token);
-        return ResponseEntity.ok(appointments);
+        CursorPage<AppointmentDTO> page = patientService.getPatientAppointments(token, cursor, size);
+        Map<String, Object> response = new HashMap<>();
+        response.put("appointments", page.getItems());
+        response.put("nextCursor", page.getNextCursor());
+        return ResponseEntity.ok(response);
     }
 
     // 5. Filter Appointments by Condition (past or future)
@@ -4,11 +4,14 @@ import com.project.back_end.models.Prescription;
 import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.PrescriptionService;
 import com.project.back_end.services.Service;
+import com.project.back_end.services.TokenService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
+
 @RestController
 @RequestMapping("${api.path}prescription")
 @RequiredArgsConstructor
@@ -17,6 +20,7 @@ public class PrescriptionController {
     private final PrescriptionService prescriptionService;
     private final AppointmentService appointmentService;
     private final Service sharedService;
+    private final TokenService tokenService;
 
 
     @PostMapping("/save/{token}")
@@ -26,11 +30,18 @@ public class PrescriptionController {
         if (!sharedService.validateToken(token, "doctor")) {
             return ResponseEntity.status(403).body("Invalid or expired token");
         }
+        // Resolved before saving, so a prescription is never stored for an appointment that
+        // cannot then be marked completed
+        Optional<Long> doctorId = tokenService.currentDoctorId(token);
+        if (doctorId.isEmpty()) {
+            return ResponseEntity.status(403).body("Invalid or expired token");
+        }
 
         ResponseEntity<?> response = prescriptionService.savePrescription(prescription);
 
+        // Marking the appointment completed does not hold up the response
         if (response.getStatusCode().is2xxSuccessful()) {
-            appointmentService.changeStatus(prescription.getAppointmentId(), 1, token);
+            appointmentService.changeStatusAsync(prescription.getAppointmentId(), 1, doctorId.get());
         }
 
         return response;
@@ -9,18 +9,24 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "admin")
+@NaturalIdCache(region = "admin.naturalId")
 public class Admin {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @NotNull(message = "Username is required")
+    @NaturalId(mutable = true)
     private String username;
 
     @NotNull(message = "Password is required")
@@ -12,13 +12,21 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.persistence.Transient;
 import org.jetbrains.annotations.Contract;
 import lombok.Data;
@@ -29,10 +37,25 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_appointment_doctor_time",
+        columnNames = {"doctor_id", "appointment_time"}),
+        indexes = {@Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time, id"),
+                // Archive mover scans by age across doctors
+                @Index(name = "idx_appointment_time", columnList = "appointment_time")})
 public class Appointment {
 
+  public static final int DEFAULT_DURATION_MINUTES = 60;
+  public static final int MIN_DURATION_MINUTES = 15;
+  public static final int MAX_DURATION_MINUTES = 480;
+  // Ids reserved per round trip to the generator table
+  public static final int ID_ALLOCATION_SIZE = 50;
+
+  // Pooled table generator instead of IDENTITY, which stops Hibernate from batching inserts;
+  // MySQL has no sequences. AppointmentIdSeed moves it past ids the auto-increment handed out
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "appointment_id")
+  @TableGenerator(name = "appointment_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+          pkColumnValue = "appointment", allocationSize = ID_ALLOCATION_SIZE)
   private Long id;
 
   @ManyToOne
@@ -49,11 +72,22 @@ public class Appointment {
   @NotNull(message = "Status is required")
   private int status;
 
+  // Existing rows get the old fixed length when the column is added
+  @Min(value = MIN_DURATION_MINUTES, message = "Appointments last at least 15 minutes")
+  @Max(value = MAX_DURATION_MINUTES, message = "Appointments last at most 8 hours")
+  @ColumnDefault("60")
+  @Column(nullable = false)
+  private int durationMinutes = DEFAULT_DURATION_MINUTES;
+
+  public Appointment(Long id, Doctor doctor, Patient patient, LocalDateTime appointmentTime, int status) {
+    this(id, doctor, patient, appointmentTime, status, DEFAULT_DURATION_MINUTES);
+  }
+
   @org.jetbrains.annotations.NotNull
   @Contract(pure = true)
   @Transient
   private LocalDateTime getEndTime() {
-    return appointmentTime.plusHours(1);
+    return appointmentTime.plusMinutes(durationMinutes);
   }
 
   @Transient
@@ -0,0 +1,44 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An appointment older than the archive horizon, moved out of the hot appointment table by
+ * AppointmentArchiver with its id unchanged. Read-only; AppointmentHistory decides per query
+ * whether to look here, in the hot table or in both.
+ */
+@Entity
+@Table(name = "appointment_archive", indexes = {
+        @Index(name = "idx_appointment_archive_doctor_time", columnList = "doctor_id, appointment_time, id"),
+        @Index(name = "idx_appointment_archive_patient_time", columnList = "patient_id, appointment_time, id")})
+@Data
+@NoArgsConstructor
+public class ArchivedAppointment {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private Doctor doctor;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private Patient patient;
+
+    @Column(nullable = false)
+    private LocalDateTime appointmentTime;
+
+    private int status;
+
+    @Column(nullable = false)
+    private int durationMinutes;
+}
@@ -5,25 +5,42 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import jakarta.persistence.ElementCollection;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
+import java.time.DayOfWeek;
 import java.time.LocalTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
     
 @Entity
+@Table(indexes = @Index(name = "idx_doctor_specialty", columnList = "specialty"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctor")
+@NaturalIdCache(region = "doctor.naturalId")
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Doctor {
 
     @Id
@@ -40,6 +57,7 @@ public class Doctor {
 
     @NotNull(message = "Email is required")
     @Email(message = "Invalid email format")
+    @NaturalId(mutable = true)
     private String email;
 
     @NotNull(message = "Password is required")
@@ -51,8 +69,70 @@ public class Doctor {
     @Pattern(regexp = "^[0-9]{10}$", message = "Phone number must be exactly 10 digits")
     private String phone;
 
+    // Daily slot template on the 15-minute grid, one fixed-width column on the doctor row (see SlotMask).
+    // The old doctor_available_times table is only read by SlotMaskMigration
+    @Convert(converter = SlotMaskConverter.class)
+    @Column(name = "slot_mask", length = SlotMask.ENCODED_LENGTH)
+    @JsonIgnore
+    private SlotMask slotMask = SlotMask.EMPTY;
+
+    // The same template as one row per offered slot, so the time filter is an index lookup on
+    // (slot, doctor_id). Derived from slotMask by setSlotMask, never written on its own
     @ElementCollection
-    private List<LocalTime> availableTimes;
+    @CollectionTable(name = "doctor_slot", joinColumns = @JoinColumn(name = "doctor_id"),
+            indexes = @Index(name = "idx_doctor_slot_slot", columnList = "slot, doctor_id"))
+    @Column(name = "slot", nullable = false)
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Set<Integer> slots = new HashSet<>();
+
+    // Weekdays with hours of their own; NULL when every day follows slotMask
+    @Convert(converter = WeeklySlotMaskConverter.class)
+    @Column(name = "weekly_slot_mask", length = WeeklySlotMask.ENCODED_LENGTH)
+    @JsonIgnore
+    private WeeklySlotMask weeklySlotMask;
+
+    public Doctor(Long id, String name, String specialty, String email, String password, String phone,
+                  List<LocalTime> availableTimes) {
+        this.id = id;
+        this.name = name;
+        this.specialty = specialty;
+        this.email = email;
+        this.password = password;
+        this.phone = phone;
+        setAvailableTimes(availableTimes);
+    }
+
+    // The JSON and service view of the template stays a sorted list of times
+    public List<LocalTime> getAvailableTimes() {
+        return slotMask == null ? List.of() : slotMask.times();
+    }
+
+    public void setAvailableTimes(List<LocalTime> availableTimes) {
+        setSlotMask(availableTimes == null ? SlotMask.EMPTY : SlotMask.of(availableTimes));
+    }
+
+    // Updates the slot rows in place, so only the slots that changed are inserted or deleted
+    public void setSlotMask(SlotMask slotMask) {
+        this.slotMask = slotMask == null ? SlotMask.EMPTY : slotMask;
+        Set<Integer> offered = new HashSet<>();
+        for (int slot : this.slotMask.slots()) {
+            offered.add(slot);
+        }
+        slots.retainAll(offered);
+        slots.addAll(offered);
+    }
+
+    // Only the weekdays that differ from availableTimes, e.g. {"FRIDAY": ["09:00"], "SUNDAY": []}
+    public Map<DayOfWeek, List<LocalTime>> getWeeklyTimes() {
+        return weeklySlotMask == null ? Map.of() : weeklySlotMask.times();
+    }
+
+    public void setWeeklyTimes(Map<DayOfWeek, List<LocalTime>> weeklyTimes) {
+        this.weeklySlotMask = WeeklySlotMask.of(weeklyTimes);
+    }
 
     public Doctor get(int i) {
         // TODO Auto-generated method stub
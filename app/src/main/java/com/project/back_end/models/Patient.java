@@ -4,11 +4,17 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -17,6 +23,12 @@ import lombok.AllArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(uniqueConstraints = {
+    @UniqueConstraint(name = "uk_patient_email", columnNames = "email"),
+    @UniqueConstraint(name = "uk_patient_phone", columnNames = "phone")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patient")
+@NaturalIdCache(region = "patient.naturalId")
 public class Patient {
 
   @Id
@@ -29,6 +41,7 @@ public class Patient {
 
   @NotNull(message = "Email is required")
   @Email(message = "Invalid email format")
+  @NaturalId(mutable = true)
   private String email;
 
   @NotNull(message = "Password is required")
@@ -1,5 +1,6 @@
 package com.project.back_end.models;
 
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.annotation.Id;
 import jakarta.validation.constraints.NotNull;
@@ -23,7 +24,9 @@ public class Prescription {
   @Size(min = 3, max = 100)
   private String patientName;
 
+  // One prescription per appointment, enforced by the store
   @NotNull(message = "Appointment ID is required")
+  @Indexed(name = "uk_prescription_appointment", unique = true)
   private Long appointmentId;
 
   @NotNull(message = "Medication is required")
@@ -0,0 +1,75 @@
+package com.project.back_end.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Replaces a doctor's weekly template for the dates from startDate to endDate inclusive: no
+ * slots for a holiday or vacation, different slots for a one-off clinic day. A doctor's
+ * exceptions never overlap, so at most one applies to any date.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_schedule_exception_doctor_start", columnList = "doctor_id, start_date"))
+@Data
+@NoArgsConstructor
+public class ScheduleException {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Set from the path or token, never from the request body
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+
+    @NotNull(message = "End date is required")
+    private LocalDate endDate;
+
+    @Size(max = 100)
+    private String reason;
+
+    @Convert(converter = SlotMaskConverter.class)
+    @Column(name = "slot_mask", length = SlotMask.ENCODED_LENGTH, nullable = false)
+    @JsonIgnore
+    private SlotMask slotMask = SlotMask.EMPTY;
+
+    public ScheduleException(Long doctorId, LocalDate startDate, LocalDate endDate, String reason,
+                             List<LocalTime> availableTimes) {
+        this.doctorId = doctorId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.reason = reason;
+        setAvailableTimes(availableTimes);
+    }
+
+    // Slots offered on the covered dates; empty when the doctor is away
+    public List<LocalTime> getAvailableTimes() {
+        return slotMask == null ? List.of() : slotMask.times();
+    }
+
+    public void setAvailableTimes(List<LocalTime> availableTimes) {
+        this.slotMask = availableTimes == null ? SlotMask.EMPTY : SlotMask.of(availableTimes);
+    }
+
+    public boolean covers(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+}
@@ -0,0 +1,168 @@
+package com.project.back_end.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A daily slot template as a bitmask over a fixed 15-minute grid: bit i is the slot starting
+ * i * 15 minutes after midnight. 96 slots fit in two longs, so free-slot arithmetic is a couple
+ * of AND-NOTs. Stored as 24 hex digits, four slots per digit, earliest slot in the high bit of
+ * the first digit, so the column reads left to right in time order.
+ */
+public final class SlotMask {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int WORDS = (SLOTS_PER_DAY + 63) / 64;
+    public static final int ENCODED_LENGTH = SLOTS_PER_DAY / 4;
+    public static final SlotMask EMPTY = new SlotMask(new long[WORDS]);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long[] words;
+
+    private SlotMask(long[] words) {
+        this.words = words;
+    }
+
+    // Throws IllegalArgumentException for a time that is not on the grid
+    public static SlotMask of(Collection<LocalTime> times) {
+        long[] words = new long[WORDS];
+        for (LocalTime time : times) {
+            int slot = index(time);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Slot times must be on a " + SLOT_MINUTES + "-minute grid: " + time);
+            }
+            words[slot >>> 6] |= 1L << slot;
+        }
+        return new SlotMask(words);
+    }
+
+    public static SlotMask ofWords(long... words) {
+        if (words.length != WORDS) {
+            throw new IllegalArgumentException("Expected " + WORDS + " words");
+        }
+        return new SlotMask(words.clone());
+    }
+
+    // Grid index of a time, or -1 when it is null or off the grid
+    public static int index(LocalTime time) {
+        if (time == null || time.getSecond() != 0 || time.getNano() != 0 || time.getMinute() % SLOT_MINUTES != 0) {
+            return -1;
+        }
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    public static LocalTime time(int slot) {
+        return LocalTime.MIN.plusMinutes((long) slot * SLOT_MINUTES);
+    }
+
+    public boolean contains(int slot) {
+        return slot >= 0 && slot < SLOTS_PER_DAY && (words[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    public boolean contains(LocalTime time) {
+        return contains(index(time));
+    }
+
+    public long word(int i) {
+        return words[i];
+    }
+
+    public SlotMask or(SlotMask other) {
+        long[] union = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            union[w] = words[w] | other.words[w];
+        }
+        return new SlotMask(union);
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    // Slot indexes in time order
+    public int[] slots() {
+        int[] slots = new int[size()];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            for (long word = words[w]; word != 0; word &= word - 1) {
+                slots[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return slots;
+    }
+
+    public List<LocalTime> times() {
+        int[] slots = slots();
+        List<LocalTime> times = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            times.add(time(slot));
+        }
+        return times;
+    }
+
+    public String encode() {
+        char[] digits = new char[ENCODED_LENGTH];
+        for (int d = 0; d < ENCODED_LENGTH; d++) {
+            int value = 0;
+            for (int j = 0; j < 4; j++) {
+                if (contains(d * 4 + j)) {
+                    value |= 8 >>> j;
+                }
+            }
+            digits[d] = HEX[value];
+        }
+        return new String(digits);
+    }
+
+    public static SlotMask decode(String encoded) {
+        if (encoded == null || encoded.length() != ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Slot mask must be " + ENCODED_LENGTH + " hex digits");
+        }
+        long[] words = new long[WORDS];
+        for (int d = 0; d < ENCODED_LENGTH; d++) {
+            int value = Character.digit(encoded.charAt(d), 16);
+            if (value < 0) {
+                throw new IllegalArgumentException("Slot mask must be " + ENCODED_LENGTH + " hex digits");
+            }
+            for (int j = 0; j < 4; j++) {
+                if ((value & (8 >>> j)) != 0) {
+                    int slot = d * 4 + j;
+                    words[slot >>> 6] |= 1L << slot;
+                }
+            }
+        }
+        return new SlotMask(words);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SlotMask other && java.util.Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Slot template <-> its fixed-width hex column
+@Converter
+public class SlotMaskConverter implements AttributeConverter<SlotMask, String> {
+
+    @Override
+    public String convertToDatabaseColumn(SlotMask mask) {
+        return mask == null ? null : mask.encode();
+    }
+
+    @Override
+    public SlotMask convertToEntityAttribute(String column) {
+        return column == null ? null : SlotMask.decode(column);
+    }
+}
@@ -0,0 +1,87 @@
+package com.project.back_end.models;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-weekday slot templates. A weekday without its own template falls back to the doctor's
+ * daily template, so "shorter Fridays" is one entry. Stored as seven {@link SlotMask} encodings
+ * back to back, Monday first, with a run of '-' for a weekday that has no template of its own.
+ */
+public final class WeeklySlotMask {
+
+    public static final int ENCODED_LENGTH = 7 * SlotMask.ENCODED_LENGTH;
+
+    private static final String UNSET = "-".repeat(SlotMask.ENCODED_LENGTH);
+
+    // Indexed by DayOfWeek.ordinal(); null means the daily template applies
+    private final SlotMask[] days;
+
+    private WeeklySlotMask(SlotMask[] days) {
+        this.days = days;
+    }
+
+    // Null when no weekday has its own template. Throws IllegalArgumentException for off-grid times
+    public static WeeklySlotMask of(Map<DayOfWeek, List<LocalTime>> times) {
+        if (times == null || times.isEmpty()) {
+            return null;
+        }
+        SlotMask[] days = new SlotMask[7];
+        times.forEach((day, dayTimes) -> days[day.ordinal()] = SlotMask.of(dayTimes == null ? List.of() : dayTimes));
+        return new WeeklySlotMask(days);
+    }
+
+    public SlotMask forDay(DayOfWeek day, SlotMask daily) {
+        SlotMask mask = days[day.ordinal()];
+        return mask != null ? mask : daily;
+    }
+
+    // Only the weekdays that have their own template
+    public Map<DayOfWeek, List<LocalTime>> times() {
+        Map<DayOfWeek, List<LocalTime>> times = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (days[day.ordinal()] != null) {
+                times.put(day, days[day.ordinal()].times());
+            }
+        }
+        return times;
+    }
+
+    public String encode() {
+        StringBuilder encoded = new StringBuilder(ENCODED_LENGTH);
+        for (SlotMask day : days) {
+            encoded.append(day == null ? UNSET : day.encode());
+        }
+        return encoded.toString();
+    }
+
+    public static WeeklySlotMask decode(String encoded) {
+        if (encoded == null || encoded.length() != ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Weekly slot mask must be " + ENCODED_LENGTH + " characters");
+        }
+        SlotMask[] days = new SlotMask[7];
+        for (int d = 0; d < 7; d++) {
+            String day = encoded.substring(d * SlotMask.ENCODED_LENGTH, (d + 1) * SlotMask.ENCODED_LENGTH);
+            days[d] = UNSET.equals(day) ? null : SlotMask.decode(day);
+        }
+        return new WeeklySlotMask(days);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WeeklySlotMask other && java.util.Arrays.equals(days, other.days);
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Arrays.hashCode(days);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Per-weekday templates <-> their fixed-width column; NULL when every day uses the daily template
+@Converter
+public class WeeklySlotMaskConverter implements AttributeConverter<WeeklySlotMask, String> {
+
+    @Override
+    public String convertToDatabaseColumn(WeeklySlotMask mask) {
+        return mask == null ? null : mask.encode();
+    }
+
+    @Override
+    public WeeklySlotMask convertToEntityAttribute(String column) {
+        return column == null ? null : WeeklySlotMask.decode(column);
+    }
+}
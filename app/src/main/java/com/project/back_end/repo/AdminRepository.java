@@ -2,13 +2,18 @@ package com.project.back_end.repo;
 
 import com.project.back_end.models.Admin;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface AdminRepository extends JpaRepository<Admin, Long> {
-    Admin findByUsername(String username);
-
-
-
+public interface AdminRepository extends JpaRepository<Admin, Long>, AdminUsernameLookup {
+    // findByUsername comes from AdminUsernameLookup (natural-id cache)
 
+    // Rehash on login without loading the admin
+    @Modifying
+    @Transactional
+    @Query("UPDATE Admin a SET a.password = :password WHERE a.id = :id")
+    int updatePassword(Long id, String password);
 }
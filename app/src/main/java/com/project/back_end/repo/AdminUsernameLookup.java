@@ -0,0 +1,9 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Admin;
+
+// Overrides the derived findByUsername query with a cached natural-id load
+public interface AdminUsernameLookup {
+
+    Admin findByUsername(String username);
+}
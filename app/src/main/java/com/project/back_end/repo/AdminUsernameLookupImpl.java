@@ -0,0 +1,18 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Admin;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+class AdminUsernameLookupImpl implements AdminUsernameLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Admin findByUsername(String username) {
+        return NaturalIds.load(entityManager, Admin.class, username).orElse(null);
+    }
+}
@@ -0,0 +1,118 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Appointment reads across the hot table and appointment_archive. A query goes to the hot table
+ * alone when its range starts at or after the archive cutoff (the mover never touches those rows),
+ * to the archive alone when it ends before the cutoff of the last completed move, and to both
+ * otherwise, merged in (appointmentTime, id) order so keyset pages stay stable while rows move.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AppointmentHistory {
+
+    public enum Source { HOT, ARCHIVE, BOTH }
+
+    private static final Comparator<AppointmentDTO> TIME_ORDER =
+            Comparator.comparing(AppointmentDTO::getAppointmentTime).thenComparing(AppointmentDTO::getId);
+
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+
+    @Value("${appointment.archive.horizon-days:365}")
+    private int horizonDays;
+
+    // Everything before this was in the archive when the last move finished; null until one has
+    private volatile LocalDateTime archivedThrough;
+
+    // Appointments starting before the first of the month horizonDays ago belong in the archive,
+    // so it grows a whole month at a time
+    public LocalDateTime cutoff() {
+        return LocalDate.now().minusDays(horizonDays).withDayOfMonth(1).atStartOfDay();
+    }
+
+    // Called by the mover once no hot row is older than cutoff; bookings are always in the future,
+    // so none can appear behind it later
+    public void markArchivedThrough(LocalDateTime cutoff) {
+        archivedThrough = cutoff;
+    }
+
+    // Where rows starting in [start, end) can be
+    public Source route(LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(cutoff()))
+            return Source.HOT;
+        LocalDateTime archived = archivedThrough;
+        if (archived != null && !end.isAfter(archived))
+            return Source.ARCHIVE;
+        return Source.BOTH;
+    }
+
+    public List<AppointmentDTO> findPatientPage(Long patientId, LocalDateTime afterTime, Long afterId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return merge(route(afterTime, LocalDateTime.MAX), limit,
+                () -> appointmentRepository.findPatientPage(patientId, afterTime, afterId, page),
+                () -> archivedAppointmentRepository.findPatientPage(patientId, afterTime, afterId, page));
+    }
+
+    public List<AppointmentDTO> findDoctorPage(Long doctorId, String patientName, LocalDateTime end,
+                                               LocalDateTime afterTime, Long afterId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return merge(route(afterTime, end), limit,
+                () -> appointmentRepository.findDoctorPage(doctorId, patientName, end, afterTime, afterId, page),
+                () -> archivedAppointmentRepository.findDoctorPage(doctorId, patientName, end, afterTime, afterId, page));
+    }
+
+    // No time range, so both tables
+    public List<AppointmentDTO> findByPatientIdAndStatus(Long patientId, int status) {
+        return merge(Source.BOTH, Integer.MAX_VALUE,
+                () -> appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, status),
+                () -> archivedAppointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, status));
+    }
+
+    public List<AppointmentDTO> filterByDoctorNameAndPatientId(String doctorName, Long patientId) {
+        return concat(appointmentRepository.filterByDoctorNameAndPatientId(doctorName, patientId),
+                archivedAppointmentRepository.filterByDoctorNameAndPatientId(doctorName, patientId));
+    }
+
+    public List<AppointmentDTO> filterByDoctorNameAndPatientIdAndStatus(String doctorName, Long patientId, int status) {
+        return concat(appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(doctorName, patientId, status),
+                archivedAppointmentRepository.filterByDoctorNameAndPatientIdAndStatus(doctorName, patientId, status));
+    }
+
+    // Both sides are sorted and limited the same way; the merged list keeps the first limit rows
+    private List<AppointmentDTO> merge(Source source, int limit, Supplier<List<AppointmentDTO>> hot,
+                                       Supplier<List<AppointmentDTO>> archive) {
+        return switch (source) {
+            case HOT -> hot.get();
+            case ARCHIVE -> archive.get();
+            case BOTH -> {
+                List<AppointmentDTO> rows = concat(hot.get(), archive.get());
+                rows.sort(TIME_ORDER);
+                yield rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+            }
+        };
+    }
+
+    // The hot table is read first: a row the mover commits in between then shows up in both
+    // results and is dropped here, where the other order would lose it
+    private static List<AppointmentDTO> concat(List<AppointmentDTO> hot, List<AppointmentDTO> archived) {
+        Map<Long, AppointmentDTO> rows = new LinkedHashMap<>();
+        archived.forEach(a -> rows.put(a.getId(), a));
+        hot.forEach(a -> rows.putIfAbsent(a.getId(), a));
+        return new ArrayList<>(rows.values());
+    }
+}
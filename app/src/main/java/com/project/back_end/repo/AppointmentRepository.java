@@ -1,6 +1,8 @@
 package com.project.back_end.repo;
 
+import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,42 +10,112 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository  // 4. Marks this interface as a Spring Data repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
+    // List endpoints select straight into AppointmentDTO with explicit joins: one statement,
+    // no Doctor/Patient entity graphs (or availableTimes) loaded per row
+    String DTO_SELECT = "SELECT new com.project.back_end.DTO.AppointmentDTO(a.id, d.id, d.name, " +
+            "p.id, p.name, p.email, p.phone, p.address, a.appointmentTime, a.status, a.durationMinutes) " +
+            "FROM Appointment a JOIN a.doctor d JOIN a.patient p ";
+
     // 2. Custom Query Methods:
 
     // Find all appointments for a doctor within a specific time range
     List<Appointment> findByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
 
+    // Id, start and length of a doctor's appointments starting in [start, end) (availability index rebuilds)
+    @Query("SELECT a.id AS id, a.doctor.id AS doctorId, a.appointmentTime AS appointmentTime, " +
+            "a.durationMinutes AS durationMinutes FROM Appointment a " +
+            "WHERE a.doctor.id = :doctorId AND a.appointmentTime >= :start AND a.appointmentTime < :end")
+    List<AppointmentInterval> findIntervals(Long doctorId, LocalDateTime start, LocalDateTime end);
+
+    // Same for several doctors in one round trip (multi-day availability)
+    @Query("SELECT a.id AS id, a.doctor.id AS doctorId, a.appointmentTime AS appointmentTime, " +
+            "a.durationMinutes AS durationMinutes FROM Appointment a " +
+            "WHERE a.doctor.id IN :doctorIds AND a.appointmentTime >= :start AND a.appointmentTime < :end")
+    List<AppointmentInterval> findIntervalsByDoctorIds(Collection<Long> doctorIds, LocalDateTime start, LocalDateTime end);
+
+    interface AppointmentInterval {
+        Long getId();
+        Long getDoctorId();
+        LocalDateTime getAppointmentTime();
+        int getDurationMinutes();
+    }
+
     // Find appointments by doctor and patient name (case-insensitive) within a time range
     List<Appointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
             Long doctorId, String patientName, LocalDateTime start, LocalDateTime end);
 
-    // Delete all appointments for a specific doctor
+    // Delete all appointments for a specific doctor in one statement, without loading them
+    // (large histories go through DoctorDeletionJobs in batches first)
     @Modifying
     @Transactional
-    void deleteAllByDoctorId(Long doctorId);
+    @Query("DELETE FROM Appointment a WHERE a.doctor.id = :doctorId")
+    int deleteAllByDoctorId(Long doctorId);
+
+    long countByDoctorId(Long doctorId);
+
+    // One batch of ids of appointments starting before the cutoff (archive mover)
+    @Query("SELECT a.id FROM Appointment a WHERE a.appointmentTime < :cutoff ORDER BY a.appointmentTime")
+    List<Long> findIdsBefore(LocalDateTime cutoff, Pageable page);
+
+    // One batch of a doctor's appointment ids, oldest first (chunked doctor deletion)
+    @Query("SELECT a.id FROM Appointment a WHERE a.doctor.id = :doctorId ORDER BY a.id")
+    List<Long> findIdsByDoctorId(Long doctorId, Pageable page);
 
     // Find all appointments for a specific patient
     List<Appointment> findByPatientId(Long patientId);
 
+    // Keyset page of a patient's appointments, ordered by (appointmentTime, id)
+    @Query(DTO_SELECT + "WHERE a.patient.id = :patientId " +
+            "AND (a.appointmentTime > :afterTime OR (a.appointmentTime = :afterTime AND a.id > :afterId)) " +
+            "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findPatientPage(Long patientId, LocalDateTime afterTime, Long afterId, Pageable page);
+
+    // Keyset page of a doctor's appointments before end, optionally filtered by patient name
+    @Query(DTO_SELECT + "WHERE a.doctor.id = :doctorId AND a.appointmentTime < :end " +
+            "AND (a.appointmentTime > :afterTime OR (a.appointmentTime = :afterTime AND a.id > :afterId)) " +
+            "AND (:patientName IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :patientName, '%'))) " +
+            "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findDoctorPage(Long doctorId, String patientName, LocalDateTime end,
+                                     LocalDateTime afterTime, Long afterId, Pageable page);
+
     // Find appointments by patient ID and status, ordered by appointment time
-    List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+    @Query(DTO_SELECT + "WHERE a.patient.id = :patientId AND a.status = :status ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
 
     // Custom query using LIKE to filter by doctor's name and patient ID
-    @Query("SELECT a FROM Appointment a WHERE a.doctor.name LIKE %:doctorName% AND a.patient.id = :patientId")
-    List<Appointment> filterByDoctorNameAndPatientId(String doctorName, Long patientId);
+    @Query(DTO_SELECT + "WHERE d.name LIKE %:doctorName% AND a.patient.id = :patientId")
+    List<AppointmentDTO> filterByDoctorNameAndPatientId(String doctorName, Long patientId);
 
     // Custom query using LIKE, patient ID, and appointment status
-    @Query("SELECT a FROM Appointment a WHERE a.doctor.name LIKE %:doctorName% AND a.patient.id = :patientId AND a.status = :status")
-    List<Appointment> filterByDoctorNameAndPatientIdAndStatus(String doctorName, Long patientId, int status);
+    @Query(DTO_SELECT + "WHERE d.name LIKE %:doctorName% AND a.patient.id = :patientId AND a.status = :status")
+    List<AppointmentDTO> filterByDoctorNameAndPatientIdAndStatus(String doctorName, Long patientId, int status);
+
+    // Update the status of an appointment owned by the doctor; returns 0 when it is not theirs
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.status = :status WHERE a.id = :id AND a.doctor.id = :doctorId")
+    int updateStatus(int status, long id, Long doctorId);
+
+    // Which of the ids belong to the doctor (bulk status changes)
+    @Query("SELECT a.id FROM Appointment a WHERE a.id IN :ids AND a.doctor.id = :doctorId")
+    List<Long> findIdsOwnedBy(Collection<Long> ids, Long doctorId);
+
+    // Bulk form of updateStatus; ids of other doctors are left alone
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.status = :status WHERE a.id IN :ids AND a.doctor.id = :doctorId")
+    int updateStatuses(int status, Collection<Long> ids, Long doctorId);
 
-    // Update the status of a specific appointment
+    // Status of every appointment of the doctor starting in [start, end)
     @Modifying
     @Transactional
-    @Query("UPDATE Appointment a SET a.status = :status WHERE a.id = :id")
-    void updateStatus(int status, long id);
+    @Query("UPDATE Appointment a SET a.status = :status " +
+            "WHERE a.doctor.id = :doctorId AND a.appointmentTime >= :start AND a.appointmentTime < :end")
+    int updateStatusBetween(int status, Long doctorId, LocalDateTime start, LocalDateTime end);
 }
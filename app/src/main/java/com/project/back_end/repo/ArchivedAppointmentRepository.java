@@ -0,0 +1,63 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.ArchivedAppointment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Same reads as AppointmentRepository against appointment_archive; callers go through AppointmentHistory
+@Repository
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+
+    String DTO_SELECT = "SELECT new com.project.back_end.DTO.AppointmentDTO(a.id, d.id, d.name, " +
+            "p.id, p.name, p.email, p.phone, p.address, a.appointmentTime, a.status, a.durationMinutes) " +
+            "FROM ArchivedAppointment a JOIN a.doctor d JOIN a.patient p ";
+
+    // Copies hot rows into the archive in one INSERT ... SELECT; the caller deletes them in the same transaction
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO ArchivedAppointment (id, doctor, patient, appointmentTime, status, durationMinutes) " +
+            "SELECT a.id, a.doctor, a.patient, a.appointmentTime, a.status, a.durationMinutes " +
+            "FROM Appointment a WHERE a.id IN :ids")
+    int copyFromHot(Collection<Long> ids);
+
+    // One batch of a doctor's archived ids (chunked doctor deletion)
+    @Query("SELECT a.id FROM ArchivedAppointment a WHERE a.doctor.id = :doctorId ORDER BY a.id")
+    List<Long> findIdsByDoctorId(Long doctorId, Pageable page);
+
+    long countByDoctorId(Long doctorId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ArchivedAppointment a WHERE a.doctor.id = :doctorId")
+    int deleteAllByDoctorId(Long doctorId);
+
+    @Query(DTO_SELECT + "WHERE a.patient.id = :patientId " +
+            "AND (a.appointmentTime > :afterTime OR (a.appointmentTime = :afterTime AND a.id > :afterId)) " +
+            "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findPatientPage(Long patientId, LocalDateTime afterTime, Long afterId, Pageable page);
+
+    @Query(DTO_SELECT + "WHERE a.doctor.id = :doctorId AND a.appointmentTime < :end " +
+            "AND (a.appointmentTime > :afterTime OR (a.appointmentTime = :afterTime AND a.id > :afterId)) " +
+            "AND (:patientName IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :patientName, '%'))) " +
+            "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findDoctorPage(Long doctorId, String patientName, LocalDateTime end,
+                                        LocalDateTime afterTime, Long afterId, Pageable page);
+
+    @Query(DTO_SELECT + "WHERE a.patient.id = :patientId AND a.status = :status ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDTO> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+
+    @Query(DTO_SELECT + "WHERE d.name LIKE %:doctorName% AND a.patient.id = :patientId")
+    List<AppointmentDTO> filterByDoctorNameAndPatientId(String doctorName, Long patientId);
+
+    @Query(DTO_SELECT + "WHERE d.name LIKE %:doctorName% AND a.patient.id = :patientId AND a.status = :status")
+    List<AppointmentDTO> filterByDoctorNameAndPatientIdAndStatus(String doctorName, Long patientId, int status);
+}
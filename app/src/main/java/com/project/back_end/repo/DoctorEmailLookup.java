@@ -0,0 +1,11 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Doctor;
+
+import java.util.Optional;
+
+// Overrides the derived findByEmail query with a cached natural-id load
+public interface DoctorEmailLookup {
+
+    Optional<Doctor> findByEmail(String email);
+}
@@ -0,0 +1,20 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Doctor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class DoctorEmailLookupImpl implements DoctorEmailLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Doctor> findByEmail(String email) {
+        return NaturalIds.load(entityManager, Doctor.class, email);
+    }
+}
@@ -1,16 +1,87 @@
 package com.project.back_end.repo;
 
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.models.WeeklySlotMask;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {
-    Optional<Doctor> findByEmail(String email);
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, DoctorEmailLookup {
+    // findByEmail comes from DoctorEmailLookup (natural-id cache)
     List<Doctor> findByNameLike(String name);
     List<Doctor> findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(String name, String specialty);
     List<Doctor> findBySpecialtyIgnoreCase(String specialty);
+
+    // Optional name/specialty/slot filters in one query; relies on the default case-insensitive
+    // collation so the specialty comparison can use idx_doctor_specialty. The slot (a SlotMask
+    // grid index) is looked up in doctor_slot through idx_doctor_slot_slot
+    @Query("SELECT d FROM Doctor d " +
+            "WHERE (:name IS NULL OR LOWER(d.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
+            "AND (:specialty IS NULL OR d.specialty = :specialty) " +
+            "AND (:slot IS NULL OR d.id IN (SELECT o.id FROM Doctor o JOIN o.slots s WHERE s = :slot))")
+    List<Doctor> filterDoctors(String name, String specialty, Integer slot);
+
+    // Keyset page of doctor ids, loaded as rows by findAllByIdInOrderById
+    @Query("SELECT d.id FROM Doctor d WHERE d.id > :afterId ORDER BY d.id")
+    List<Long> findIdsAfter(Long afterId, Pageable page);
+
+    @Query("SELECT d FROM Doctor d WHERE d.id IN :ids ORDER BY d.id")
+    List<Doctor> findAllByIdInOrderById(List<Long> ids);
+
+    // Id/name/specialty triples in id order, used to warm the typeahead index page by page
+    @Query("SELECT d.id AS id, d.name AS name, d.specialty AS specialty FROM Doctor d WHERE d.id > :afterId ORDER BY d.id")
+    List<DoctorSummary> findSummariesAfter(Long afterId, Pageable page);
+
+    // Names for a handful of search hits without loading the entities
+    @Query("SELECT d.id AS id, d.name AS name, d.specialty AS specialty FROM Doctor d WHERE d.id IN :ids")
+    List<DoctorSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    interface DoctorSummary {
+        Long getId();
+        String getName();
+        String getSpecialty();
+    }
+
+    // Daily and weekly slot templates without loading the doctor row; empty when the doctor does not exist
+    @Query("SELECT d.id AS doctorId, d.slotMask AS slotMask, d.weeklySlotMask AS weeklySlotMask FROM Doctor d " +
+            "WHERE d.id = :doctorId")
+    Optional<DoctorTemplate> findTemplate(Long doctorId);
+
+    // Templates of several doctors at once, one row per known doctor
+    @Query("SELECT d.id AS doctorId, d.slotMask AS slotMask, d.weeklySlotMask AS weeklySlotMask FROM Doctor d " +
+            "WHERE d.id IN :doctorIds")
+    List<DoctorTemplate> findTemplatesByDoctorIds(Collection<Long> doctorIds);
+
+    interface DoctorTemplate {
+        Long getDoctorId();
+        SlotMask getSlotMask();
+        WeeklySlotMask getWeeklySlotMask();
+    }
+
+    // Locks the doctors' rows, in id order, until the surrounding transaction ends; booking writes
+    // take it so bookings for one doctor serialize across nodes. Returns the ids that exist
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d.id FROM Doctor d WHERE d.id IN :doctorIds ORDER BY d.id")
+    List<Long> lockByIds(Collection<Long> doctorIds);
+
+    // Doctor ids for a specialty in id order; same collation note as filterDoctors
+    @Query("SELECT d.id FROM Doctor d WHERE d.specialty = :specialty ORDER BY d.id")
+    List<Long> findIdsBySpecialty(String specialty, Pageable page);
+
+    // Store a rehashed (or migrated plaintext) password without loading the entity
+    @Modifying
+    @Transactional
+    @Query("UPDATE Doctor d SET d.password = :password WHERE d.id = :id")
+    int updatePassword(Long id, String password);
 }
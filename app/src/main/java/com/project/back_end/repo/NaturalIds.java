@@ -0,0 +1,20 @@
+package com.project.back_end.repo;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+// Natural-id loads resolve through the natural-id and entity caches before touching the database
+final class NaturalIds {
+
+    private NaturalIds() {
+    }
+
+    static <T> Optional<T> load(EntityManager entityManager, Class<T> type, Object naturalId) {
+        if (naturalId == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(type).loadOptional(naturalId);
+    }
+}
@@ -0,0 +1,9 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Patient;
+
+// Overrides the derived findByEmail query with a cached natural-id load
+public interface PatientEmailLookup {
+
+    Patient findByEmail(String email);
+}
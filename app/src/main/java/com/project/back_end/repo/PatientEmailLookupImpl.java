@@ -0,0 +1,18 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+class PatientEmailLookupImpl implements PatientEmailLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Patient findByEmail(String email) {
+        return NaturalIds.load(entityManager, Patient.class, email).orElse(null);
+    }
+}
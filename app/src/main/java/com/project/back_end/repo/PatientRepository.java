@@ -1,17 +1,49 @@
 package com.project.back_end.repo;
 
 import com.project.back_end.models.Patient;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository  // 3. Marks this interface as a Spring Data JPA repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientEmailLookup {
 
     // 2. Custom Query Methods:
 
-    // Find a patient by their email
-    Patient findByEmail(String email);
+    // findByEmail comes from PatientEmailLookup (natural-id cache)
 
     // Find a patient by either email or phone number
     Patient findByEmailOrPhone(String email, String phone);
+
+    // Keyset page of patients ordered by id
+    List<Patient> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable page);
+
+    // Duplicate check behind the registration filter's "maybe" answers
+    boolean existsByEmailOrPhone(String email, String phone);
+
+    // Which of the given ids belong to a patient (bulk booking)
+    @Query("SELECT p.id FROM Patient p WHERE p.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Email/phone pairs in id order, used to warm the registration filter page by page
+    @Query("SELECT p.id AS id, p.email AS email, p.phone AS phone FROM Patient p WHERE p.id > :afterId ORDER BY p.id")
+    List<PatientIdentity> findIdentitiesAfter(Long afterId, Pageable page);
+
+    interface PatientIdentity {
+        Long getId();
+        String getEmail();
+        String getPhone();
+    }
+
+    // Replaces the stored hash when a login finds it outdated
+    @Modifying
+    @Transactional
+    @Query("UPDATE Patient p SET p.password = :password WHERE p.id = :id")
+    int updatePassword(Long id, String password);
 }
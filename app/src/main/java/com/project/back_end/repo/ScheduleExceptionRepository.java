@@ -0,0 +1,34 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.ScheduleException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, Long> {
+
+    // Exceptions of several doctors that end on or after a date; what the availability index expands from
+    @Query("SELECT e FROM ScheduleException e WHERE e.doctorId IN :doctorIds AND e.endDate >= :from " +
+            "ORDER BY e.doctorId, e.startDate")
+    List<ScheduleException> findEndingOnOrAfter(Collection<Long> doctorIds, LocalDate from);
+
+    @Query("SELECT COUNT(e) > 0 FROM ScheduleException e WHERE e.doctorId = :doctorId " +
+            "AND e.startDate <= :endDate AND e.endDate >= :startDate")
+    boolean existsOverlapping(Long doctorId, LocalDate startDate, LocalDate endDate);
+
+    Optional<ScheduleException> findByIdAndDoctorId(Long id, Long doctorId);
+
+    // Delete a doctor's exceptions in one statement, without loading them
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduleException e WHERE e.doctorId = :doctorId")
+    int deleteAllByDoctorId(Long doctorId);
+}
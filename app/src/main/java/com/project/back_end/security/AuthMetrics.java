@@ -0,0 +1,62 @@
+package com.project.back_end.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Login and token-validation outcomes per role. Counters are registered once up front so the
+ * hot validation path only does a map read and an increment.
+ */
+@Component
+public class AuthMetrics {
+
+    private static final String[] ROLES = {"admin", "doctor", "patient"};
+    private static final String OTHER = "other";
+
+    private record Outcomes(Counter success, Counter failure) {
+    }
+
+    private final Map<String, Outcomes> logins;
+    private final Map<String, Outcomes> tokens;
+
+    public AuthMetrics(MeterRegistry registry) {
+        this.logins = register(registry, "auth.logins", "Login attempts by role and outcome");
+        this.tokens = register(registry, "auth.token.validations", "Token validations by role and outcome");
+    }
+
+    public void login(String role, boolean success) {
+        count(logins, role, success);
+    }
+
+    public void tokenValidation(String role, boolean success) {
+        count(tokens, role, success);
+    }
+
+    private static void count(Map<String, Outcomes> counters, String role, boolean success) {
+        Outcomes outcomes = role == null ? null : counters.get(role.toLowerCase(Locale.ROOT));
+        if (outcomes == null) {
+            outcomes = counters.get(OTHER);
+        }
+        (success ? outcomes.success() : outcomes.failure()).increment();
+    }
+
+    private static Map<String, Outcomes> register(MeterRegistry registry, String name, String description) {
+        Map<String, Outcomes> counters = new HashMap<>();
+        for (String role : ROLES) {
+            counters.put(role, outcomes(registry, name, description, role));
+        }
+        counters.put(OTHER, outcomes(registry, name, description, OTHER));
+        return Map.copyOf(counters);
+    }
+
+    private static Outcomes outcomes(MeterRegistry registry, String name, String description, String role) {
+        return new Outcomes(
+                Counter.builder(name).description(description).tag("role", role).tag("outcome", "success").register(registry),
+                Counter.builder(name).description(description).tag("role", role).tag("outcome", "failure").register(registry));
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.back_end.security;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Caller identity for the current request, published by {@link TokenAuthenticationFilter}
+ * after the path token has been verified. The account entity is attached the first time
+ * it is loaded so later layers in the same request reuse it instead of querying again.
+ */
+public class AuthPrincipal {
+
+    public static final String REQUEST_ATTRIBUTE = AuthPrincipal.class.getName();
+
+    private final String token;
+    private final String subject;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+
+    private String role;
+    private Long accountId;
+    private Object account;
+
+    public AuthPrincipal(String token, String subject, long issuedAtMillis, long expiresAtMillis) {
+        this.token = token;
+        this.subject = subject;
+        this.issuedAtMillis = issuedAtMillis;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    // Principal of the current request, if one was published for exactly this token
+    public static AuthPrincipal forToken(String token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null || token == null) {
+            return null;
+        }
+        Object principal = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (principal instanceof AuthPrincipal authPrincipal && token.equals(authPrincipal.token)) {
+            return authPrincipal;
+        }
+        return null;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public long getIssuedAtMillis() {
+        return issuedAtMillis;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public <T> T getAccount(Class<T> type) {
+        return type.isInstance(account) ? type.cast(account) : null;
+    }
+
+    public void setAccount(Object account) {
+        this.account = account;
+    }
+}
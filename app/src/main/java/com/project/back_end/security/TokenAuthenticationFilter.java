@@ -0,0 +1,69 @@
+package com.project.back_end.security;
+
+import com.project.back_end.services.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Verifies the JWT carried in the request path once and publishes it as an {@link AuthPrincipal}.
+ * Requests without a valid token pass through untouched; the controllers still decide
+ * which status to answer with.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private final TokenService tokenService;
+
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = findPathToken(request.getRequestURI());
+        if (token != null) {
+            AuthPrincipal principal = tokenService.authenticate(token);
+            if (principal != null) {
+                request.setAttribute(AuthPrincipal.REQUEST_ATTRIBUTE, principal);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    // Routes take the token as a path variable, not always the last one, so look for a JWT-shaped segment
+    static String findPathToken(String uri) {
+        if (uri == null) {
+            return null;
+        }
+        int start = 0;
+        while (start < uri.length()) {
+            int end = uri.indexOf('/', start);
+            if (end < 0) {
+                end = uri.length();
+            }
+            if (looksLikeJwt(uri, start, end)) {
+                return uri.substring(start, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static boolean looksLikeJwt(String uri, int start, int end) {
+        if (end - start < 10 || !uri.startsWith("eyJ", start)) {
+            return false;
+        }
+        int dots = 0;
+        for (int i = start; i < end; i++) {
+            if (uri.charAt(i) == '.') {
+                dots++;
+            }
+        }
+        return dots == 2;
+    }
+}
@@ -0,0 +1,85 @@
+package com.project.back_end.security;
+
+import com.project.back_end.util.BloomFilter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Subjects whose previously issued tokens must no longer be accepted. A Bloom filter answers
+ * the common "never revoked" case; only possible hits consult the exact revocation times.
+ * Entries are dropped once every token they could match has expired anyway.
+ */
+public class TokenDenyList {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Map<String, Long> revokedAtSeconds = new ConcurrentHashMap<>();
+    private final ReadWriteLock filterLock = new ReentrantReadWriteLock();
+    private final long retentionMillis;
+
+    private volatile BloomFilter filter;
+    private volatile long lastPurgeMillis = System.currentTimeMillis();
+
+    public TokenDenyList(int expectedEntries, long tokenLifetimeMillis) {
+        this.filter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+        this.retentionMillis = tokenLifetimeMillis;
+    }
+
+    // Reject every token for this subject issued up to now
+    public void revoke(String subject) {
+        if (subject == null) {
+            return;
+        }
+        purgeIfDue();
+        revokedAtSeconds.merge(subject, System.currentTimeMillis() / 1000, Math::max);
+
+        filterLock.readLock().lock();
+        try {
+            filter.put(subject);
+        } finally {
+            filterLock.readLock().unlock();
+        }
+        if (revokedAtSeconds.size() > filter.getExpectedInsertions()) {
+            rebuild(revokedAtSeconds.size() * 2);
+        }
+    }
+
+    // JWT iat has second precision, so a token issued in the revocation second is rejected too
+    public boolean isRevoked(String subject, long issuedAtMillis) {
+        if (subject == null || !filter.mightContain(subject)) {
+            return false;
+        }
+        Long revokedAt = revokedAtSeconds.get(subject);
+        return revokedAt != null && issuedAtMillis / 1000 <= revokedAt;
+    }
+
+    public int size() {
+        return revokedAtSeconds.size();
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeMillis < Math.min(retentionMillis, 3_600_000L)) {
+            return;
+        }
+        lastPurgeMillis = now;
+        long cutoffSeconds = (now - retentionMillis) / 1000;
+        if (revokedAtSeconds.values().removeIf(revokedAt -> revokedAt < cutoffSeconds)) {
+            rebuild(filter.getExpectedInsertions());
+        }
+    }
+
+    private void rebuild(int expectedEntries) {
+        filterLock.writeLock().lock();
+        try {
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revokedAtSeconds.size()), FALSE_POSITIVE_RATE);
+            revokedAtSeconds.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        } finally {
+            filterLock.writeLock().unlock();
+        }
+    }
+}
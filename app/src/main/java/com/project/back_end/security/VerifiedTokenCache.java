@@ -0,0 +1,122 @@
+package com.project.back_end.security;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of tokens that already passed signature and role checks.
+ * Entries expire with the JWT's own {@code exp} claim and can be dropped per subject
+ * when the owning account changes.
+ */
+public class VerifiedTokenCache {
+
+    public record VerifiedToken(String subject, String role, Long accountId, long issuedAtMillis, long expiresAtMillis) {
+
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+
+    private final ConcurrentHashMap<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    // Returns the cached entry if the token was verified for this role and has not expired
+    public VerifiedToken get(String token, String role) {
+        VerifiedToken entry = entries.get(token);
+        if (entry == null || !entry.role().equals(role)) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            if (entries.remove(token, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    // Returns the cached entry for any role without touching the hit/miss counters
+    public VerifiedToken peek(String token) {
+        VerifiedToken entry = entries.get(token);
+        return entry == null || entry.isExpired(System.currentTimeMillis()) ? null : entry;
+    }
+
+    public void put(String token, VerifiedToken entry) {
+        if (entry.isExpired(System.currentTimeMillis())) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(token, entry);
+    }
+
+    // Drop every cached token issued to this subject (account deleted or changed)
+    public void invalidateSubject(String subject) {
+        if (subject == null) {
+            return;
+        }
+        entries.values().removeIf(entry -> entry.subject().equals(subject));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Expired entries go first; if the cache is still full, shed arbitrary entries down to 90% capacity
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<VerifiedToken> values = entries.values().iterator();
+            while (values.hasNext()) {
+                if (values.next().isExpired(now)) {
+                    values.remove();
+                    evictions.increment();
+                }
+            }
+
+            int target = maxSize - Math.max(1, maxSize / 10);
+            Iterator<String> keys = entries.keySet().iterator();
+            while (entries.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions.increment();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
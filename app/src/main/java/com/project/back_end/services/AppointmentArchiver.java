@@ -0,0 +1,77 @@
+package com.project.back_end.services;
+
+import com.project.back_end.repo.AppointmentHistory;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.ArchivedAppointmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves appointments older than the archive cutoff out of the hot table, oldest first, one batch
+ * per transaction: an INSERT ... SELECT into appointment_archive and a DELETE ... IN. The hot table
+ * then holds roughly the last horizon of appointments however long the clinic has been running.
+ * Archived days lie far behind the availability index window, so it needs no eviction.
+ * Off with appointment.archive.enabled=false.
+ */
+@Service
+@ConditionalOnProperty(name = "appointment.archive.enabled", matchIfMissing = true)
+@Slf4j
+public class AppointmentArchiver {
+
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final AppointmentHistory appointmentHistory;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${appointment.archive.batch-size:1000}")
+    private int batchSize;
+
+    public AppointmentArchiver(AppointmentRepository appointmentRepository,
+                               ArchivedAppointmentRepository archivedAppointmentRepository,
+                               AppointmentHistory appointmentHistory, PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.appointmentHistory = appointmentHistory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${appointment.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${appointment.archive.interval-ms:3600000}")
+    public void run() {
+        try {
+            int moved = archive();
+            if (moved > 0) {
+                log.info("Archived {} appointments before {}", moved, appointmentHistory.cutoff());
+            }
+        } catch (Exception e) {
+            // Another node moving the same rows fails on the archive key; the next run picks up the rest
+            log.error("Appointment archiving failed", e);
+        }
+    }
+
+    // Number of appointments moved
+    public int archive() {
+        LocalDateTime cutoff = appointmentHistory.cutoff();
+        int moved = 0;
+        List<Long> ids;
+        while (!(ids = appointmentRepository.findIdsBefore(cutoff, PageRequest.of(0, batchSize))).isEmpty()) {
+            List<Long> batch = ids;
+            transactionTemplate.executeWithoutResult(status -> {
+                archivedAppointmentRepository.copyFromHot(batch);
+                appointmentRepository.deleteAllByIdInBatch(batch);
+            });
+            moved += batch.size();
+        }
+        appointmentHistory.markArchivedThrough(cutoff);
+        return moved;
+    }
+}
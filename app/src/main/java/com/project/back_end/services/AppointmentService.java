@@ -1,44 +1,165 @@
 package com.project.back_end.services;
 
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.BookingResult;
+import com.project.back_end.DTO.BulkStatusRequest;
+import com.project.back_end.DTO.BulkStatusResult;
+import com.project.back_end.DTO.CursorPage;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentHistory;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.util.PageCursor;
+import com.project.back_end.util.StripedLocks;
+import com.project.back_end.util.Transactions;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 @Service
 @RequiredArgsConstructor
+@Timed("app.service")
+@Slf4j
 public class AppointmentService {
 
+    // Thrown for a bulk booking or status request that is empty, malformed or over its cap
+    public static class InvalidBulkRequestException extends RuntimeException {
+        public InvalidBulkRequestException(String message) {
+            super(message);
+        }
+    }
+
     private final AppointmentRepository appointmentRepository;
+    private final TokenService tokenService;
+    private final AvailabilityIndex availabilityIndex;
     private final PatientRepository patientRepository;
+    private final AppointmentHistory appointmentHistory;
     private final DoctorRepository doctorRepository;
-    private final TokenService tokenService;
+    private final TransactionTemplate transactionTemplate;
 
-    // Book Appointment (patient books for themselves)
-    @Transactional
+    @Value("${appointment.bulk.max-size:500}")
+    private int bulkMaxSize;
+
+    @Value("${appointment.status.max-range-days:31}")
+    private int statusMaxRangeDays;
+
+    public static final String SLOT_TAKEN = "Doctor not available at that time";
+    public static final String DOCTOR_NOT_FOUND = "Doctor not found";
+    public static final String INVALID_APPOINTMENT = "Invalid appointment";
+
+    // Unique key on (doctor_id, appointment_time); only its violations mean the slot was taken
+    static final String SLOT_KEY = "uk_appointment_doctor_time";
+
+    // Bookings for one doctor on this node serialize here, so the index check and its update see
+    // each other; across nodes they serialize on the doctor's row, locked by every booking write
+    private final StripedLocks slotLocks = new StripedLocks(1024);
+
+    // Book Appointment (patient books for themselves): 1 booked, -1 slot taken, -3 unknown doctor,
+    // -4 rejected by another constraint, 0 failed.
+    // Not transactional on purpose: the insert runs in its own transaction, which must commit
+    // before the slot lock is released.
     public int bookAppointment(Appointment appointment, String token) {
         try {
             Patient patient = getCurrentPatient(token);
+            if (patient == null) return 0;
             appointment.setPatient(patient);
-            appointmentRepository.save(appointment);
+
+            Long doctorId = appointment.getDoctor().getId();
+            Lock lock = slotLocks.get(doctorId);
+            lock.lock();
+            try {
+                if (overlaps(doctorId, appointment, null)) return -1;
+                int saved = transactionTemplate.execute(status -> saveIfFree(appointment, null));
+                if (saved != 1) return saved;
+                // Before unlocking, so the next booking for this doctor checks against it
+                availabilityIndex.markBooked(doctorId, appointment.getId(), appointment.getAppointmentTime(),
+                        appointment.getDurationMinutes());
+            } finally {
+                lock.unlock();
+            }
             return 1;
+        } catch (DataIntegrityViolationException e) {
+            return violation(e);
         } catch (Exception e) {
             return 0;
         }
     }
 
+    // Bulk booking (admin imports such as a season of follow-ups): one result per appointment, in
+    // order. 1 booked, -1 overlaps a stored appointment or an earlier one in the request, -2 start
+    // not offered by the doctor's schedule, -3 unknown doctor or patient, -4 invalid, 0 failed.
+    // All are checked together, and those that fit are inserted in JDBC batches in one transaction.
+    // If the batch fails, each is checked and inserted again in a transaction of its own.
+    public List<BookingResult> bookAppointments(List<Appointment> appointments) {
+        if (appointments == null || appointments.isEmpty()) {
+            throw new InvalidBulkRequestException("At least one appointment is required");
+        }
+        if (appointments.size() > bulkMaxSize) {
+            throw new InvalidBulkRequestException("At most " + bulkMaxSize + " appointments per request");
+        }
+
+        BookingResult[] results = new BookingResult[appointments.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < appointments.size(); i++) {
+            String problem = invalid(appointments.get(i));
+            if (problem != null) {
+                results[i] = new BookingResult(-4, null, problem);
+            } else {
+                candidates.add(i);
+            }
+        }
+        Set<Long> patients = new HashSet<>(patientRepository.findExistingIds(
+                candidates.stream().map(i -> appointments.get(i).getPatient().getId()).distinct().toList()));
+        candidates.removeIf(i -> {
+            if (patients.contains(appointments.get(i).getPatient().getId())) return false;
+            results[i] = new BookingResult(-3, null, "Patient not found");
+            return true;
+        });
+
+        List<Appointment> batch = candidates.stream().map(appointments::get).toList();
+        List<Lock> locks = slotLocks.getAll(batch.stream().map(a -> a.getDoctor().getId()).toList());
+        locks.forEach(Lock::lock);
+        try {
+            int[] codes = insertAll(batch);
+            for (int k = 0; k < codes.length; k++) {
+                Appointment appointment = batch.get(k);
+                results[candidates.get(k)] = new BookingResult(codes[k], codes[k] == 1 ? appointment.getId() : null,
+                        message(codes[k]));
+                if (codes[k] == 1) {
+                    availabilityIndex.markBooked(appointment.getDoctor().getId(), appointment.getId(),
+                            appointment.getAppointmentTime(), appointment.getDurationMinutes());
+                }
+            }
+        } finally {
+            locks.reversed().forEach(Lock::unlock);
+        }
+        return Arrays.asList(results);
+    }
+
     // Update Appointment (patient can update their own)
-    @Transactional
     public String updateAppointment(Long appointmentId, Appointment updatedData, String token) {
         Optional<Appointment> optional = appointmentRepository.findById(appointmentId);
         if (optional.isEmpty()) return "Appointment not found";
@@ -46,20 +167,38 @@ public class AppointmentService {
         Appointment existing = optional.get();
         Patient patient = getCurrentPatient(token);
 
-        if (!existing.getPatient().getId().equals(patient.getId())) {
+        if (patient == null || !existing.getPatient().getId().equals(patient.getId())) {
             return "Unauthorized: patient mismatch";
         }
 
-        List<Appointment> overlapping = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(
-                updatedData.getDoctor().getId(),
-                updatedData.getAppointmentTime().minusMinutes(30),
-                updatedData.getAppointmentTime().plusMinutes(30)
-        );
-        if (!overlapping.isEmpty()) return "Doctor not available at that time";
+        Long previousDoctorId = existing.getDoctor().getId();
+        LocalDateTime previousTime = existing.getAppointmentTime();
+        int previousDuration = existing.getDurationMinutes();
+        Long doctorId = updatedData.getDoctor().getId();
+
+        // Both doctors' index entries change when the visit moves to another doctor
+        List<Lock> locks = slotLocks.getAll(List.of(previousDoctorId, doctorId));
+        locks.forEach(Lock::lock);
+        try {
+            if (overlaps(doctorId, updatedData, appointmentId)) return SLOT_TAKEN;
 
-        existing.setAppointmentTime(updatedData.getAppointmentTime());
-        existing.setDoctor(updatedData.getDoctor());
-        appointmentRepository.save(existing);
+            existing.setAppointmentTime(updatedData.getAppointmentTime());
+            existing.setDurationMinutes(updatedData.getDurationMinutes());
+            existing.setDoctor(updatedData.getDoctor());
+            int saved = transactionTemplate.execute(status -> saveIfFree(existing, appointmentId));
+            if (saved == -1) return SLOT_TAKEN;
+            if (saved == -3) return DOCTOR_NOT_FOUND;
+            availabilityIndex.markFree(previousDoctorId, appointmentId, previousTime, previousDuration);
+            availabilityIndex.markBooked(doctorId, appointmentId, existing.getAppointmentTime(), existing.getDurationMinutes());
+        } catch (DataIntegrityViolationException e) {
+            return switch (violation(e)) {
+                case -1 -> SLOT_TAKEN;
+                case -3 -> DOCTOR_NOT_FOUND;
+                default -> INVALID_APPOINTMENT;
+            };
+        } finally {
+            locks.reversed().forEach(Lock::unlock);
+        }
         return "Updated";
     }
 
@@ -77,43 +216,195 @@ public class AppointmentService {
         }
 
         appointmentRepository.deleteById(appointmentId);
+        Transactions.afterCommit(() -> availabilityIndex.markFree(appointment.getDoctor().getId(), appointmentId,
+                appointment.getAppointmentTime(), appointment.getDurationMinutes()));
         return "Cancelled";
     }
 
-    // Doctor sees all their appointments (with optional patient name filter)
+    // Doctor sees their appointments in [start, end) one keyset page at a time (optional patient name filter)
     @Transactional
-    public List<Appointment> getAppointments(String token, LocalDateTime start, LocalDateTime end, String patientName) {
+    public CursorPage<AppointmentDTO> getAppointments(String token, LocalDateTime start, LocalDateTime end, String patientName,
+                                                      String cursor, Integer size) {
         Doctor doctor = getCurrentDoctor(token);
 
-        if (patientName != null && !patientName.isEmpty()) {
-            return appointmentRepository.findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-                    doctor.getId(), patientName, start, end
-            );
+        int pageSize = PageCursor.pageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        if (after.timeOr(start).isBefore(start)) {
+            after = PageCursor.after(start, 0L);
         }
+        String nameFilter = patientName == null || patientName.isEmpty() ? null : patientName;
 
-        return appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctor.getId(), start, end);
+        List<AppointmentDTO> rows = appointmentHistory.findDoctorPage(doctor.getId(), nameFilter, end,
+                after.timeOr(start), after.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize, a -> PageCursor.after(a.getAppointmentTime(), a.getId()));
     }
 
     // Doctor changes appointment status
     @Transactional
     public void changeStatus(Long appointmentId, int newStatus, String token) {
         Doctor doctor = getCurrentDoctor(token);
+        appointmentRepository.updateStatus(newStatus, appointmentId, doctor.getId());
+    }
 
-        Optional<Appointment> optional = appointmentRepository.findById(appointmentId);
-        if (optional.isPresent() && optional.get().getDoctor().getId().equals(doctor.getId())) {
-            appointmentRepository.updateStatus(newStatus, appointmentId);
+    // Doctor closes out a day: the listed appointments, or every one starting in [from, to], get the
+    // status in one UPDATE. Listed ids that are missing or another doctor's are reported and left alone
+    @Transactional
+    public BulkStatusResult changeStatuses(String token, int newStatus, BulkStatusRequest request) {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean byRange = request.getFrom() != null || request.getTo() != null;
+        if (byIds == byRange) {
+            throw new InvalidBulkRequestException("Either ids or from and to are required");
+        }
+        Doctor doctor = getCurrentDoctor(token);
+
+        if (byRange) {
+            if (request.getFrom() == null || request.getTo() == null || request.getTo().isBefore(request.getFrom())) {
+                throw new InvalidBulkRequestException("from must be on or before to");
+            }
+            if (ChronoUnit.DAYS.between(request.getFrom(), request.getTo()) >= statusMaxRangeDays) {
+                throw new InvalidBulkRequestException("The date range is limited to " + statusMaxRangeDays + " days");
+            }
+            int updated = appointmentRepository.updateStatusBetween(newStatus, doctor.getId(),
+                    request.getFrom().atStartOfDay(), request.getTo().plusDays(1).atStartOfDay());
+            return new BulkStatusResult(updated, List.of());
         }
+
+        List<Long> ids = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.size() > bulkMaxSize) {
+            throw new InvalidBulkRequestException("At most " + bulkMaxSize + " appointments per request");
+        }
+        Set<Long> owned = new HashSet<>(appointmentRepository.findIdsOwnedBy(ids, doctor.getId()));
+        int updated = owned.isEmpty() ? 0 : appointmentRepository.updateStatuses(newStatus, owned, doctor.getId());
+        return new BulkStatusResult(updated, ids.stream().filter(id -> !owned.contains(id)).toList());
     }
 
-    private Patient getCurrentPatient(String token) {
-        String email = tokenService.extractEmail(token);
-        return patientRepository.findByEmail(email);
+    // Same update off the request thread, for callers that already resolved the doctor
+    @Async
+    public void changeStatusAsync(Long appointmentId, int newStatus, Long doctorId) {
+        try {
+            if (appointmentRepository.updateStatus(newStatus, appointmentId, doctorId) == 0) {
+                log.warn("Status of appointment {} not changed: not found or not owned by doctor {}", appointmentId, doctorId);
+            }
+        } catch (Exception e) {
+            log.error("Error changing status of appointment {}", appointmentId, e);
+        }
+    }
+
+    // Checks and inserts the appointments in one transaction, one checkBatch code each. If a row is
+    // rejected anyway (say a patient deleted since the lookup), the batch rolls back and each is
+    // retried alone to find it
+    private int[] insertAll(List<Appointment> appointments) {
+        if (appointments.isEmpty()) return new int[0];
+        try {
+            return transactionTemplate.execute(status -> checkAndInsert(appointments));
+        } catch (Exception e) {
+            log.warn("Batched insert of {} appointments failed, retrying one at a time", appointments.size(), e);
+            appointments.forEach(a -> a.setId(null));
+        }
+        int[] codes = new int[appointments.size()];
+        for (int i = 0; i < codes.length; i++) {
+            Appointment appointment = appointments.get(i);
+            try {
+                codes[i] = transactionTemplate.execute(status -> checkAndInsert(List.of(appointment)))[0];
+            } catch (DataIntegrityViolationException e) {
+                appointment.setId(null);
+                codes[i] = violation(e);
+            } catch (Exception e) {
+                appointment.setId(null);
+                codes[i] = 0;
+            }
+        }
+        return codes;
     }
 
-   private Doctor getCurrentDoctor(String token) {
-    String email = tokenService.extractEmail(token);
-    return doctorRepository.findByEmail(email)
-         .orElseThrow(() -> new NoSuchElementException("Doctor not found for token"));
+    // In the caller's transaction: locks the doctors' rows, so no other node books them before the
+    // commit, checks the appointments against the stored ones and each other, then inserts those
+    // that fit in JDBC batches
+    private int[] checkAndInsert(List<Appointment> appointments) {
+        doctorRepository.lockByIds(appointments.stream().map(a -> a.getDoctor().getId()).distinct().toList());
+        int[] codes = availabilityIndex.checkBatch(appointments.stream().map(a -> new AvailabilityIndex.Proposal(
+                a.getDoctor().getId(), a.getAppointmentTime(), a.getDurationMinutes())).toList());
+        List<Appointment> accepted = new ArrayList<>();
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] == 1) accepted.add(appointments.get(i));
+        }
+        appointmentRepository.saveAllAndFlush(accepted);
+        return codes;
+    }
+
+    // In the caller's transaction: locks the doctor's row and checks the database for an overlap,
+    // since the index may not show another node's bookings yet, then writes. The lock is the first
+    // statement, so the check reads whatever the previous holder committed. 1 saved, -1 overlap,
+    // -3 unknown doctor
+    private int saveIfFree(Appointment appointment, Long excludeId) {
+        Long doctorId = appointment.getDoctor().getId();
+        if (doctorRepository.lockByIds(List.of(doctorId)).isEmpty()) return -3;
+        LocalDateTime start = appointment.getAppointmentTime();
+        if (availabilityIndex.overlapsStored(doctorId, start, start.plusMinutes(appointment.getDurationMinutes()), excludeId)) {
+            return -1;
+        }
+        appointmentRepository.saveAndFlush(appointment);
+        return 1;
+    }
+
+    // Field checks the single-booking endpoint gets from @Valid; null when the appointment is usable
+    private static String invalid(Appointment appointment) {
+        appointment.setId(null);
+        if (appointment.getDoctor() == null || appointment.getDoctor().getId() == null) return "Doctor is required";
+        if (appointment.getPatient() == null || appointment.getPatient().getId() == null) return "Patient is required";
+        if (appointment.getAppointmentTime() == null || !appointment.getAppointmentTime().isAfter(LocalDateTime.now())) {
+            return "Appointment time must be in the future";
+        }
+        if (appointment.getDurationMinutes() < Appointment.MIN_DURATION_MINUTES
+                || appointment.getDurationMinutes() > Appointment.MAX_DURATION_MINUTES) {
+            return "Duration must be between " + Appointment.MIN_DURATION_MINUTES + " and "
+                    + Appointment.MAX_DURATION_MINUTES + " minutes";
+        }
+        return null;
+    }
+
+    private static String message(int code) {
+        return switch (code) {
+            case 1 -> "Booked";
+            case -1 -> SLOT_TAKEN;
+            case -2 -> "Doctor does not offer that time";
+            case -3 -> "Doctor not found";
+            case -4 -> INVALID_APPOINTMENT;
+            default -> "Booking failed";
+        };
+    }
+
+    // -1 for the (doctor, start) key, -3 for a foreign key (the doctor; the patient comes from the
+    // token or was checked), -4 for any other constraint. A missing parent row is SQLState 23503, 23506
+    // on H2, and MySQL's error 1452 since it reports every violation as 23000
+    static int violation(DataIntegrityViolationException e) {
+        String constraint = null;
+        SQLException sql = null;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException hibernate && hibernate.getConstraintName() != null) {
+                constraint = hibernate.getConstraintName();
+            }
+            if (cause instanceof SQLException found && sql == null) {
+                sql = found;
+            }
+        }
+        String detail = constraint != null ? constraint : String.valueOf(e.getMostSpecificCause().getMessage());
+        if (detail.toLowerCase(Locale.ROOT).contains(SLOT_KEY)) return -1;
+        if (sql != null && (Set.of("23503", "23506").contains(sql.getSQLState()) || sql.getErrorCode() == 1452)) return -3;
+        return -4;
+    }
+
+    // Whether the doctor has another appointment within [start, start + duration)
+    private boolean overlaps(Long doctorId, Appointment appointment, Long excludeId) {
+        LocalDateTime start = appointment.getAppointmentTime();
+        return availabilityIndex.overlaps(doctorId, start, start.plusMinutes(appointment.getDurationMinutes()), excludeId);
+    }
+
+    private Patient getCurrentPatient(String token) {
+        return tokenService.currentPatient(token);
+    }
 
+    private Doctor getCurrentDoctor(String token) {
+        return tokenService.requireDoctor(token);
     }
 }
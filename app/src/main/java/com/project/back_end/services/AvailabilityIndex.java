@@ -0,0 +1,664 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.DoctorAvailability;
+import com.project.back_end.DTO.FreeGap;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.ScheduleException;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.models.WeeklySlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory availability per doctor and day: the slots the doctor's schedule offers (daily
+ * template, per-weekday templates, date exceptions), expanded on demand so any horizon works
+ * without stored per-date rows, and the sorted appointment intervals touching the day, which
+ * answer overlap checks for booking and rescheduling as well as free slots and gaps. Days inside the rolling window are built from
+ * the database on first read and then kept current by this node's booking paths for a short
+ * time to live, after which they are rebuilt to pick up other nodes' bookings; schedules get the
+ * same time to live, so template and exception changes made on other nodes show up too; days outside the
+ * window are computed from the database on every read and not kept. The index is a fast first
+ * check: booking writes confirm with overlapsStored under a lock on the doctor's row.
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilityIndex {
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    // An appointment someone wants to book, for checkBatch
+    public record Proposal(Long doctorId, LocalDateTime start, int durationMinutes) {
+    }
+
+    // Slots for endDate back to the map key, replacing the weekly template
+    private record DateOverride(LocalDate endDate, SlotMask slots) {
+    }
+
+    // A doctor's templates plus every exception ending on or after from, so any date from
+    // there on expands without another query
+    private record Schedule(SlotMask daily, WeeklySlotMask weekly, LocalDate from,
+                            NavigableMap<LocalDate, DateOverride> overrides, long loadedAt) {
+
+        private SlotMask forDate(LocalDate date) {
+            Map.Entry<LocalDate, DateOverride> override = overrides.floorEntry(date);
+            if (override != null && !date.isAfter(override.getValue().endDate())) {
+                return override.getValue().slots();
+            }
+            return weekly == null ? daily : weekly.forDay(date.getDayOfWeek(), daily);
+        }
+
+        private boolean covers(LocalDate date) {
+            return !date.isBefore(from);
+        }
+
+        private boolean expired(long ttlNanos) {
+            return System.nanoTime() - loadedAt >= ttlNanos;
+        }
+    }
+
+    // A doctor's appointments touching one day as arrays sorted by start, in minutes from that
+    // day's midnight (a visit from the evening before starts below zero). maxEnds[i] is the latest
+    // end among the first i + 1, so "does anything overlap [start, end)?" is a binary search plus,
+    // at most, a short walk back over intervals that really reach into the range
+    private static final class Bookings {
+        private static final Bookings NONE = new Bookings(new Long[0], new int[0], new int[0]);
+
+        private final Long[] ids;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] maxEnds;
+        // Grid cells (SlotMask slots) that some appointment overlaps
+        private final long[] busy = new long[SlotMask.WORDS];
+
+        private Bookings(Long[] ids, int[] starts, int[] ends) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new int[starts.length];
+            int maxEnd = Integer.MIN_VALUE;
+            for (int i = 0; i < starts.length; i++) {
+                maxEnd = Math.max(maxEnd, ends[i]);
+                maxEnds[i] = maxEnd;
+                int last = Math.min(SlotMask.SLOTS_PER_DAY, Math.ceilDiv(ends[i], SlotMask.SLOT_MINUTES));
+                for (int cell = Math.max(0, Math.floorDiv(starts[i], SlotMask.SLOT_MINUTES)); cell < last; cell++) {
+                    busy[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+
+        private static Bookings of(LocalDate date, List<AppointmentInterval> rows) {
+            return span(date, rows.stream()
+                    .filter(row -> minutes(date, row.getAppointmentTime()) < MINUTES_PER_DAY
+                            && minutes(date, row.getAppointmentTime()) + row.getDurationMinutes() > 0)
+                    .toList());
+        }
+
+        // Every row, in minutes from date's midnight; checks spanning many days use one of these
+        private static Bookings span(LocalDate date, List<AppointmentInterval> rows) {
+            if (rows.isEmpty()) {
+                return NONE;
+            }
+            List<AppointmentInterval> sorted = rows.stream()
+                    .sorted(Comparator.comparing(AppointmentInterval::getAppointmentTime))
+                    .toList();
+            Long[] ids = new Long[sorted.size()];
+            int[] starts = new int[ids.length];
+            int[] ends = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                AppointmentInterval row = sorted.get(i);
+                ids[i] = row.getId();
+                starts[i] = minutes(date, row.getAppointmentTime());
+                ends[i] = starts[i] + row.getDurationMinutes();
+            }
+            return new Bookings(ids, starts, ends);
+        }
+
+        private boolean overlaps(int start, int end, Long excludeId) {
+            for (int i = countStartingBefore(end) - 1; i >= 0 && maxEnds[i] > start; i--) {
+                if (ends[i] > start && (excludeId == null || !excludeId.equals(ids[i]))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Bookings with(Long id, int start, int end) {
+            int at = countStartingBefore(start + 1);
+            Long[] newIds = new Long[ids.length + 1];
+            int[] newStarts = new int[starts.length + 1];
+            int[] newEnds = new int[ends.length + 1];
+            copyAround(at, newIds, newStarts, newEnds);
+            newIds[at] = id;
+            newStarts[at] = start;
+            newEnds[at] = end;
+            return new Bookings(newIds, newStarts, newEnds);
+        }
+
+        private Bookings without(Long id, int start) {
+            for (int i = countStartingBefore(start); i < starts.length && starts[i] == start; i++) {
+                if (id == null || id.equals(ids[i])) {
+                    Long[] newIds = new Long[ids.length - 1];
+                    int[] newStarts = new int[starts.length - 1];
+                    int[] newEnds = new int[ends.length - 1];
+                    System.arraycopy(ids, 0, newIds, 0, i);
+                    System.arraycopy(starts, 0, newStarts, 0, i);
+                    System.arraycopy(ends, 0, newEnds, 0, i);
+                    System.arraycopy(ids, i + 1, newIds, i, ids.length - i - 1);
+                    System.arraycopy(starts, i + 1, newStarts, i, starts.length - i - 1);
+                    System.arraycopy(ends, i + 1, newEnds, i, ends.length - i - 1);
+                    return new Bookings(newIds, newStarts, newEnds);
+                }
+            }
+            return this;
+        }
+
+        // Copies every interval into arrays one longer, leaving index at empty
+        private void copyAround(int at, Long[] newIds, int[] newStarts, int[] newEnds) {
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(starts, 0, newStarts, 0, at);
+            System.arraycopy(ends, 0, newEnds, 0, at);
+            System.arraycopy(ids, at, newIds, at + 1, ids.length - at);
+            System.arraycopy(starts, at, newStarts, at + 1, starts.length - at);
+            System.arraycopy(ends, at, newEnds, at + 1, ends.length - at);
+        }
+
+        private int countStartingBefore(int minute) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < minute) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    // One day of a doctor: the slots the schedule offers and the appointments touching the day.
+    // Bookings are replaced copy-on-write, so readers never lock
+    private static final class DaySlots {
+        private final SlotMask template;
+        private final AtomicReference<Bookings> bookings;
+        private final long loadedAt = System.nanoTime();
+
+        private DaySlots(SlotMask template, Bookings bookings) {
+            this.template = template;
+            this.bookings = new AtomicReference<>(bookings);
+        }
+
+        private boolean expired(long ttlNanos) {
+            return System.nanoTime() - loadedAt >= ttlNanos;
+        }
+
+        // Character i is '1' when the i-th slot of columns is offered that day and free
+        private String mask(SlotMask columns) {
+            Bookings current = bookings.get();
+            char[] mask = new char[columns.size()];
+            int n = 0;
+            for (int w = 0; w < SlotMask.WORDS; w++) {
+                long free = template.word(w) & ~current.busy[w];
+                for (long bits = columns.word(w); bits != 0; bits &= bits - 1) {
+                    mask[n++] = (free & Long.lowestOneBit(bits)) != 0 ? '1' : '0';
+                }
+            }
+            return new String(mask);
+        }
+
+        private List<LocalTime> free() {
+            Bookings current = bookings.get();
+            long[] free = new long[SlotMask.WORDS];
+            for (int w = 0; w < SlotMask.WORDS; w++) {
+                free[w] = template.word(w) & ~current.busy[w];
+            }
+            return SlotMask.ofWords(free).times();
+        }
+
+        // Runs of consecutive free slots lasting at least minMinutes
+        private List<FreeGap> gaps(LocalDate date, int minMinutes) {
+            Bookings current = bookings.get();
+            List<FreeGap> gaps = new ArrayList<>();
+            int runStart = -1;
+            for (int cell = 0; cell <= SlotMask.SLOTS_PER_DAY; cell++) {
+                boolean free = cell < SlotMask.SLOTS_PER_DAY && template.contains(cell)
+                        && (current.busy[cell >>> 6] & (1L << cell)) == 0;
+                if (free && runStart < 0) {
+                    runStart = cell;
+                } else if (!free && runStart >= 0) {
+                    int minutes = (cell - runStart) * SlotMask.SLOT_MINUTES;
+                    if (minutes >= minMinutes) {
+                        LocalDateTime start = date.atStartOfDay().plusMinutes((long) runStart * SlotMask.SLOT_MINUTES);
+                        gaps.add(new FreeGap(start, start.plusMinutes(minutes), minutes));
+                    }
+                    runStart = -1;
+                }
+            }
+            return gaps;
+        }
+    }
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // Below this many doctor-days the matrix is built on the calling thread
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ScheduleExceptionRepository scheduleExceptionRepository;
+
+    @Value("${availability.index.window-days:14}")
+    private int windowDays;
+
+    @Value("${availability.index.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final Map<Long, Schedule> schedules = new ConcurrentHashMap<>();
+    private final Map<DayKey, DaySlots> days = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private volatile LocalDate sweptThrough = LocalDate.MIN;
+
+    public List<LocalTime> freeSlots(Long doctorId, LocalDate date) {
+        return day(doctorId, date).free();
+    }
+
+    // Runs of free slots on date lasting at least minMinutes, in time order
+    public List<FreeGap> freeGaps(Long doctorId, LocalDate date, int minMinutes) {
+        return day(doctorId, date).gaps(date, minMinutes);
+    }
+
+    // Whether any appointment of the doctor other than excludeId overlaps [start, end)
+    public boolean overlaps(Long doctorId, LocalDateTime start, LocalDateTime end, Long excludeId) {
+        for (LocalDate date = start.toLocalDate(); date.atStartOfDay().isBefore(end); date = date.plusDays(1)) {
+            if (bookings(doctorId, date).overlaps(minutes(date, start), minutes(date, end), excludeId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The same check against the database, for booking writes once the doctor's row is locked.
+    // When it finds an overlap the cached days missed (booked on another node), they are dropped
+    public boolean overlapsStored(Long doctorId, LocalDateTime start, LocalDateTime end, Long excludeId) {
+        LocalDate from = start.toLocalDate();
+        Bookings stored = Bookings.span(from, appointmentRepository.findIntervals(doctorId,
+                start.minusMinutes(Appointment.MAX_DURATION_MINUTES), end));
+        if (!stored.overlaps(minutes(from, start), minutes(from, end), excludeId)) {
+            return false;
+        }
+        bump(doctorId);
+        for (LocalDate date = from; date.atStartOfDay().isBefore(end); date = date.plusDays(1)) {
+            days.remove(new DayKey(doctorId, date));
+        }
+        return true;
+    }
+
+    // Free/booked matrix for several doctors over [from, to]. Cached days are read as they are; all
+    // missing days come from one template query, one exception query and one appointment query,
+    // and are built in parallel once there are enough of them. Unknown doctors are left out
+    public List<DoctorAvailability> matrix(List<Long> doctorIds, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = from.datesUntil(to.plusDays(1)).toList();
+        Map<Long, Long> versionsBefore = new HashMap<>();
+        Map<Long, Schedule> schedulesById = new HashMap<>();
+        List<Long> uncachedSchedules = new ArrayList<>();
+        List<Long> withMissingDays = new ArrayList<>();
+        for (Long doctorId : doctorIds) {
+            versionsBefore.put(doctorId, version(doctorId));
+            Schedule schedule = cachedSchedule(doctorId, from);
+            if (schedule != null) {
+                schedulesById.put(doctorId, schedule);
+            } else {
+                uncachedSchedules.add(doctorId);
+            }
+            for (LocalDate date : dates) {
+                if (cached(new DayKey(doctorId, date)) == null) {
+                    withMissingDays.add(doctorId);
+                    break;
+                }
+            }
+        }
+
+        if (!uncachedSchedules.isEmpty()) {
+            schedulesById.putAll(loadSchedules(uncachedSchedules, from, versionsBefore));
+        }
+
+        // Doctors offering nothing in the range need no appointments; their days are not kept
+        Map<Long, Map<LocalDate, List<AppointmentInterval>>> booked = new HashMap<>();
+        withMissingDays.removeIf(doctorId -> {
+            Schedule schedule = schedulesById.get(doctorId);
+            return schedule == null || dates.stream().allMatch(date -> schedule.forDate(date).isEmpty());
+        });
+        if (!withMissingDays.isEmpty()) {
+            for (AppointmentInterval row : appointmentRepository.findIntervalsByDoctorIds(withMissingDays,
+                    from.atStartOfDay().minusMinutes(Appointment.MAX_DURATION_MINUTES), to.plusDays(1).atStartOfDay())) {
+                Map<LocalDate, List<AppointmentInterval>> byDate = booked.computeIfAbsent(row.getDoctorId(), id -> new HashMap<>());
+                LocalDateTime end = row.getAppointmentTime().plusMinutes(row.getDurationMinutes());
+                // Filed under every day it touches, so a visit crossing midnight blocks both
+                for (LocalDate date = row.getAppointmentTime().toLocalDate(); date.atStartOfDay().isBefore(end); date = date.plusDays(1)) {
+                    byDate.computeIfAbsent(date, d -> new ArrayList<>()).add(row);
+                }
+            }
+        }
+        Set<Long> loaded = Set.copyOf(withMissingDays);
+
+        sweepPastDays();
+        boolean parallel = (long) doctorIds.size() * dates.size() >= PARALLEL_THRESHOLD;
+        return (parallel ? doctorIds.parallelStream() : doctorIds.stream())
+                .map(doctorId -> row(doctorId, schedulesById.get(doctorId), dates, loaded.contains(doctorId),
+                        booked.getOrDefault(doctorId, Map.of()), versionsBefore.get(doctorId)))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Checks proposals together and in order, against stored appointments and each other: one
+    // template query, one exception query and one appointment query in all. Result i is 1 when
+    // proposal i fits, -1 when it overlaps a stored appointment or an earlier fitting proposal,
+    // -2 when the doctor's schedule does not offer its start, -3 when the doctor does not exist
+    public int[] checkBatch(List<Proposal> proposals) {
+        int[] results = new int[proposals.size()];
+        if (proposals.isEmpty()) {
+            return results;
+        }
+        LocalDateTime first = proposals.stream().map(Proposal::start).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime last = proposals.stream().map(p -> p.start().plusMinutes(p.durationMinutes()))
+                .max(Comparator.naturalOrder()).orElseThrow();
+        LocalDate from = first.toLocalDate();
+        List<Long> doctorIds = proposals.stream().map(Proposal::doctorId).distinct().toList();
+
+        Map<Long, Long> versionsBefore = new HashMap<>();
+        Map<Long, Schedule> schedulesById = new HashMap<>();
+        List<Long> uncachedSchedules = new ArrayList<>();
+        for (Long doctorId : doctorIds) {
+            versionsBefore.put(doctorId, version(doctorId));
+            Schedule schedule = cachedSchedule(doctorId, from);
+            if (schedule != null) {
+                schedulesById.put(doctorId, schedule);
+            } else {
+                uncachedSchedules.add(doctorId);
+            }
+        }
+        if (!uncachedSchedules.isEmpty()) {
+            schedulesById.putAll(loadSchedules(uncachedSchedules, from, versionsBefore));
+        }
+
+        Map<Long, List<AppointmentInterval>> rows = new HashMap<>();
+        for (AppointmentInterval row : appointmentRepository.findIntervalsByDoctorIds(doctorIds,
+                first.minusMinutes(Appointment.MAX_DURATION_MINUTES), last)) {
+            rows.computeIfAbsent(row.getDoctorId(), id -> new ArrayList<>()).add(row);
+        }
+        Map<Long, Bookings> bookings = new HashMap<>();
+        for (Long doctorId : doctorIds) {
+            bookings.put(doctorId, Bookings.span(from, rows.getOrDefault(doctorId, List.of())));
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            Proposal proposal = proposals.get(i);
+            Schedule schedule = schedulesById.get(proposal.doctorId());
+            int slot = SlotMask.index(proposal.start().toLocalTime());
+            int start = minutes(from, proposal.start());
+            int end = start + proposal.durationMinutes();
+            if (schedule == null) {
+                results[i] = -3;
+            } else if (slot < 0 || !schedule.forDate(proposal.start().toLocalDate()).contains(slot)) {
+                results[i] = -2;
+            } else if (bookings.get(proposal.doctorId()).overlaps(start, end, null)) {
+                results[i] = -1;
+            } else {
+                bookings.computeIfPresent(proposal.doctorId(), (id, b) -> b.with(null, start, end));
+                results[i] = 1;
+            }
+        }
+        return results;
+    }
+
+    public void markBooked(Long doctorId, Long appointmentId, LocalDateTime start, int durationMinutes) {
+        update(doctorId, start, durationMinutes, (date, bookings) -> {
+            int from = minutes(date, start);
+            return bookings.with(appointmentId, from, from + durationMinutes);
+        });
+    }
+
+    public void markFree(Long doctorId, Long appointmentId, LocalDateTime start, int durationMinutes) {
+        update(doctorId, start, durationMinutes, (date, bookings) -> bookings.without(appointmentId, minutes(date, start)));
+    }
+
+    // Drop everything cached for a doctor whose schedule changed
+    public void evictDoctor(Long doctorId) {
+        bump(doctorId);
+        schedules.remove(doctorId);
+        days.keySet().removeIf(key -> key.doctorId().equals(doctorId));
+    }
+
+    // Drop everything kept for a deleted doctor, version included. A read that started before the
+    // delete can still keep a day, which its time to live then removes
+    public void forgetDoctor(Long doctorId) {
+        evictDoctor(doctorId);
+        versions.remove(doctorId);
+    }
+
+    // Applies change to every cached day the interval touches
+    private void update(Long doctorId, LocalDateTime start, int durationMinutes,
+                        BiFunction<LocalDate, Bookings, Bookings> change) {
+        if (doctorId == null || start == null) {
+            return;
+        }
+        bump(doctorId);
+        LocalDateTime end = start.plusMinutes(durationMinutes);
+        for (LocalDate date = start.toLocalDate(); date.atStartOfDay().isBefore(end); date = date.plusDays(1)) {
+            DaySlots day = days.get(new DayKey(doctorId, date));
+            if (day != null) {
+                LocalDate on = date;
+                day.bookings.updateAndGet(bookings -> change.apply(on, bookings));
+            }
+        }
+    }
+
+    private DoctorAvailability row(Long doctorId, Schedule schedule, List<LocalDate> dates, boolean loaded,
+                                   Map<LocalDate, List<AppointmentInterval>> booked, long version) {
+        if (schedule == null) {
+            return null;
+        }
+        // Columns are every slot offered on at least one of the dates
+        SlotMask columns = SlotMask.EMPTY;
+        for (LocalDate date : dates) {
+            columns = columns.or(schedule.forDate(date));
+        }
+        Map<LocalDate, String> masks = new LinkedHashMap<>();
+        for (LocalDate date : dates) {
+            DayKey key = new DayKey(doctorId, date);
+            DaySlots day = cached(key);
+            if (day == null) {
+                day = new DaySlots(schedule.forDate(date), Bookings.of(date, booked.getOrDefault(date, List.of())));
+                if (loaded) {
+                    day = publish(key, day, version);
+                }
+            }
+            masks.put(date, day.mask(columns));
+        }
+        return new DoctorAvailability(doctorId, columns.times(), masks);
+    }
+
+    // The cached day, or one built from the database. A day offering nothing skips the appointment
+    // query and is not kept, since booking checks need its appointments
+    private DaySlots day(Long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date);
+        DaySlots day = cached(key);
+        if (day != null) {
+            return day;
+        }
+        long version = version(doctorId);
+        SlotMask template = schedule(doctorId, date).forDate(date);
+        if (template.isEmpty()) {
+            return new DaySlots(template, Bookings.NONE);
+        }
+        return publish(key, new DaySlots(template, Bookings.of(date, loadIntervals(doctorId, date))), version);
+    }
+
+    // Appointments touching date, from the cached day when there is one
+    private Bookings bookings(Long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date);
+        DaySlots day = cached(key);
+        if (day != null) {
+            return day.bookings.get();
+        }
+        long version = version(doctorId);
+        Bookings bookings = Bookings.of(date, loadIntervals(doctorId, date));
+        if (!inWindow(date)) {
+            return bookings;
+        }
+        return publish(key, new DaySlots(schedule(doctorId, date).forDate(date), bookings), version).bookings.get();
+    }
+
+    // The kept schedule if it covers date, unless its time to live has passed (another node may have
+    // changed it); then it is dropped so the caller reloads it
+    private Schedule cachedSchedule(Long doctorId, LocalDate date) {
+        Schedule schedule = schedules.get(doctorId);
+        if (schedule != null && schedule.expired(TimeUnit.SECONDS.toNanos(ttlSeconds))) {
+            schedules.remove(doctorId, schedule);
+            return null;
+        }
+        return schedule != null && schedule.covers(date) ? schedule : null;
+    }
+
+    // The kept day, unless its time to live has passed; then it is dropped so the caller rebuilds it
+    private DaySlots cached(DayKey key) {
+        DaySlots day = days.get(key);
+        if (day != null && day.expired(TimeUnit.SECONDS.toNanos(ttlSeconds))) {
+            days.remove(key, day);
+            return null;
+        }
+        return day;
+    }
+
+    // Keeps a freshly built day if it is inside the window and no booking raced the read
+    private DaySlots publish(DayKey key, DaySlots day, long version) {
+        if (!inWindow(key.date())) {
+            return day;
+        }
+        sweepPastDays();
+        DaySlots existing = days.putIfAbsent(key, day);
+        if (existing != null) {
+            return existing;
+        }
+        // A booking landed while we were reading; let the next call rebuild from the database
+        if (version(key.doctorId()) != version) {
+            days.remove(key, day);
+        }
+        return day;
+    }
+
+    // Everything that can overlap the day: the longest visit starting the evening before reaches into it
+    private List<AppointmentInterval> loadIntervals(Long doctorId, LocalDate date) {
+        return appointmentRepository.findIntervals(doctorId,
+                date.atStartOfDay().minusMinutes(Appointment.MAX_DURATION_MINUTES), date.plusDays(1).atStartOfDay());
+    }
+
+    private static int minutes(LocalDate date, LocalDateTime time) {
+        return (int) Duration.between(date.atStartOfDay(), time).toMinutes();
+    }
+
+    private Schedule schedule(Long doctorId, LocalDate date) {
+        Schedule schedule = cachedSchedule(doctorId, date);
+        if (schedule != null) {
+            return schedule;
+        }
+
+        long version = version(doctorId);
+        DoctorTemplate template = doctorRepository.findTemplate(doctorId)
+                .orElseThrow(() -> new IllegalArgumentException("Doctor not found"));
+        LocalDate from = earliest(date);
+        schedule = schedule(template, from, overrides(List.of(doctorId), from).get(doctorId));
+        if (version(doctorId) == version) {
+            schedules.put(doctorId, schedule);
+        }
+        return schedule;
+    }
+
+    // Templates and exceptions for several doctors in two queries; cached unless a write raced the read
+    private Map<Long, Schedule> loadSchedules(Collection<Long> doctorIds, LocalDate date, Map<Long, Long> versionsBefore) {
+        LocalDate from = earliest(date);
+        Map<Long, NavigableMap<LocalDate, DateOverride>> overrides = overrides(doctorIds, from);
+        Map<Long, Schedule> loaded = new HashMap<>();
+        for (DoctorTemplate template : doctorRepository.findTemplatesByDoctorIds(doctorIds)) {
+            Long doctorId = template.getDoctorId();
+            Schedule schedule = schedule(template, from, overrides.get(doctorId));
+            loaded.put(doctorId, schedule);
+            if (version(doctorId) == versionsBefore.get(doctorId)) {
+                schedules.put(doctorId, schedule);
+            }
+        }
+        return loaded;
+    }
+
+    private Map<Long, NavigableMap<LocalDate, DateOverride>> overrides(Collection<Long> doctorIds, LocalDate from) {
+        Map<Long, NavigableMap<LocalDate, DateOverride>> overrides = new HashMap<>();
+        for (ScheduleException exception : scheduleExceptionRepository.findEndingOnOrAfter(doctorIds, from)) {
+            overrides.computeIfAbsent(exception.getDoctorId(), id -> new TreeMap<>())
+                    .put(exception.getStartDate(), new DateOverride(exception.getEndDate(), exception.getSlotMask()));
+        }
+        return overrides;
+    }
+
+    private static Schedule schedule(DoctorTemplate template, LocalDate from, NavigableMap<LocalDate, DateOverride> overrides) {
+        SlotMask daily = template.getSlotMask() == null ? SlotMask.EMPTY : template.getSlotMask();
+        return new Schedule(daily, template.getWeeklySlotMask(), from, overrides == null ? new TreeMap<>() : overrides,
+                System.nanoTime());
+    }
+
+    // Schedules always cover today onwards, so past dates only widen what is loaded
+    private static LocalDate earliest(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        return date.isBefore(today) ? date : today;
+    }
+
+    private boolean inWindow(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        return !date.isBefore(today) && date.isBefore(today.plusDays(windowDays));
+    }
+
+    private void sweepPastDays() {
+        LocalDate today = LocalDate.now();
+        if (today.isAfter(sweptThrough)) {
+            sweptThrough = today;
+            days.keySet().removeIf(key -> key.date().isBefore(today));
+        }
+    }
+
+    // Reads leave no entry behind, so lookups of unknown doctors do not grow the map
+    private long version(Long doctorId) {
+        AtomicLong version = versions.get(doctorId);
+        return version == null ? 0 : version.get();
+    }
+
+    private void bump(Long doctorId) {
+        versions.computeIfAbsent(doctorId, id -> new AtomicLong()).incrementAndGet();
+    }
+}
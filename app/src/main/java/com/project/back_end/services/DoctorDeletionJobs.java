@@ -0,0 +1,103 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.DeletionJob;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.ArchivedAppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Background deletion of doctors with long appointment histories. Appointments, hot then archived,
+ * go in id-ordered batches, each a single DELETE ... IN in its own short transaction, so no history
+ * is loaded into memory and no lock is held for the whole run. DoctorService.deleteDoctor then
+ * sweeps anything booked meanwhile and drops the doctor. Jobs live in memory for status polling.
+ */
+@Service
+@Slf4j
+public class DoctorDeletionJobs {
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final DoctorService doctorService;
+    private final AvailabilityIndex availabilityIndex;
+    private final TaskExecutor taskExecutor;
+
+    private final Map<String, DeletionJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, DeletionJob> running = new ConcurrentHashMap<>();
+
+    @Value("${doctor.delete.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${doctor.delete.job-retention-minutes:60}")
+    private long retentionMinutes;
+
+    // The parameter name picks Boot's applicationTaskExecutor should a scheduler bean also be a TaskExecutor
+    public DoctorDeletionJobs(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository,
+                              ArchivedAppointmentRepository archivedAppointmentRepository, DoctorService doctorService,
+                              AvailabilityIndex availabilityIndex, TaskExecutor applicationTaskExecutor) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.doctorService = doctorService;
+        this.availabilityIndex = availabilityIndex;
+        this.taskExecutor = applicationTaskExecutor;
+    }
+
+    // Starts deleting the doctor, or returns the job already doing so; empty when there is no such doctor
+    public Optional<DeletionJob> start(Long doctorId) {
+        if (!doctorRepository.existsById(doctorId))
+            return Optional.empty();
+
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(j -> j.getFinishedAt() != null && j.getFinishedAt().isBefore(cutoff));
+
+        DeletionJob job = new DeletionJob(doctorId,
+                appointmentRepository.countByDoctorId(doctorId) + archivedAppointmentRepository.countByDoctorId(doctorId));
+        DeletionJob existing = running.putIfAbsent(doctorId, job);
+        if (existing != null)
+            return Optional.of(existing);
+        jobs.put(job.getId(), job);
+        taskExecutor.execute(() -> run(job));
+        return Optional.of(job);
+    }
+
+    public Optional<DeletionJob> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(DeletionJob job) {
+        Long doctorId = job.getDoctorId();
+        try {
+            List<Long> ids;
+            while (!(ids = appointmentRepository.findIdsByDoctorId(doctorId, PageRequest.of(0, batchSize))).isEmpty()) {
+                appointmentRepository.deleteAllByIdInBatch(ids);
+                // Cached days would still show the removed visits as taken
+                availabilityIndex.evictDoctor(doctorId);
+                job.progress(ids.size());
+            }
+            while (!(ids = archivedAppointmentRepository.findIdsByDoctorId(doctorId, PageRequest.of(0, batchSize))).isEmpty()) {
+                archivedAppointmentRepository.deleteAllByIdInBatch(ids);
+                job.progress(ids.size());
+            }
+            doctorService.deleteDoctor(doctorId);
+            job.finish();
+            log.info("Deleted doctor {} and {} appointments", doctorId, job.getDeleted());
+        } catch (Exception e) {
+            log.error("Deletion of doctor {} failed after {} appointments", doctorId, job.getDeleted(), e);
+            job.fail(e.getMessage());
+        } finally {
+            running.remove(doctorId);
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.project.back_end.services;
+
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorSummary;
+import com.project.back_end.util.StripedLocks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory typeahead over doctor name tokens and specialty. Every folded token (accents
+ * stripped, lower-cased) is a key in a sorted map, so a prefix is one range scan instead of a
+ * {@code LIKE '%x%'} table scan. Built from the database at startup and kept current by the
+ * doctor write paths after they commit; until warm-up finishes results may be incomplete.
+ * Writes made on other nodes only reach this index through the periodic refresh, which re-reads
+ * the doctor table every doctor.search.refresh-interval-ms.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DoctorSearchIndex {
+
+    // One autocomplete hit, in rank order
+    public record Suggestion(Long id, String name, String specialty) {
+    }
+
+    private record Entry(Long id, String name, String specialty, String foldedName,
+                         String[] nameTokens, String[] specialtyTokens, Set<String> allTokens) {
+    }
+
+    private record Posting(String token, Entry entry) {
+    }
+
+    private record Ranked(Entry entry, int score) {
+    }
+
+    // Best maxLimit results for a broad query; any smaller limit is a prefix of the list
+    private record Memo(String[] terms, List<Suggestion> suggestions) {
+    }
+
+    // Best first: lower score, then shorter and alphabetically earlier names
+    private static final Comparator<Ranked> RANK = Comparator.comparingInt(Ranked::score)
+            .thenComparingInt(r -> r.entry().foldedName().length())
+            .thenComparing(r -> r.entry().foldedName())
+            .thenComparing(r -> r.entry().id());
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    // Tokens never contain these, so "token\0id" keys sort right after the token and a prefix
+    // range ends at prefix + '\uffff'
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final char RANGE_END = '\uffff';
+    // Prefix lengths tracked in prefixCounts, enough to tell a broad term from a narrow one
+    private static final int COUNTED_PREFIX = 3;
+    private static final int PAGE_SIZE = 10_000;
+
+    private final DoctorRepository doctorRepository;
+
+    @Value("${doctor.search.default-limit:10}")
+    private int defaultLimit;
+
+    @Value("${doctor.search.max-limit:50}")
+    private int maxLimit;
+
+    // Queries that scan more postings than this are memoized until a write changes their results
+    @Value("${doctor.search.memo-threshold:500}")
+    private int memoThreshold;
+
+    @Value("${doctor.search.memo-max-entries:10000}")
+    private int memoMaxEntries;
+
+    private final NavigableMap<String, Posting> tokens = new ConcurrentSkipListMap<>();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Doctors per token prefix of up to COUNTED_PREFIX characters, used to pick the narrowest term
+    private final Map<String, Integer> prefixCounts = new ConcurrentHashMap<>();
+    private final Map<String, Memo> memo = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final StripedLocks locks = new StripedLocks(256);
+    // Ids written while a load runs; the load must not overwrite them with what it read earlier
+    private final Set<Long> touchedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading = true;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        load();
+        ready = true;
+        // Prime the broadest queries, the first keystroke of every search
+        for (char c = 'a'; c <= 'z'; c++) {
+            search(String.valueOf(c), null);
+        }
+        log.info("Doctor search index warmed with {} doctors", entries.size());
+    }
+
+    // Picks up doctors added, renamed or deleted on other nodes
+    @Scheduled(initialDelayString = "${doctor.search.refresh-interval-ms:300000}",
+            fixedDelayString = "${doctor.search.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        try {
+            int changed = load();
+            if (changed > 0) {
+                log.info("Doctor search index refresh applied {} changes", changed);
+            }
+        } catch (Exception e) {
+            // The index keeps serving what it has; the next run tries again
+            log.error("Doctor search index refresh failed", e);
+        }
+    }
+
+    // Copies the doctor table into the index and drops doctors no longer in it; number of entries changed
+    private int load() {
+        loading = true;
+        try {
+            Set<Long> seen = new HashSet<>();
+            int changed = 0;
+            long afterId = 0;
+            List<DoctorSummary> page;
+            do {
+                page = doctorRepository.findSummariesAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+                for (DoctorSummary doctor : page) {
+                    seen.add(doctor.getId());
+                    if (write(doctor.getId(), doctor.getName(), doctor.getSpecialty(), false)) {
+                        changed++;
+                    }
+                    afterId = doctor.getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+
+            for (Long id : entries.keySet()) {
+                if (!seen.contains(id) && delete(id, false)) {
+                    changed++;
+                }
+            }
+            return changed;
+        } finally {
+            loading = false;
+            touchedDuringLoad.clear();
+        }
+    }
+
+    // Every query term must prefix-match a name or specialty token; limit is clamped to max-limit
+    public List<Suggestion> search(String query, Integer limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0) {
+            return List.of();
+        }
+        int size = Math.min(maxLimit, limit == null || limit <= 0 ? defaultLimit : limit);
+
+        String memoKey = String.join(" ", terms);
+        Memo memoized = memo.get(memoKey);
+        if (memoized != null) {
+            return head(memoized.suggestions(), size);
+        }
+        long current = generation.get();
+
+        // Scan the narrowest term's key range; the other terms are checked per candidate
+        String pivot = terms[0];
+        for (String term : terms) {
+            if (estimate(term) < estimate(pivot)) {
+                pivot = term;
+            }
+        }
+
+        int scanned = 0;
+        // Keep maxLimit results whatever the limit, so a memoized list serves every limit
+        PriorityQueue<Ranked> best = new PriorityQueue<>(maxLimit + 1, RANK.reversed());
+        for (Posting posting : tokens.subMap(pivot, true, pivot + RANGE_END, false).values()) {
+            scanned++;
+            Entry entry = posting.entry();
+            // An entry is listed once per token; count it only at its first token inside the range
+            if (!firstInRange(entry, posting.token(), pivot)) {
+                continue;
+            }
+            int score = score(entry, terms);
+            if (score < 0) {
+                continue;
+            }
+            Ranked candidate = new Ranked(entry, score);
+            if (best.size() < maxLimit) {
+                best.add(candidate);
+            } else if (RANK.compare(candidate, best.peek()) < 0) {
+                best.poll();
+                best.add(candidate);
+            }
+        }
+
+        List<Ranked> ranked = new ArrayList<>(best);
+        ranked.sort(RANK);
+        List<Suggestion> suggestions = new ArrayList<>(ranked.size());
+        for (Ranked r : ranked) {
+            suggestions.add(new Suggestion(r.entry().id(), r.entry().name(), r.entry().specialty()));
+        }
+        suggestions = List.copyOf(suggestions);
+
+        // Short prefixes are both the expensive queries and the ones every user types first.
+        // A write that bumped the generation during the scan may have missed this entry, so
+        // drop it again rather than serve a stale list
+        if (scanned > memoThreshold) {
+            if (memo.size() >= memoMaxEntries) {
+                memo.clear();
+            }
+            Memo entry = new Memo(terms, suggestions);
+            memo.put(memoKey, entry);
+            if (generation.get() != current) {
+                memo.remove(memoKey, entry);
+            }
+        }
+        return head(suggestions, size);
+    }
+
+    public void put(Long id, String name, String specialty) {
+        write(id, name, specialty, true);
+    }
+
+    public void remove(Long id) {
+        delete(id, true);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // False when nothing changed, including a load skipping a doctor this node wrote meanwhile
+    private boolean write(Long id, String name, String specialty, boolean fromWritePath) {
+        if (id == null) {
+            return false;
+        }
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            if (fromWritePath) {
+                markTouched(id);
+            } else if (touchedDuringLoad.contains(id)) {
+                return false;
+            }
+            Entry current = entries.get(id);
+            // A refresh re-reads every doctor; unchanged ones must not drop memoized queries
+            if (!fromWritePath && current != null && Objects.equals(current.name(), name)
+                    && Objects.equals(current.specialty(), specialty)) {
+                return false;
+            }
+            Entry entry = entry(id, name, specialty);
+            Entry previous = entries.put(id, entry);
+            // New keys go in before stale ones come out; a reader may briefly see both, and
+            // re-checks every term against the entry it finds
+            for (String token : entry.allTokens()) {
+                tokens.put(key(token, id), new Posting(token, entry));
+            }
+            count(entry, 1);
+            if (previous != null) {
+                for (String token : previous.allTokens()) {
+                    if (!entry.allTokens().contains(token)) {
+                        tokens.remove(key(token, id));
+                    }
+                }
+                count(previous, -1);
+            }
+            invalidate(previous, entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean delete(Long id, boolean fromWritePath) {
+        if (id == null) {
+            return false;
+        }
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            if (fromWritePath) {
+                markTouched(id);
+            } else if (touchedDuringLoad.contains(id)) {
+                return false;
+            }
+            Entry previous = entries.remove(id);
+            if (previous == null) {
+                return false;
+            }
+            for (String token : previous.allTokens()) {
+                tokens.remove(key(token, id));
+            }
+            count(previous, -1);
+            invalidate(previous, null);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void markTouched(Long id) {
+        if (loading) {
+            touchedDuringLoad.add(id);
+        }
+    }
+
+    // Only memoized queries that matched the doctor before or match it now can change
+    private void invalidate(Entry before, Entry after) {
+        generation.incrementAndGet();
+        if (!memo.isEmpty()) {
+            memo.values().removeIf(m -> (before != null && score(before, m.terms()) >= 0)
+                    || (after != null && score(after, m.terms()) >= 0));
+        }
+    }
+
+    private static List<Suggestion> head(List<Suggestion> suggestions, int size) {
+        return suggestions.size() <= size ? suggestions : suggestions.subList(0, size);
+    }
+
+    private void count(Entry entry, int delta) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String token : entry.allTokens()) {
+            for (int length = 1; length <= Math.min(COUNTED_PREFIX, token.length()); length++) {
+                prefixes.add(token.substring(0, length));
+            }
+        }
+        for (String prefix : prefixes) {
+            prefixCounts.merge(prefix, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    // Upper bound on the doctors a term can match
+    private int estimate(String term) {
+        return prefixCounts.getOrDefault(term.substring(0, Math.min(COUNTED_PREFIX, term.length())), 0);
+    }
+
+    // Sum of per-term match quality (exact name token, name prefix, exact specialty, specialty
+    // prefix), plus one unless the first term starts the name; -1 when any term misses
+    private static int score(Entry entry, String[] terms) {
+        int score = 0;
+        for (String term : terms) {
+            int termScore = match(entry.nameTokens(), term, 0);
+            if (termScore < 0) {
+                termScore = match(entry.specialtyTokens(), term, 2);
+            }
+            if (termScore < 0) {
+                return -1;
+            }
+            score += termScore;
+        }
+        if (entry.nameTokens().length == 0 || !entry.nameTokens()[0].startsWith(terms[0])) {
+            score++;
+        }
+        return score;
+    }
+
+    private static boolean firstInRange(Entry entry, String token, String prefix) {
+        for (String other : entry.allTokens()) {
+            if (other.compareTo(token) < 0 && other.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int match(String[] candidates, String term, int base) {
+        int best = -1;
+        for (String candidate : candidates) {
+            if (candidate.equals(term)) {
+                return base;
+            }
+            if (candidate.startsWith(term)) {
+                best = base + 1;
+            }
+        }
+        return best;
+    }
+
+    private static Entry entry(Long id, String name, String specialty) {
+        String[] nameTokens = tokenize(name);
+        String[] specialtyTokens = tokenize(specialty);
+        Set<String> allTokens = new LinkedHashSet<>(List.of(nameTokens));
+        allTokens.addAll(List.of(specialtyTokens));
+        return new Entry(id, name, specialty, fold(name), nameTokens, specialtyTokens, Set.copyOf(allTokens));
+    }
+
+    private static String key(String token, Long id) {
+        return token + KEY_SEPARATOR + id;
+    }
+
+    static String[] tokenize(String text) {
+        String folded = fold(text);
+        if (folded.isBlank()) {
+            return new String[0];
+        }
+        return SEPARATORS.splitAsStream(folded).filter(token -> !token.isEmpty()).distinct().toArray(String[]::new);
+    }
+
+    // Case and accent folding: "Dr. Élodie" and "dr elodie" produce the same tokens
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,47 +1,159 @@
 package com.project.back_end.services;
 
+import com.project.back_end.DTO.AvailableSlot;
+import com.project.back_end.DTO.CursorPage;
+import com.project.back_end.DTO.DoctorAvailability;
+import com.project.back_end.DTO.FreeGap;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.ScheduleException;
+import com.project.back_end.models.SlotMask;
 import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.ArchivedAppointmentRepository;
 import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorSummary;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import com.project.back_end.security.AuthMetrics;
+import com.project.back_end.util.PageCursor;
+import com.project.back_end.util.StripedLocks;
+import com.project.back_end.util.Transactions;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 @Service
 @RequiredArgsConstructor
+@Timed("app.service")
 @Slf4j
 public class DoctorService {
 
+    // Thrown for an availability range request that is empty, reversed or too large
+    public static class InvalidAvailabilityRequestException extends RuntimeException {
+        public InvalidAvailabilityRequestException(String message) {
+            super(message);
+        }
+    }
+
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
     private final TokenService tokenService;
+    private final AvailabilityIndex availabilityIndex;
+    private final PasswordService passwordService;
+    private final AuthMetrics authMetrics;
+    private final DoctorSearchIndex doctorSearchIndex;
+    private final EarliestSlotSearch earliestSlotSearch;
+    private final ScheduleExceptionRepository scheduleExceptionRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
 
-    @Transactional(readOnly = true)
+    // Exception writes for one doctor serialize here so the overlap check holds
+    private final StripedLocks scheduleLocks = new StripedLocks(256);
+
+    @Value("${availability.range.max-days:31}")
+    private int maxRangeDays;
+
+    @Value("${availability.range.max-doctors:200}")
+    private int maxRangeDoctors;
+
+    @Value("${slot.search.horizon-days:60}")
+    private int searchHorizonDays;
+
+    @Value("${slot.search.max-doctors:1000}")
+    private int searchMaxDoctors;
+
+    @Value("${slot.search.max-results:50}")
+    private int searchMaxResults;
+
+    // Served from the availability index; only cold days touch the database
     public List<LocalTime> getDoctorAvailability(Long doctorId, LocalDate date) {
-        Doctor doctor = doctorRepository.findById(doctorId)
-                .orElseThrow(() -> new IllegalArgumentException("Doctor not found"));
+        return availabilityIndex.freeSlots(doctorId, date);
+    }
 
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
+    // Stretches of at least minMinutes the doctor could still fit a visit into on date
+    public List<FreeGap> getFreeGaps(Long doctorId, LocalDate date, int minMinutes) {
+        if (minMinutes < Appointment.MIN_DURATION_MINUTES || minMinutes > Appointment.MAX_DURATION_MINUTES) {
+            throw new InvalidAvailabilityRequestException("minutes must be between " + Appointment.MIN_DURATION_MINUTES
+                    + " and " + Appointment.MAX_DURATION_MINUTES);
+        }
+        return availabilityIndex.freeGaps(doctorId, date, minMinutes);
+    }
 
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(
-                doctorId, startOfDay, endOfDay);
+    // Week or month view in one call: explicit doctor ids, or every doctor of a specialty
+    public List<DoctorAvailability> getAvailability(List<Long> doctorIds, String specialty, LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new InvalidAvailabilityRequestException("from must be on or before to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new InvalidAvailabilityRequestException("The date range is limited to " + maxRangeDays + " days");
+        }
 
-        Set<LocalTime> booked = appointments.stream()
-                .map(a -> a.getAppointmentTime().toLocalTime())
-                .collect(Collectors.toSet());
+        List<Long> ids;
+        if (doctorIds != null && !doctorIds.isEmpty()) {
+            ids = doctorIds.stream().filter(Objects::nonNull).distinct().toList();
+        } else if (specialty != null && !specialty.isBlank()) {
+            ids = doctorRepository.findIdsBySpecialty(specialty.trim(), PageRequest.of(0, maxRangeDoctors + 1));
+        } else {
+            throw new InvalidAvailabilityRequestException("doctorIds or specialty is required");
+        }
+        if (ids.size() > maxRangeDoctors) {
+            throw new InvalidAvailabilityRequestException("At most " + maxRangeDoctors + " doctors per request");
+        }
+        return availabilityIndex.matrix(ids, from, to);
+    }
+
+    // "First free cardiology slot after Tuesday": the earliest free slots across a specialty (or
+    // explicit doctors), optionally within a time-of-day window, at most limit of them
+    public List<AvailableSlot> findEarliestSlots(List<Long> doctorIds, String specialty, LocalDateTime after,
+                                                 LocalTime windowStart, LocalTime windowEnd, Integer limit) {
+        int size = limit == null ? 5 : limit;
+        if (size <= 0 || size > searchMaxResults) {
+            throw new InvalidAvailabilityRequestException("limit must be between 1 and " + searchMaxResults);
+        }
+        if (windowStart != null && windowEnd != null && !windowStart.isBefore(windowEnd)) {
+            throw new InvalidAvailabilityRequestException("windowStart must be before windowEnd");
+        }
+
+        List<Long> ids;
+        if (doctorIds != null && !doctorIds.isEmpty()) {
+            ids = doctorIds.stream().filter(Objects::nonNull).distinct().toList();
+        } else if (specialty != null && !specialty.isBlank()) {
+            ids = doctorRepository.findIdsBySpecialty(specialty.trim(), PageRequest.of(0, searchMaxDoctors + 1));
+        } else {
+            throw new InvalidAvailabilityRequestException("doctorIds or specialty is required");
+        }
+        if (ids.size() > searchMaxDoctors) {
+            throw new InvalidAvailabilityRequestException("At most " + searchMaxDoctors + " doctors per search");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = after == null || after.isBefore(now) ? now : after;
+        List<EarliestSlotSearch.Slot> slots = earliestSlotSearch.search(ids, start, windowStart, windowEnd, searchHorizonDays, size);
+        if (slots.isEmpty()) {
+            return List.of();
+        }
 
-        return doctor.getAvailableTimes().stream()
-                .filter(t -> !booked.contains(t))
-                .collect(Collectors.toList());
+        Map<Long, DoctorSummary> doctors = new HashMap<>();
+        for (DoctorSummary doctor : doctorRepository.findSummariesByIdIn(slots.stream().map(EarliestSlotSearch.Slot::doctorId).distinct().toList())) {
+            doctors.put(doctor.getId(), doctor);
+        }
+        List<AvailableSlot> result = new ArrayList<>(slots.size());
+        for (EarliestSlotSearch.Slot slot : slots) {
+            DoctorSummary doctor = doctors.get(slot.doctorId());
+            if (doctor != null) {
+                result.add(new AvailableSlot(doctor.getId(), doctor.getName(), doctor.getSpecialty(), slot.time()));
+            }
+        }
+        return result;
     }
 
     @Transactional
@@ -52,9 +164,13 @@ public class DoctorService {
                 return -1; // Already exists
             }
 
+            doctor.setPassword(passwordService.hashPassword(doctor.getPassword()));
             doctorRepository.save(doctor);
+            Transactions.afterCommit(() -> doctorSearchIndex.put(doctor.getId(), doctor.getName(), doctor.getSpecialty()));
             log.info("Doctor registered: {}", doctor.getEmail());
             return 1;
+        } catch (PasswordService.HashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error saving doctor", e);
             return 0;
@@ -65,42 +181,122 @@ public class DoctorService {
     public int updateDoctor(Doctor updatedDoctor) {
         return doctorRepository.findById(updatedDoctor.getId())
                 .map(existing -> {
+                    String previousEmail = existing.getEmail();
                     existing.setName(updatedDoctor.getName());
                     existing.setEmail(updatedDoctor.getEmail());
                     existing.setSpecialty(updatedDoctor.getSpecialty());
-                    existing.setAvailableTimes(updatedDoctor.getAvailableTimes());
+                    existing.setSlotMask(updatedDoctor.getSlotMask());
+                    existing.setWeeklySlotMask(updatedDoctor.getWeeklySlotMask());
                     doctorRepository.save(existing);
+                    Transactions.afterCommit(() -> {
+                        availabilityIndex.evictDoctor(existing.getId());
+                        doctorSearchIndex.put(existing.getId(), existing.getName(), existing.getSpecialty());
+                    });
+                    if (!previousEmail.equalsIgnoreCase(updatedDoctor.getEmail())) {
+                        Transactions.afterCommit(() -> tokenService.revokeSubject(previousEmail));
+                    }
                     return 1;
                 })
                 .orElse(-1);
     }
 
+    // Keyset page of doctors ordered by id; the slot template is a column, so one query loads the page
     @Transactional(readOnly = true)
-    public List<Doctor> getDoctors() {
-        return doctorRepository.findAll();
+    public CursorPage<Doctor> getDoctors(String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        List<Long> ids = doctorRepository.findIdsAfter(PageCursor.decode(cursor).id(), PageRequest.of(0, pageSize + 1));
+        if (ids.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        return CursorPage.of(doctorRepository.findAllByIdInOrderById(ids), pageSize, d -> PageCursor.afterId(d.getId()));
     }
 
+    // Drops the doctor with its remaining appointments and exceptions in one transaction. The
+    // admin endpoint goes through DoctorDeletionJobs, which empties long histories in batches first
     @Transactional
     public int deleteDoctor(Long doctorId) {
-        if (!doctorRepository.existsById(doctorId))
+        Optional<Doctor> doctor = doctorRepository.findById(doctorId);
+        if (doctor.isEmpty())
             return -1;
 
+        String email = doctor.get().getEmail();
         appointmentRepository.deleteAllByDoctorId(doctorId);
+        archivedAppointmentRepository.deleteAllByDoctorId(doctorId);
+        scheduleExceptionRepository.deleteAllByDoctorId(doctorId);
         doctorRepository.deleteById(doctorId);
+        Transactions.afterCommit(() -> {
+            availabilityIndex.forgetDoctor(doctorId);
+            doctorSearchIndex.remove(doctorId);
+            tokenService.revokeSubject(email);
+        });
+        return 1;
+    }
+
+    // Holiday, vacation or one-off hours for the doctor behind the token: 1 added, -1 overlaps an
+    // existing exception, -2 end before start, 0 failed. Not transactional on purpose: the insert
+    // must commit before the lock is released
+    public int addScheduleException(String token, ScheduleException exception) {
+        Optional<Long> doctorId = tokenService.currentDoctorId(token);
+        if (doctorId.isEmpty())
+            return 0;
+        if (exception.getEndDate().isBefore(exception.getStartDate()))
+            return -2;
+
+        Lock lock = scheduleLocks.get(doctorId.get());
+        lock.lock();
+        try {
+            if (scheduleExceptionRepository.existsOverlapping(doctorId.get(), exception.getStartDate(), exception.getEndDate()))
+                return -1;
+            exception.setId(null);
+            exception.setDoctorId(doctorId.get());
+            scheduleExceptionRepository.saveAndFlush(exception);
+        } finally {
+            lock.unlock();
+        }
+        availabilityIndex.evictDoctor(doctorId.get());
         return 1;
     }
 
+    // Exceptions of the doctor behind the token that have not ended yet, in date order
     @Transactional(readOnly = true)
+    public List<ScheduleException> getScheduleExceptions(String token) {
+        return tokenService.currentDoctorId(token)
+                .map(doctorId -> scheduleExceptionRepository.findEndingOnOrAfter(List.of(doctorId), LocalDate.now()))
+                .orElse(List.of());
+    }
+
+    // 1 removed, -1 no such exception for the doctor behind the token
+    @Transactional
+    public int deleteScheduleException(String token, Long exceptionId) {
+        Optional<ScheduleException> exception = tokenService.currentDoctorId(token)
+                .flatMap(doctorId -> scheduleExceptionRepository.findByIdAndDoctorId(exceptionId, doctorId));
+        if (exception.isEmpty())
+            return -1;
+
+        Long doctorId = exception.get().getDoctorId();
+        scheduleExceptionRepository.delete(exception.get());
+        Transactions.afterCommit(() -> availabilityIndex.evictDoctor(doctorId));
+        return 1;
+    }
+
+    // Not read-only: a rehash writes the password back, and MySQL refuses writes on a read-only connection
     public String validateDoctor(String email, String password) {
         Optional<Doctor> doctorOpt = doctorRepository.findByEmail(email);
-        if (doctorOpt.isEmpty())
+        if (doctorOpt.isEmpty()) {
+            authMetrics.login("doctor", false);
             return "Invalid email";
+        }
 
         Doctor doctor = doctorOpt.get();
-        if (!doctor.getPassword().equals(password))
+        PasswordService.Verification check = passwordService.verify(password, doctor.getPassword());
+        authMetrics.login("doctor", check.matches());
+        if (!check.matches())
             return "Invalid password";
+        // Plaintext rows and hashes with an outdated cost are replaced on a successful login
+        if (check.rehash() != null)
+            doctorRepository.updatePassword(doctor.getId(), check.rehash());
 
-        return tokenService.generateToken(email);
+        return tokenService.generateToken(email, "doctor", doctor.getId());
     }
 
     @Transactional(readOnly = true)
@@ -108,9 +304,35 @@ public class DoctorService {
         return doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
     }
 
-    public Doctor getCurrentDoctor(String token) {
-        String email = tokenService.extractEmail(token);
-        return doctorRepository.findByEmail(email)
-                .orElseThrow(() -> new NoSuchElementException("Doctor not found for token"));
+    // Typeahead for the search box, answered from the in-memory index without a query
+    public List<DoctorSearchIndex.Suggestion> autocomplete(String query, Integer limit) {
+        return doctorSearchIndex.search(query, limit);
+    }
+
+    // Blank filters are ignored; everything else is pushed down to one indexed query. A time off the
+    // slot grid can match no template
+    @Transactional(readOnly = true)
+    public List<Doctor> filterDoctors(String name, String specialty, LocalTime time) {
+        if (time == null) {
+            return doctorRepository.filterDoctors(blankToNull(name), blankToNull(specialty), null);
+        }
+        int slot = SlotMask.index(time);
+        if (slot < 0) {
+            return List.of();
+        }
+        return doctorRepository.filterDoctors(blankToNull(name), blankToNull(specialty), slot);
+    }
+
+    // Primary-key existence check, without loading the row
+    public boolean doctorExists(Long doctorId) {
+        return doctorId != null && doctorRepository.existsById(doctorId);
+    }
+
+        public Doctor getCurrentDoctor(String token) {
+        return tokenService.requireDoctor(token);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
     }
 }
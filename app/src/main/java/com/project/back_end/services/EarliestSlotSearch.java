@@ -0,0 +1,152 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.DoctorAvailability;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * "First free slot" search over many doctors. Each doctor is a lazy cursor over its own free
+ * slots, and a priority queue keyed by each cursor's next slot merges them in time order, so the
+ * search stops at the K-th hit. Days come from {@link AvailabilityIndex#matrix} a week at a time
+ * for all doctors together, and only as far ahead as the merge actually reaches.
+ */
+@Component
+@RequiredArgsConstructor
+public class EarliestSlotSearch {
+
+    // One free slot, in the order the search found it
+    public record Slot(Long doctorId, LocalDateTime time) {
+    }
+
+    private static final int CHUNK_DAYS = 7;
+    private static final Comparator<Cursor> EARLIEST = Comparator.<Cursor, LocalDateTime>comparing(c -> c.next)
+            .thenComparing(c -> c.doctorId);
+
+    private final AvailabilityIndex availabilityIndex;
+
+    // Up to limit free slots strictly after `after`, earliest first, no further than horizonDays ahead.
+    // windowStart/windowEnd (either may be null) keep slots with windowStart <= time < windowEnd
+    public List<Slot> search(List<Long> doctorIds, LocalDateTime after, LocalTime windowStart, LocalTime windowEnd,
+                             int horizonDays, int limit) {
+        if (doctorIds.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Chunks chunks = new Chunks(doctorIds, after.toLocalDate(), after.toLocalDate().plusDays(horizonDays - 1L));
+
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(doctorIds.size(), EARLIEST);
+        for (Long doctorId : doctorIds) {
+            Cursor cursor = new Cursor(doctorId, after.toLocalDate());
+            if (cursor.advance(chunks, after, windowStart, windowEnd)) {
+                queue.add(cursor);
+            }
+        }
+
+        List<Slot> slots = new ArrayList<>(limit);
+        while (slots.size() < limit && !queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            slots.add(new Slot(cursor.doctorId, cursor.next));
+            if (cursor.advance(chunks, after, windowStart, windowEnd)) {
+                queue.add(cursor);
+            }
+        }
+        return slots;
+    }
+
+    // Week-sized slices of the availability matrix, loaded for every doctor the first time any
+    // cursor steps into them
+    private final class Chunks {
+        private final List<Long> doctorIds;
+        private final LocalDate first;
+        private final LocalDate last;
+        private final Map<Integer, Map<Long, DoctorAvailability>> loaded = new HashMap<>();
+
+        private Chunks(List<Long> doctorIds, LocalDate first, LocalDate last) {
+            this.doctorIds = doctorIds;
+            this.first = first;
+            this.last = last;
+        }
+
+        // Null when the doctor is unknown or the date is past the horizon
+        private DoctorAvailability row(Long doctorId, LocalDate date) {
+            if (date.isAfter(last)) {
+                return null;
+            }
+            int chunk = (int) (ChronoUnit.DAYS.between(first, date) / CHUNK_DAYS);
+            return loaded.computeIfAbsent(chunk, this::load).get(doctorId);
+        }
+
+        private Map<Long, DoctorAvailability> load(int chunk) {
+            LocalDate from = first.plusDays((long) chunk * CHUNK_DAYS);
+            LocalDate to = from.plusDays(CHUNK_DAYS - 1L);
+            Map<Long, DoctorAvailability> rows = new HashMap<>();
+            for (DoctorAvailability row : availabilityIndex.matrix(doctorIds, from, to.isAfter(last) ? last : to)) {
+                rows.put(row.getDoctorId(), row);
+            }
+            return rows;
+        }
+    }
+
+    private static final class Cursor {
+        private final Long doctorId;
+        private LocalDate date;
+        // Index into the slot template of the last slot returned on date, -1 before the first
+        private int slot = -1;
+        private LocalDateTime next;
+
+        private Cursor(Long doctorId, LocalDate date) {
+            this.doctorId = doctorId;
+            this.date = date;
+        }
+
+        // Move to the next free slot that passes the filters; false once the doctor has none left
+        private boolean advance(Chunks chunks, LocalDateTime after, LocalTime windowStart, LocalTime windowEnd) {
+            while (true) {
+                DoctorAvailability row = chunks.row(doctorId, date);
+                // A template with nothing inside the window would otherwise walk the whole horizon
+                if (row == null || !anyInWindow(row.getSlots(), windowStart, windowEnd)) {
+                    return false;
+                }
+                String mask = row.getDays().get(date);
+                List<LocalTime> times = row.getSlots();
+                for (int i = slot + 1; i < mask.length(); i++) {
+                    LocalTime time = times.get(i);
+                    if (mask.charAt(i) != '1' || !inWindow(time, windowStart, windowEnd)) {
+                        continue;
+                    }
+                    LocalDateTime candidate = date.atTime(time);
+                    if (candidate.isAfter(after)) {
+                        slot = i;
+                        next = candidate;
+                        return true;
+                    }
+                }
+                date = date.plusDays(1);
+                slot = -1;
+            }
+        }
+    }
+
+    private static boolean anyInWindow(List<LocalTime> times, LocalTime windowStart, LocalTime windowEnd) {
+        for (LocalTime time : times) {
+            if (inWindow(time, windowStart, windowEnd)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean inWindow(LocalTime time, LocalTime windowStart, LocalTime windowEnd) {
+        return (windowStart == null || !time.isBefore(windowStart)) && (windowEnd == null || time.isBefore(windowEnd));
+    }
+}
@@ -1,18 +1,181 @@
 package com.project.back_end.services;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt hashing on a dedicated executor sized to the cores, so a burst of logins or
+ * registrations cannot occupy every request thread. When the executor's queue is full the
+ * caller gets {@link HashingBusyException} (503) instead of waiting.
+ */
 @Service
+@Slf4j
 public class PasswordService {
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    // Thrown when the hashing executor is saturated or the wait for a slot times out
+    public static class HashingBusyException extends RuntimeException {
+        public HashingBusyException(String message) {
+            super(message);
+        }
+    }
+
+    // Outcome of a login check; rehash is the replacement hash when the stored one should change
+    public record Verification(boolean matches, String rehash) {
+    }
+
+    private static final Pattern BCRYPT = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    private static final int MAX_COST = 16;
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    // 0 calibrates at startup: the highest cost (not below minCost) that verifies within targetMillis
+    @Value("${password.bcrypt.cost:0}")
+    private int configuredCost;
+
+    @Value("${password.bcrypt.min-cost:10}")
+    private int minCost;
+
+    @Value("${password.bcrypt.target-millis:250}")
+    private long targetMillis;
+
+    // 0 uses one thread per available core
+    @Value("${password.hashing.threads:0}")
+    private int threads;
+
+    @Value("${password.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${password.hashing.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    private ThreadPoolExecutor executor;
+    private BCryptPasswordEncoder encoder;
+    private int cost;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                task -> {
+                    Thread thread = new Thread(task, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        cost = configuredCost > 0 ? configuredCost : calibrate();
+        encoder = new BCryptPasswordEncoder(cost);
+        log.info("Password hashing: BCrypt cost {}, {} threads, queue {}", cost, poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
 
     public String hashPassword(String plainPassword) {
-        return passwordEncoder.encode(plainPassword);
+        return run(() -> encoder.encode(plainPassword));
     }
 
     public boolean verifyPassword(String plainPassword, String hashedPassword) {
-        return passwordEncoder.matches(plainPassword, hashedPassword);
+        return run(() -> hashedPassword != null && isHashed(hashedPassword)
+                && encoder.matches(plainPassword, hashedPassword));
+    }
+
+    // Login check that also upgrades the stored value: legacy plaintext and hashes below the current
+    // cost are rehashed in the same task, so the caller only has to persist Verification.rehash.
+    // Never downgrades, so nodes that calibrate a step apart don't flip the same hashes back and forth
+    public Verification verify(String plainPassword, String storedPassword) {
+        if (plainPassword == null || storedPassword == null) {
+            return new Verification(false, null);
+        }
+        return run(() -> {
+            boolean hashed = isHashed(storedPassword);
+            boolean matches = hashed
+                    ? encoder.matches(plainPassword, storedPassword)
+                    : MessageDigest.isEqual(plainPassword.getBytes(StandardCharsets.UTF_8),
+                            storedPassword.getBytes(StandardCharsets.UTF_8));
+            if (!matches) {
+                return new Verification(false, null);
+            }
+            return new Verification(true, !hashed || costOf(storedPassword) < cost ? encoder.encode(plainPassword) : null);
+        });
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public static boolean isHashed(String storedPassword) {
+        return storedPassword != null && BCRYPT.matcher(storedPassword).matches();
+    }
+
+    private static int costOf(String hash) {
+        Matcher matcher = BCRYPT.matcher(hash);
+        return matcher.lookingAt() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new HashingBusyException("Password hashing is saturated, try again shortly");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new HashingBusyException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new HashingBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Each cost step doubles the work, so stop before the next step would overshoot the target
+    private int calibrate() {
+        int candidate = Math.max(4, minCost);
+        String sample = new BCryptPasswordEncoder(candidate).encode(CALIBRATION_PASSWORD);
+        long millis = timeMatches(candidate, sample);
+        while (candidate < MAX_COST && millis * 2 <= targetMillis) {
+            candidate++;
+            millis *= 2;
+        }
+        return candidate;
+    }
+
+    private static long timeMatches(int cost, String sample) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(cost);
+        probe.matches(CALIBRATION_PASSWORD, sample);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.matches(CALIBRATION_PASSWORD, sample);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(best));
     }
-}
\ No newline at end of file
+}
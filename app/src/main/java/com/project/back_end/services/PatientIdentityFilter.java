@@ -0,0 +1,93 @@
+package com.project.back_end.services;
+
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.PatientRepository.PatientIdentity;
+import com.project.back_end.util.BloomFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bloom filter over registered patient emails and phones. A negative answer means the
+ * registration cannot be a duplicate and can go straight to the insert; the database unique
+ * keys remain the source of truth. Until warm-up finishes every answer is "maybe".
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PatientIdentityFilter {
+
+    private static final int PAGE_SIZE = 10_000;
+
+    private final PatientRepository patientRepository;
+
+    @Value("${patient.registration.filter.min-capacity:100000}")
+    private int minCapacity;
+
+    @Value("${patient.registration.filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long count = patientRepository.count();
+        BloomFilter loading = new BloomFilter((int) Math.min(Integer.MAX_VALUE, Math.max(minCapacity, count * 2)), falsePositiveRate);
+        filter = loading;
+
+        long afterId = 0;
+        List<PatientIdentity> page;
+        do {
+            page = patientRepository.findIdentitiesAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            for (PatientIdentity identity : page) {
+                add(loading, identity.getEmail(), identity.getPhone());
+                afterId = identity.getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        ready = true;
+        log.info("Patient registration filter warmed with {} patients", count);
+    }
+
+    public boolean mightExist(String email, String phone) {
+        BloomFilter current = filter;
+        if (!ready || current == null) {
+            return true;
+        }
+        return (email != null && current.mightContain(emailKey(email)))
+                || (phone != null && current.mightContain(phoneKey(phone)));
+    }
+
+    public void add(String email, String phone) {
+        BloomFilter current = filter;
+        if (current != null) {
+            add(current, email, phone);
+        }
+    }
+
+    private static void add(BloomFilter target, String email, String phone) {
+        if (email != null) {
+            target.put(emailKey(email));
+        }
+        if (phone != null) {
+            target.put(phoneKey(phone));
+        }
+    }
+
+    // Emails compare case-insensitively, matching the column collation
+    private static String emailKey(String email) {
+        return "e:" + email.toLowerCase(Locale.ROOT);
+    }
+
+    private static String phoneKey(String phone) {
+        return "p:" + phone;
+    }
+}
@@ -1,11 +1,15 @@
 package com.project.back_end.services;
 
-import com.project.back_end.models.Appointment;
 import com.project.back_end.models.Patient;
-import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.AppointmentHistory;
 import com.project.back_end.repo.PatientRepository;
 import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.CursorPage;
+import com.project.back_end.util.PageCursor;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,41 +17,56 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed("app.service")
 public class PatientService {
 
     private final PatientRepository patientRepository;
-    private final AppointmentRepository appointmentRepository;
+    private final AppointmentHistory appointmentHistory;
     private final TokenService tokenService;
     private final PasswordService passwordService;
+    private final PatientIdentityFilter identityFilter;
 
-    // 1. Create a new patient
-    @Transactional
+    // 1. Create a new patient: 1 created, -1 email or phone already registered, 0 failed.
+    // One insert in its own transaction; the unique keys on email and phone decide duplicates.
     public int createPatient(Patient patient) {
         try {
+            // Only a possible filter hit costs a lookup, and it spares the password hash for duplicates
+            if (identityFilter.mightExist(patient.getEmail(), patient.getPhone())
+                    && patientRepository.existsByEmailOrPhone(patient.getEmail(), patient.getPhone())) {
+                return -1;
+            }
+
             // Hash the password before saving
             patient.setPassword(passwordService.hashPassword(patient.getPassword()));
             patientRepository.save(patient);
+            identityFilter.add(patient.getEmail(), patient.getPhone());
             return 1;
+        } catch (DataIntegrityViolationException e) {
+            return -1;
+        } catch (PasswordService.HashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             return 0;
         }
     }
 
-    // 2. Get appointments for current patient
+    // 2. Get appointments for current patient, one keyset page ordered by (appointmentTime, id)
     @Transactional(readOnly = true)
-    public List<AppointmentDTO> getPatientAppointments(String token) {
+    public CursorPage<AppointmentDTO> getPatientAppointments(String token, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
         try {
             Patient patient = getCurrentPatient(token);
-            List<Appointment> appointments = appointmentRepository.findByPatientId(patient.getId());
-            return convertToDTOs(appointments);
+            List<AppointmentDTO> rows = appointmentHistory.findPatientPage(patient.getId(),
+                    after.timeOr(PageCursor.ORIGIN), after.id(), pageSize + 1);
+            return CursorPage.of(rows, pageSize, a -> PageCursor.after(a.getAppointmentTime(), a.getId()));
         } catch (Exception e) {
             e.printStackTrace();
-            return Collections.emptyList();
+            return new CursorPage<>(Collections.emptyList(), null);
         }
     }
 
@@ -57,9 +76,7 @@ public class PatientService {
         try {
             Patient patient = getCurrentPatient(token);
             int status = condition.equalsIgnoreCase("past") ? 1 : 0;
-            List<Appointment> appointments = appointmentRepository
-                    .findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patient.getId(), status);
-            return convertToDTOs(appointments);
+            return appointmentHistory.findByPatientIdAndStatus(patient.getId(), status);
         } catch (Exception e) {
             e.printStackTrace();
             return Collections.emptyList();
@@ -71,9 +88,7 @@ public class PatientService {
     public List<AppointmentDTO> filterByDoctor(String token, String doctorName) {
         try {
             Patient patient = getCurrentPatient(token);
-            List<Appointment> appointments = appointmentRepository
-                    .filterByDoctorNameAndPatientId(doctorName, patient.getId());
-            return convertToDTOs(appointments);
+            return appointmentHistory.filterByDoctorNameAndPatientId(doctorName, patient.getId());
         } catch (Exception e) {
             e.printStackTrace();
             return Collections.emptyList();
@@ -86,9 +101,7 @@ public class PatientService {
         try {
             Patient patient = getCurrentPatient(token);
             int status = condition.equalsIgnoreCase("past") ? 1 : 0;
-            List<Appointment> appointments = appointmentRepository
-                    .filterByDoctorNameAndPatientIdAndStatus(doctorName, patient.getId(), status);
-            return convertToDTOs(appointments);
+            return appointmentHistory.filterByDoctorNameAndPatientIdAndStatus(doctorName, patient.getId(), status);
         } catch (Exception e) {
             e.printStackTrace();
             return Collections.emptyList();
@@ -100,31 +113,30 @@ public class PatientService {
         return getCurrentPatient(token);
     }
 
-    // 7. Verify patient login
-    public boolean verifyPatientLogin(String email, String password) {
+    // 7. Verify patient login, returning the patient when the credentials match
+    public Patient verifyPatientLogin(String email, String password) {
         Patient patient = patientRepository.findByEmail(email);
         if (patient == null)
-            return false;
-        return passwordService.verifyPassword(password, patient.getPassword());
+            return null;
+        PasswordService.Verification check = passwordService.verify(password, patient.getPassword());
+        if (!check.matches())
+            return null;
+        if (check.rehash() != null)
+            patientRepository.updatePassword(patient.getId(), check.rehash());
+        return patient;
     }
 
     // 🔐 Private helper — extract patient from token
     private Patient getCurrentPatient(String token) {
-        String email = tokenService.extractEmail(token);
-        return patientRepository.findByEmail(email);
-    }
-
-    // 🔁 Convert list of Appointment to AppointmentDTO
-    private List<AppointmentDTO> convertToDTOs(List<Appointment> appointments) {
-        return appointments.stream().map(appointment -> AppointmentDTO.builder()
-                .id(appointment.getId())
-                .doctorName(appointment.getDoctor().getName())
-                .status(appointment.getStatus())
-                .build()).collect(Collectors.toList());
+        return tokenService.currentPatient(token);
     }
 
+    // Keyset page of patients ordered by id
     @Transactional(readOnly = true)
-    public List<Patient> getAllPatients() {
-        return patientRepository.findAll();
+    public CursorPage<Patient> getPatients(String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size);
+        List<Patient> rows = patientRepository.findByIdGreaterThanOrderByIdAsc(
+                PageCursor.decode(cursor).id(), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, p -> PageCursor.afterId(p.getId()));
     }
 }
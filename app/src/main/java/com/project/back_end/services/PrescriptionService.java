@@ -2,7 +2,9 @@ package com.project.back_end.services;
 
 import com.project.back_end.models.Prescription;
 import com.project.back_end.repo.PrescriptionRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -13,23 +15,21 @@ import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
+@Timed("app.service")
 public class PrescriptionService {
 
     private final PrescriptionRepository prescriptionRepository;
 
+    // Single insert; the unique appointmentId index rejects a second prescription
     public ResponseEntity<?> savePrescription(Prescription prescription) {
         try {
-            boolean exists = prescriptionRepository.existsByAppointmentId(prescription.getAppointmentId());
-
-            if (exists) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body("A prescription already exists for this appointment.");
-            }
-
-            prescriptionRepository.save(prescription);
+            prescriptionRepository.insert(prescription);
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body("Prescription saved successfully.");
 
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("A prescription already exists for this appointment.");
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -5,6 +5,7 @@ import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.security.AuthMetrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -23,6 +24,8 @@ public class Service {
     private final DoctorService doctorService;
     private final AppointmentService appointmentService;
     private final PrescriptionService prescriptionService;
+    private final PasswordService passwordService;
+    private final AuthMetrics authMetrics;
 
     public boolean validateToken(String token, String username) {
         return tokenService.validateToken(token, username);
@@ -32,45 +35,41 @@ public class Service {
         try {
             Admin admin = adminRepository.findByUsername(username);
             if (admin == null) {
+                authMetrics.login("admin", false);
                 return ResponseEntity.status(401).body("Admin not found");
             }
 
-            if (!admin.getPassword().equals(password)) {
+            PasswordService.Verification check = passwordService.verify(password, admin.getPassword());
+            authMetrics.login("admin", check.matches());
+            if (!check.matches()) {
                 return ResponseEntity.status(401).body("Invalid password");
             }
+            if (check.rehash() != null) {
+                adminRepository.updatePassword(admin.getId(), check.rehash());
+            }
 
-            String token = tokenService.generateToken(username);
+            String token = tokenService.generateToken(username, "admin", admin.getId());
             return ResponseEntity.ok().body(token);
 
+        } catch (PasswordService.HashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Internal server error");
         }
     }
 
     public List<Doctor> filterDoctor(String name, String specialty, LocalTime time) {
-        List<Doctor> doctors = doctorService.getDoctors();
-
-        return doctors.stream()
-                .filter(d -> (name == null || d.getName().toLowerCase().contains(name.toLowerCase())) &&
-                        (specialty == null || d.getSpecialty().equalsIgnoreCase(specialty)) &&
-                        (time == null || d.getAvailableTimes().contains(time)))
-                .toList();
+        return doctorService.filterDoctors(name, specialty, time);
     }
 
+    // 1 available, 0 not available, -1 doctor not found
     public int validateAppointment(Long doctorId, LocalDate date, LocalTime requestedTime) {
         try {
-            Doctor doctor = doctorService.getDoctors()
-                    .stream()
-                    .filter(d -> d.getId().equals(doctorId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (doctor == null)
+            if (!doctorService.doctorExists(doctorId))
                 return -1;
 
             List<LocalTime> availableSlots = doctorService.getDoctorAvailability(doctorId, date);
             return availableSlots.contains(requestedTime) ? 1 : 0;
-
         } catch (Exception e) {
             return 0;
         }
@@ -78,12 +77,16 @@ public class Service {
 
     public ResponseEntity<?> validatePatientLogin(String email, String password) {
         try {
-            if (patientService.verifyPatientLogin(email, password)) {
-                String token = tokenService.generateToken(email);
+            Patient patient = patientService.verifyPatientLogin(email, password);
+            authMetrics.login("patient", patient != null);
+            if (patient != null) {
+                String token = tokenService.generateToken(email, "patient", patient.getId());
                 return ResponseEntity.ok().body(token);
             } else {
                 return ResponseEntity.status(401).body("Invalid email or password");
             }
+        } catch (PasswordService.HashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Internal server error");
         }
@@ -97,6 +100,7 @@ public class Service {
                         a.setId(dto.getId());
                         a.setAppointmentTime(dto.getAppointmentTime());
                         a.setStatus(dto.getStatus());
+                        a.setDurationMinutes(dto.getDurationMinutes());
                         return a;
                     }).toList();
         } else if (condition != null) {
@@ -106,6 +110,7 @@ public class Service {
                         a.setId(dto.getId());
                         a.setAppointmentTime(dto.getAppointmentTime());
                         a.setStatus(dto.getStatus());
+                        a.setDurationMinutes(dto.getDurationMinutes());
                         return a;
                     }).toList();
         } else if (doctorName != null) {
@@ -115,15 +120,17 @@ public class Service {
                         a.setId(dto.getId());
                         a.setAppointmentTime(dto.getAppointmentTime());
                         a.setStatus(dto.getStatus());
+                        a.setDurationMinutes(dto.getDurationMinutes());
                         return a;
                     }).toList();
         } else {
-            return patientService.getPatientAppointments(token)
+            return patientService.getPatientAppointments(token, null, null).getItems()
                     .stream().map(dto -> {
                         Appointment a = new Appointment();
                         a.setId(dto.getId());
                         a.setAppointmentTime(dto.getAppointmentTime());
                         a.setStatus(dto.getStatus());
+                        a.setDurationMinutes(dto.getDurationMinutes());
                         return a;
                     }).toList();
         }
@@ -1,8 +1,17 @@
 package com.project.back_end.services;
 
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AdminRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.security.AuthMetrics;
+import com.project.back_end.security.AuthPrincipal;
+import com.project.back_end.security.TokenDenyList;
+import com.project.back_end.security.VerifiedTokenCache;
+import com.project.back_end.security.VerifiedTokenCache.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -13,14 +22,25 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class TokenService {
 
+    // The token verifies but its account is gone or no longer has that email. The deny-list lives in
+    // memory, so after a restart this is how deleted or renamed accounts are caught; answered with 401
+    public static class UnknownAccountException extends RuntimeException {
+        public UnknownAccountException(String message) {
+            super(message);
+        }
+    }
+
     private final AdminRepository adminRepository;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
+    private final AuthMetrics authMetrics;
 
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -28,11 +48,26 @@ public class TokenService {
     @Value("${jwt.expiration:604800000}")
     private long jwtExpiration;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${jwt.deny-list.expected-entries:10000}")
+    private int denyListExpectedEntries;
+
+    private static final String ROLE_CLAIM = "role";
+    private static final String ID_CLAIM = "id";
+
     private Key key;
+    private JwtParser parser;
+    private VerifiedTokenCache tokenCache;
+    private TokenDenyList denyList;
 
     @PostConstruct
     public void init() {
         this.key = getSigningKey();
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.tokenCache = new VerifiedTokenCache(cacheMaxSize);
+        this.denyList = new TokenDenyList(denyListExpectedEntries, jwtExpiration);
     }
 
     // Get Signing Key
@@ -40,13 +75,15 @@ public class TokenService {
         return Keys.hmacShaKeyFor(jwtSecret.getBytes());
     }
 
-    // Generate JWT token
-    public String generateToken(String email) {
+    // Generate JWT token carrying the account's role and id, so validation needs no lookup
+    public String generateToken(String subject, String role, Long accountId) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + jwtExpiration);
 
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(subject)
+                .claim(ROLE_CLAIM, role.toLowerCase(Locale.ROOT))
+                .claim(ID_CLAIM, accountId)
                 .setIssuedAt(now)
                 .setExpiration(expiry)
                 .signWith(key, SignatureAlgorithm.HS256)
@@ -55,37 +92,166 @@ public class TokenService {
 
     // Extract email from JWT
     public String extractEmail(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
-        } catch (Exception e) {
-            return null;
+        AuthPrincipal principal = AuthPrincipal.forToken(token);
+        if (principal != null)
+            return principal.getSubject();
+
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.getSubject();
+    }
+
+    // Verify signature and expiry once; used by the request filter to publish the principal
+    public AuthPrincipal authenticate(String token) {
+        VerifiedToken cached = tokenCache.peek(token);
+        if (cached != null) {
+            AuthPrincipal principal = new AuthPrincipal(token, cached.subject(), cached.issuedAtMillis(), cached.expiresAtMillis());
+            principal.setRole(cached.role());
+            principal.setAccountId(cached.accountId());
+            return principal;
         }
+
+        Claims claims = parseClaims(token);
+        if (claims == null || claims.getSubject() == null || claims.getIssuedAt() == null)
+            return null;
+
+        AuthPrincipal principal = new AuthPrincipal(token, claims.getSubject(),
+                claims.getIssuedAt().getTime(), claims.getExpiration().getTime());
+        principal.setRole(claims.get(ROLE_CLAIM, String.class));
+        Number accountId = claims.get(ID_CLAIM, Number.class);
+        principal.setAccountId(accountId == null ? null : accountId.longValue());
+        return principal;
     }
 
     // Validate token based on role
     public boolean validateToken(String token, String role) {
+        boolean valid = checkToken(token, role);
+        authMetrics.tokenValidation(role, valid);
+        return valid;
+    }
+
+    private boolean checkToken(String token, String role) {
         try {
-            String subject = extractEmail(token);
-            if (subject == null)
+            if (token == null || role == null)
                 return false;
 
-            switch (role.toLowerCase()) {
-                case "admin":
-                    return adminRepository.findByUsername(subject) != null;
-                case "doctor":
-                    return doctorRepository.findByEmail(subject) != null;
-                case "patient":
-                    return patientRepository.findByEmail(subject) != null;
-                default:
+            String normalizedRole = role.toLowerCase(Locale.ROOT);
+            VerifiedToken cached = tokenCache.get(token, normalizedRole);
+            if (cached != null)
+                return !denyList.isRevoked(cached.subject(), cached.issuedAtMillis());
+
+            AuthPrincipal principal = AuthPrincipal.forToken(token);
+            if (principal == null)
+                principal = authenticate(token);
+            if (principal == null || denyList.isRevoked(principal.getSubject(), principal.getIssuedAtMillis()))
+                return false;
+
+            if (principal.getRole() != null) {
+                if (!principal.getRole().equals(normalizedRole))
                     return false;
+            } else if (!resolveLegacyAccount(principal, normalizedRole)) {
+                return false;
             }
+
+            tokenCache.put(token, new VerifiedToken(principal.getSubject(), normalizedRole, principal.getAccountId(),
+                    principal.getIssuedAtMillis(), principal.getExpiresAtMillis()));
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
+
+    // Patient behind the token, reusing the one already loaded for this request
+    public Patient currentPatient(String token) {
+        AuthPrincipal principal = AuthPrincipal.forToken(token);
+        if (principal == null) {
+            String email = extractEmail(token);
+            return email == null ? null : patientRepository.findByEmail(email);
+        }
+
+        Patient patient = principal.getAccount(Patient.class);
+        if (patient == null) {
+            patient = principal.getAccountId() != null && "patient".equals(principal.getRole())
+                    ? patientRepository.findById(principal.getAccountId())
+                            .filter(p -> p.getEmail().equalsIgnoreCase(principal.getSubject())).orElse(null)
+                    : patientRepository.findByEmail(principal.getSubject());
+            if (patient == null)
+                revokeSubject(principal.getSubject());
+            principal.setAccount(patient);
+        }
+        return patient;
+    }
+
+    // Doctor behind the token, reusing the one already loaded for this request
+    public Optional<Doctor> currentDoctor(String token) {
+        AuthPrincipal principal = AuthPrincipal.forToken(token);
+        if (principal == null) {
+            String email = extractEmail(token);
+            return email == null ? Optional.empty() : doctorRepository.findByEmail(email);
+        }
+
+        Doctor doctor = principal.getAccount(Doctor.class);
+        if (doctor == null) {
+            doctor = (principal.getAccountId() != null && "doctor".equals(principal.getRole())
+                    ? doctorRepository.findById(principal.getAccountId())
+                            .filter(d -> d.getEmail().equalsIgnoreCase(principal.getSubject()))
+                    : doctorRepository.findByEmail(principal.getSubject())).orElse(null);
+            if (doctor == null)
+                revokeSubject(principal.getSubject());
+            principal.setAccount(doctor);
+        }
+        return Optional.ofNullable(doctor);
+    }
+
+    // Doctor behind the token, or UnknownAccountException once the account is gone
+    public Doctor requireDoctor(String token) {
+        return currentDoctor(token).orElseThrow(() -> new UnknownAccountException("Doctor not found for token"));
+    }
+
+    // Doctor id behind the token without a lookup when the token carries the id claim
+    public Optional<Long> currentDoctorId(String token) {
+        AuthPrincipal principal = AuthPrincipal.forToken(token);
+        if (principal != null && principal.getAccountId() != null && "doctor".equals(principal.getRole())) {
+            return Optional.of(principal.getAccountId());
+        }
+        return currentDoctor(token).map(Doctor::getId);
+    }
+
+    // Forget cached verifications for an account that was updated
+    public void invalidateSubject(String subject) {
+        tokenCache.invalidateSubject(subject);
+    }
+
+    // Reject all tokens already issued to an account that was deleted or changed credentials
+    public void revokeSubject(String subject) {
+        denyList.revoke(subject);
+        tokenCache.invalidateSubject(subject);
+    }
+
+    public VerifiedTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    // Tokens issued before role claims existed still carry only the subject, so check the account table
+    private boolean resolveLegacyAccount(AuthPrincipal principal, String role) {
+        Object account = switch (role) {
+            case "admin" -> adminRepository.findByUsername(principal.getSubject());
+            case "doctor" -> doctorRepository.findByEmail(principal.getSubject()).orElse(null);
+            case "patient" -> patientRepository.findByEmail(principal.getSubject());
+            default -> null;
+        };
+        if (account == null)
+            return false;
+
+        principal.setRole(role);
+        principal.setAccount(account);
+        return true;
+    }
+
+    private Claims parseClaims(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (Exception e) {
+            return null;
+        }
+    }
 }
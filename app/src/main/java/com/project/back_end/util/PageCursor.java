@@ -0,0 +1,72 @@
+package com.project.back_end.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a keyset page: (appointmentTime, id) for time-ordered lists,
+ * id alone for id-ordered ones. Clients only ever see the opaque encoded form.
+ */
+public record PageCursor(LocalDateTime time, long id) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Lower bound for time-ordered lists when no cursor was sent
+    public static final LocalDateTime ORIGIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public static PageCursor start() {
+        return new PageCursor(ORIGIN, 0);
+    }
+
+    public static PageCursor after(LocalDateTime time, Long id) {
+        return new PageCursor(time, id);
+    }
+
+    public static PageCursor afterId(Long id) {
+        return new PageCursor(null, id);
+    }
+
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return start();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String time = raw.substring(0, separator);
+            long id = Long.parseLong(raw.substring(separator + 1));
+            // Ids are never negative, so this one was not produced by encode
+            if (id < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new PageCursor(time.isEmpty() ? null : LocalDateTime.parse(time), id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = (time == null ? "" : time.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime timeOr(LocalDateTime fallback) {
+        return time == null ? fallback : time;
+    }
+
+    public static class InvalidCursorException extends IllegalArgumentException {
+        public InvalidCursorException(String cursor) {
+            super("Invalid page cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.project.back_end.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks picked by key hash, so contention is per key without a lock object per key.
+ * Uses {@link ReentrantLock} rather than monitors so virtual threads are not pinned while waiting.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock get(Object key) {
+        return locks[stripe(key)];
+    }
+
+    // The distinct locks covering keys, in stripe order; taking them in this order cannot deadlock
+    // against another caller doing the same
+    public List<Lock> getAll(Collection<?> keys) {
+        return keys.stream().map(this::stripe).distinct().sorted().map(i -> (Lock) locks[i]).toList();
+    }
+
+    private int stripe(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (locks.length - 1);
+    }
+}
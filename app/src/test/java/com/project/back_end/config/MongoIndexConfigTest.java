@@ -0,0 +1,47 @@
+package com.project.back_end.config;
+
+import com.project.back_end.models.Prescription;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The unique appointmentId index is created while the context starts, and a failure to create
+ * it stops startup instead of leaving the store open to duplicate prescriptions.
+ */
+class MongoIndexConfigTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final IndexOperations indexOps = mock(IndexOperations.class);
+    private final MongoIndexConfig config = new MongoIndexConfig(mongoTemplate, new MongoMappingContext());
+
+    MongoIndexConfigTest() {
+        when(mongoTemplate.indexOps(Prescription.class)).thenReturn(indexOps);
+    }
+
+    @Test
+    void createsTheUniqueAppointmentIndex() {
+        config.afterSingletonsInstantiated();
+
+        ArgumentCaptor<IndexDefinition> index = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOps).ensureIndex(index.capture());
+        assertEquals("uk_prescription_appointment", index.getValue().getIndexOptions().get("name"));
+        assertEquals(true, index.getValue().getIndexOptions().get("unique"));
+    }
+
+    @Test
+    void failingToCreateTheIndexFailsStartup() {
+        when(indexOps.ensureIndex(any())).thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, config::afterSingletonsInstantiated);
+        assertInstanceOf(DuplicateKeyException.class, e.getCause());
+    }
+}
@@ -0,0 +1,179 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentHistory.Source;
+import com.project.back_end.services.AppointmentArchiver;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Past appointments move to the archive in batches and the hot table keeps only the horizon;
+ * range reads go to whichever table can hold the range, and keyset pages across both stay
+ * complete and in order even when rows move between two pages.
+ */
+@DataJpaTest
+@Import({AppointmentArchiver.class, AppointmentHistory.class})
+@TestPropertySource(properties = {"appointment.archive.horizon-days=365", "appointment.archive.batch-size=40"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AppointmentArchiveTest {
+
+    private static final int OLD = 150;
+    private static final int RECENT = 20;
+
+    @Autowired
+    private AppointmentArchiver appointmentArchiver;
+
+    @Autowired
+    private AppointmentHistory appointmentHistory;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ArchivedAppointmentRepository archivedAppointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Doctor doctor;
+    private Patient patient;
+    private final LocalDateTime oldStart = LocalDate.now().minusYears(2).atTime(9, 0);
+    private final LocalDateTime recentStart = LocalDate.now().minusDays(30).atTime(9, 0);
+
+    @BeforeEach
+    void setUp() {
+        Patient p = new Patient();
+        p.setName("Archive Patient");
+        p.setEmail("archive.patient@example.com");
+        p.setPassword("secret1");
+        p.setPhone("5550009999");
+        p.setAddress("Main Street 4");
+        patient = patientRepository.save(p);
+        doctor = doctorRepository.save(new Doctor(null, "Dr archive", "Cardiology", "archive@example.com", "secret1",
+                "5550001010", new ArrayList<>(List.of(LocalTime.of(9, 0)))));
+
+        // Two years back a visit every day, then a recent month of visits and a few upcoming ones
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < OLD; i++) {
+            rows.add(new Object[]{3_000_000L + i, oldStart.plusDays(i), 1});
+        }
+        for (int i = 0; i < RECENT; i++) {
+            rows.add(new Object[]{4_000_000L + i, recentStart.plusDays(i), 1});
+        }
+        for (int i = 0; i < 5; i++) {
+            rows.add(new Object[]{5_000_000L + i, LocalDate.now().plusDays(i + 1).atTime(9, 0), 0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO appointment (id, appointment_time, status, duration_minutes, doctor_id, patient_id) "
+                + "VALUES (?, ?, ?, 60, " + doctor.getId() + ", " + patient.getId() + ")", rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentHistory.markArchivedThrough(null);
+        archivedAppointmentRepository.deleteAllInBatch();
+        appointmentRepository.deleteAllInBatch();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void oldAppointmentsMoveAndTheHotTableKeepsTheHorizon() {
+        assertEquals(OLD, appointmentArchiver.archive());
+        assertEquals(0, appointmentArchiver.archive(), "nothing is left behind the cutoff");
+
+        assertEquals(RECENT + 5, appointmentRepository.count());
+        assertEquals(OLD, archivedAppointmentRepository.count());
+        assertTrue(archivedAppointmentRepository.existsById(3_000_000L), "ids are kept");
+        assertTrue(appointmentRepository.findIdsBefore(appointmentHistory.cutoff(), PageRequest.of(0, 1)).isEmpty());
+        assertEquals(OLD + RECENT, appointmentHistory.findByPatientIdAndStatus(patient.getId(), 1).size());
+    }
+
+    @Test
+    void rangesGoToTheTablesThatCanHoldThem() {
+        LocalDateTime oldEnd = oldStart.plusDays(OLD);
+        assertEquals(Source.BOTH, appointmentHistory.route(oldStart, oldEnd), "until a move has finished");
+        appointmentArchiver.archive();
+
+        assertEquals(Source.ARCHIVE, appointmentHistory.route(oldStart, oldEnd));
+        LocalDateTime farEnd = LocalDate.now().plusYears(1).atStartOfDay();
+        assertEquals(Source.HOT, appointmentHistory.route(recentStart, farEnd));
+        assertEquals(Source.BOTH, appointmentHistory.route(oldStart, farEnd));
+
+        Statistics statistics = statistics();
+        assertEquals(10, appointmentHistory.findDoctorPage(doctor.getId(), null, oldEnd, oldStart, 0L, 10).size());
+        assertEquals(1, statistics.getPrepareStatementCount(), "archive only");
+
+        statistics = statistics();
+        List<AppointmentDTO> recent = appointmentHistory.findDoctorPage(doctor.getId(), null, farEnd, recentStart, 0L, 10);
+        assertEquals(recentStart, recent.get(0).getAppointmentTime());
+        assertEquals(1, statistics.getPrepareStatementCount(), "hot only");
+
+        statistics = statistics();
+        List<AppointmentDTO> spanning = appointmentHistory.findDoctorPage(doctor.getId(), null, farEnd,
+                oldStart.plusDays(OLD - 2), 0L, 4);
+        assertEquals(List.of(3_000_000L + OLD - 2, 3_000_000L + OLD - 1, 4_000_000L, 4_000_001L),
+                spanning.stream().map(AppointmentDTO::getId).toList());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void patientPagesStayCompleteWhileRowsMove() {
+        List<Long> seen = new ArrayList<>();
+        LocalDateTime afterTime = LocalDateTime.of(1970, 1, 1, 0, 0);
+        Long afterId = 0L;
+        for (int page = 0; ; page++) {
+            if (page == 3) {
+                appointmentArchiver.archive();
+            }
+            List<AppointmentDTO> rows = appointmentHistory.findPatientPage(patient.getId(), afterTime, afterId, 25);
+            if (rows.isEmpty()) break;
+            rows.forEach(r -> seen.add(r.getId()));
+            AppointmentDTO last = rows.get(rows.size() - 1);
+            afterTime = last.getAppointmentTime();
+            afterId = last.getId();
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < OLD; i++) expected.add(3_000_000L + i);
+        for (int i = 0; i < RECENT; i++) expected.add(4_000_000L + i);
+        for (int i = 0; i < 5; i++) expected.add(5_000_000L + i);
+        assertEquals(expected, seen);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,154 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every appointment list finder behind a patient or doctor endpoint must answer in a single
+ * statement, however many rows come back. The same holds for the bulk lookups behind the
+ * multi-doctor availability range.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AppointmentRepositoryStatementCountTest {
+
+    private static final int DOCTORS = 3;
+    private static final int PATIENTS = 4;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Doctor> doctors = new ArrayList<>();
+    private final List<Patient> patients = new ArrayList<>();
+    private LocalDateTime firstSlot;
+
+    @BeforeEach
+    void setUp() {
+        firstSlot = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        for (int i = 0; i < DOCTORS; i++) {
+            Doctor doctor = new Doctor(null, "Dr Smith " + i, "Cardiology", "doctor" + i + "@example.com", "secret1",
+                    "55500000" + i + "0", new ArrayList<>(List.of(LocalTime.of(9, 0), LocalTime.of(10, 0))));
+            entityManager.persist(doctor);
+            doctors.add(doctor);
+        }
+        for (int i = 0; i < PATIENTS; i++) {
+            Patient patient = new Patient(null, "Patient " + i, "patient" + i + "@example.com", "secret1",
+                    "44400000" + i + "0", "Street " + i);
+            entityManager.persist(patient);
+            patients.add(patient);
+        }
+        // Each patient sees every doctor, each doctor sees every patient: rows span several associations
+        for (int d = 0; d < DOCTORS; d++) {
+            for (int p = 0; p < PATIENTS; p++) {
+                entityManager.persist(new Appointment(null, doctors.get(d), patients.get(p),
+                        firstSlot.plusDays(p).plusHours(d), p % 2));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void patientPageUsesOneStatement() {
+        Long patientId = patients.get(0).getId();
+        List<AppointmentDTO> rows = assertSingleStatement(() -> appointmentRepository.findPatientPage(patientId,
+                LocalDateTime.of(1970, 1, 1, 0, 0), 0L, PageRequest.of(0, 10)));
+        assertEquals(DOCTORS, rows.size());
+        assertEquals("Patient 0", rows.get(0).getPatientName());
+        assertEquals("Dr Smith 0", rows.get(0).getDoctorName());
+    }
+
+    @Test
+    void doctorPageUsesOneStatement() {
+        Long doctorId = doctors.get(1).getId();
+        List<AppointmentDTO> rows = assertSingleStatement(() -> appointmentRepository.findDoctorPage(doctorId, null,
+                firstSlot.plusDays(PATIENTS + 1), firstSlot.minusDays(1), 0L, PageRequest.of(0, 10)));
+        assertEquals(PATIENTS, rows.size());
+        assertEquals("patient0@example.com", rows.get(0).getPatientEmail());
+        assertEquals(doctorId, rows.get(0).getDoctorId());
+    }
+
+    @Test
+    void doctorPageWithNameFilterUsesOneStatement() {
+        Long doctorId = doctors.get(0).getId();
+        List<AppointmentDTO> rows = assertSingleStatement(() -> appointmentRepository.findDoctorPage(doctorId, "patient 3",
+                firstSlot.plusDays(PATIENTS + 1), firstSlot.minusDays(1), 0L, PageRequest.of(0, 10)));
+        assertEquals(1, rows.size());
+        assertEquals("Street 3", rows.get(0).getPatientAddress());
+    }
+
+    @Test
+    void patientStatusFilterUsesOneStatement() {
+        Long patientId = patients.get(1).getId();
+        List<AppointmentDTO> rows = assertSingleStatement(() ->
+                appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, 1));
+        assertEquals(DOCTORS, rows.size());
+    }
+
+    @Test
+    void doctorNameFiltersUseOneStatement() {
+        Long patientId = patients.get(2).getId();
+        List<AppointmentDTO> byName = assertSingleStatement(() ->
+                appointmentRepository.filterByDoctorNameAndPatientId("Smith", patientId));
+        assertEquals(DOCTORS, byName.size());
+
+        List<AppointmentDTO> byNameAndStatus = assertSingleStatement(() ->
+                appointmentRepository.filterByDoctorNameAndPatientIdAndStatus("Smith 2", patientId, 0));
+        assertEquals(1, byNameAndStatus.size());
+        assertEquals(firstSlot.plusDays(2).plusHours(2), byNameAndStatus.get(0).getAppointmentTime());
+    }
+
+    @Test
+    void multiDoctorRangeUsesOneStatementPerTable() {
+        List<Long> doctorIds = List.of(doctors.get(0).getId(), doctors.get(2).getId(), -1L);
+
+        List<AppointmentRepository.AppointmentInterval> times = assertSingleStatement(() ->
+                appointmentRepository.findIntervalsByDoctorIds(doctorIds,
+                        firstSlot.toLocalDate().atStartOfDay(), firstSlot.plusDays(1).toLocalDate().atTime(LocalTime.MAX)));
+        assertEquals(4, times.size(), "two doctors, two days, one appointment each per day");
+
+        List<DoctorRepository.DoctorTemplate> masks = assertSingleStatement(() ->
+                doctorRepository.findTemplatesByDoctorIds(doctorIds));
+        assertEquals(2, masks.size(), "one row for each known doctor, none for the unknown id");
+        assertTrue(masks.stream().allMatch(m -> m.getSlotMask().times().equals(List.of(LocalTime.of(9, 0), LocalTime.of(10, 0)))));
+    }
+
+    private <T> List<T> assertSingleStatement(Supplier<List<T>> finder) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<T> rows = finder.get();
+        assertFalse(rows.isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount(), "statements prepared");
+        assertEquals(0, statistics.getEntityLoadCount(), "entities loaded");
+        return rows;
+    }
+}
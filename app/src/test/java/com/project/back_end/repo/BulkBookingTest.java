@@ -0,0 +1,201 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.BookingResult;
+import com.project.back_end.config.AppointmentIdSeed;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.TokenService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bulk booking against the real schema: per-item results for every kind of rejection, ids kept
+ * above rows inserted under the old auto-increment key, and the statements N appointments
+ * prepare in one bulk call against N single bookAppointment calls. Wall time is measured by
+ * BulkBookingBenchmark.
+ */
+@DataJpaTest
+@Import({AppointmentService.class, AvailabilityIndex.class, AppointmentHistory.class, AppointmentIdSeed.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class BulkBookingTest {
+
+    private static final int BOOKINGS = 60;
+    private static final List<LocalTime> HOURS = List.of(LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(11, 0),
+            LocalTime.of(12, 0), LocalTime.of(14, 0), LocalTime.of(15, 0), LocalTime.of(16, 0), LocalTime.of(17, 0));
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentIdSeed appointmentIdSeed;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private TokenService tokenService;
+
+    private Patient patient;
+    private final LocalDate firstDay = LocalDate.now().plusDays(30);
+
+    @BeforeEach
+    void setUp() {
+        Patient p = new Patient();
+        p.setName("Bulk Patient");
+        p.setEmail("bulk.patient@example.com");
+        p.setPassword("secret1");
+        p.setPhone("5550003333");
+        p.setAddress("Main Street 1");
+        patient = patientRepository.save(p);
+        when(tokenService.currentPatient(anyString())).thenReturn(patient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAllInBatch();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    @Order(1)
+    void idsContinueAboveRowsFromTheOldKey() {
+        Doctor doctor = doctor("legacy");
+        jdbcTemplate.update("INSERT INTO appointment (id, appointment_time, status, duration_minutes, doctor_id, patient_id) "
+                + "VALUES (?, ?, 0, 60, ?, ?)", 10_000L, firstDay.atTime(9, 0), doctor.getId(), patient.getId());
+
+        assertTrue(appointmentIdSeed.seed() >= 10_000 + Appointment.ID_ALLOCATION_SIZE);
+        assertTrue(appointmentIdSeed.seed() >= 10_000 + Appointment.ID_ALLOCATION_SIZE, "seeding twice changes nothing");
+
+        List<BookingResult> results = appointmentService.bookAppointments(List.of(appointment(doctor, firstDay.atTime(10, 0), 60)));
+        assertEquals(1, results.get(0).getResult());
+        assertTrue(results.get(0).getAppointmentId() > 10_000);
+    }
+
+    @Test
+    @Order(2)
+    void everyItemGetsItsOwnResult() {
+        Doctor doctor = doctor("results");
+        Doctor unknown = new Doctor();
+        unknown.setId(-1L);
+        Appointment unknownPatient = appointment(doctor, firstDay.atTime(14, 0), 60);
+        unknownPatient.getPatient().setId(-1L);
+
+        List<BookingResult> results = appointmentService.bookAppointments(List.of(
+                appointment(doctor, firstDay.atTime(9, 0), 90),
+                appointment(doctor, firstDay.atTime(10, 0), 60),
+                appointment(doctor, firstDay.atTime(13, 0), 60),
+                appointment(unknown, firstDay.atTime(9, 0), 60),
+                unknownPatient,
+                appointment(doctor, LocalDateTime.now().minusDays(1), 60),
+                appointment(doctor, firstDay.atTime(11, 0), 5),
+                appointment(doctor, firstDay.atTime(11, 0), 60)));
+
+        assertEquals(List.of(1, -1, -2, -3, -3, -4, -4, 1), results.stream().map(BookingResult::getResult).toList());
+        assertEquals("Doctor does not offer that time", results.get(2).getMessage());
+        assertEquals(2, appointmentRepository.count());
+        assertNotNull(results.get(0).getAppointmentId());
+        assertNull(results.get(1).getAppointmentId());
+
+        // A later request sees both the stored rows and the index entries they left behind
+        List<BookingResult> again = appointmentService.bookAppointments(List.of(appointment(doctor, firstDay.atTime(10, 0), 30)));
+        assertEquals(-1, again.get(0).getResult());
+        assertEquals(-1, appointmentService.bookAppointment(appointment(doctor, firstDay.atTime(11, 30), 15), "token"));
+        // A single booking for a doctor that does not exist finds no row to lock
+        assertEquals(-3, appointmentService.bookAppointment(appointment(unknown, firstDay.atTime(9, 0), 60), "token"));
+    }
+
+    @Test
+    @Order(3)
+    void oneBulkCallPreparesFewerStatementsThanSingleBookings() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<Appointment> singles = schedule(doctor("single"));
+        statistics.clear();
+        for (Appointment appointment : singles) {
+            assertEquals(1, appointmentService.bookAppointment(appointment, "token"));
+        }
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        List<Appointment> bulk = schedule(doctor("bulk"));
+        statistics.clear();
+        List<BookingResult> results = appointmentService.bookAppointments(bulk);
+        long bulkStatements = statistics.getPrepareStatementCount();
+
+        assertTrue(results.stream().allMatch(r -> r.getResult() == 1));
+        assertEquals(2L * BOOKINGS, appointmentRepository.count());
+        assertTrue(singleStatements >= BOOKINGS, "an insert per single booking, was " + singleStatements);
+        // Patients, the doctor row lock, templates, exceptions and appointments, then inserts reusing
+        // one prepared statement per batch
+        assertTrue(bulkStatements <= 5 + (BOOKINGS + Appointment.ID_ALLOCATION_SIZE - 1) / Appointment.ID_ALLOCATION_SIZE,
+                "was " + bulkStatements);
+    }
+
+    // BOOKINGS hour-long visits filling the doctor's hours day after day
+    private List<Appointment> schedule(Doctor doctor) {
+        List<Appointment> appointments = new ArrayList<>(BOOKINGS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDateTime time = firstDay.plusDays(i / HOURS.size()).atTime(HOURS.get(i % HOURS.size()));
+            appointments.add(appointment(doctor, time, 60));
+        }
+        return appointments;
+    }
+
+    private Appointment appointment(Doctor doctor, LocalDateTime time, int minutes) {
+        Doctor doctorRef = new Doctor();
+        doctorRef.setId(doctor.getId());
+        Patient patientRef = new Patient();
+        patientRef.setId(patient.getId());
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctorRef);
+        appointment.setPatient(patientRef);
+        appointment.setAppointmentTime(time);
+        appointment.setDurationMinutes(minutes);
+        return appointment;
+    }
+
+    private Doctor doctor(String name) {
+        return doctorRepository.save(new Doctor(null, "Dr " + name, "Cardiology", name + "@example.com", "secret1",
+                "5550004444", new ArrayList<>(HOURS)));
+    }
+}
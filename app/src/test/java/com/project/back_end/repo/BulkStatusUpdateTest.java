@@ -0,0 +1,152 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.BulkStatusRequest;
+import com.project.back_end.DTO.BulkStatusResult;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.TokenService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * End-of-day closing: a doctor's listed appointments, or a whole date range, change status in one
+ * ownership query and one UPDATE, and appointments of other doctors are never touched.
+ */
+@DataJpaTest
+@Import({AppointmentService.class, AvailabilityIndex.class, AppointmentHistory.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkStatusUpdateTest {
+
+    private static final int PER_DAY = 8;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private TokenService tokenService;
+
+    private final LocalDate day = LocalDate.now().plusDays(1);
+    private Doctor doctor;
+    private Doctor other;
+    private final List<Long> own = new ArrayList<>();
+    private final List<Long> others = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Patient patient = new Patient();
+        patient.setName("Status Patient");
+        patient.setEmail("status.patient@example.com");
+        patient.setPassword("secret1");
+        patient.setPhone("5550005555");
+        patient.setAddress("Main Street 2");
+        patient = patientRepository.save(patient);
+        doctor = doctorRepository.save(doctor("closing"));
+        other = doctorRepository.save(doctor("other"));
+        // A full day for each doctor, plus one appointment of the doctor the day after
+        for (int i = 0; i < PER_DAY; i++) {
+            own.add(appointmentRepository.save(new Appointment(null, doctor, patient, day.atTime(9 + i, 0), 0)).getId());
+            others.add(appointmentRepository.save(new Appointment(null, other, patient, day.atTime(9 + i, 0), 0)).getId());
+        }
+        appointmentRepository.save(new Appointment(null, doctor, patient, day.plusDays(1).atTime(9, 0), 0));
+        when(tokenService.requireDoctor(anyString())).thenReturn(doctor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAllInBatch();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void listedIdsTakeOneQueryAndOneUpdate() {
+        List<Long> requested = new ArrayList<>(own);
+        requested.add(others.get(0));
+        requested.add(-1L);
+
+        Statistics statistics = statistics();
+        BulkStatusResult result = appointmentService.changeStatuses("token", 1, new BulkStatusRequest(requested, null, null));
+
+        assertEquals(PER_DAY, result.getUpdated());
+        assertEquals(List.of(others.get(0), -1L), result.getSkipped());
+        assertEquals(2, statistics.getPrepareStatementCount(), "ownership query and update");
+        assertEquals(PER_DAY, countWithStatus(doctor, 1));
+        assertEquals(0, countWithStatus(other, 1), "another doctor's appointment is untouched");
+    }
+
+    @Test
+    void dateRangeTakesOneUpdate() {
+        Statistics statistics = statistics();
+        BulkStatusResult result = appointmentService.changeStatuses("token", 1, new BulkStatusRequest(null, day, day));
+
+        assertEquals(PER_DAY, result.getUpdated());
+        assertTrue(result.getSkipped().isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(PER_DAY, countWithStatus(doctor, 1), "the next day is outside the range");
+        assertEquals(0, countWithStatus(other, 1));
+    }
+
+    @Test
+    void rejectsAmbiguousOrOversizedRequests() {
+        assertThrows(AppointmentService.InvalidBulkRequestException.class,
+                () -> appointmentService.changeStatuses("token", 1, new BulkStatusRequest(null, null, null)));
+        assertThrows(AppointmentService.InvalidBulkRequestException.class,
+                () -> appointmentService.changeStatuses("token", 1, new BulkStatusRequest(own, day, day)));
+        assertThrows(AppointmentService.InvalidBulkRequestException.class,
+                () -> appointmentService.changeStatuses("token", 1, new BulkStatusRequest(null, day, day.minusDays(1))));
+        assertThrows(AppointmentService.InvalidBulkRequestException.class,
+                () -> appointmentService.changeStatuses("token", 1, new BulkStatusRequest(null, day, day.plusDays(31))));
+        assertEquals(0, countWithStatus(doctor, 1));
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private long countWithStatus(Doctor owner, int status) {
+        return appointmentRepository.findAll().stream()
+                .filter(a -> a.getDoctor().getId().equals(owner.getId()) && a.getStatus() == status)
+                .count();
+    }
+
+    private static Doctor doctor(String name) {
+        return new Doctor(null, "Dr " + name, "Cardiology", name + "@example.com", "secret1", "5550006666",
+                new ArrayList<>(List.of(LocalTime.of(9, 0))));
+    }
+}
@@ -0,0 +1,213 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.DeletionJob;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.ScheduleException;
+import com.project.back_end.security.AuthMetrics;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.DoctorDeletionJobs;
+import com.project.back_end.services.DoctorSearchIndex;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.EarliestSlotSearch;
+import com.project.back_end.services.PasswordService;
+import com.project.back_end.services.TokenService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deleting a doctor with a long history: the request only registers a job, the job removes the
+ * appointments in fixed-size batches and the schedule exceptions in one statement without
+ * loading a single entity, and other doctors' rows are untouched.
+ */
+@DataJpaTest
+@Import({DoctorDeletionJobs.class, DoctorService.class, AvailabilityIndex.class, DoctorDeletionJobsTest.Jobs.class})
+@TestPropertySource(properties = "doctor.delete.batch-size=" + DoctorDeletionJobsTest.BATCH)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DoctorDeletionJobsTest {
+
+    static final int BATCH = 500;
+    private static final int HISTORY = 2_300;
+    private static final int ARCHIVED = 3;
+
+    // Holds submitted jobs until the test runs them, so the request side can be observed alone
+    @TestConfiguration
+    static class Jobs {
+        @Bean
+        QueuedExecutor applicationTaskExecutor() {
+            return new QueuedExecutor();
+        }
+    }
+
+    static class QueuedExecutor implements TaskExecutor {
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void execute(Runnable task) {
+            pending.add(task);
+        }
+
+        int runAll() {
+            int ran = 0;
+            for (Runnable task; (task = pending.poll()) != null; ran++) {
+                task.run();
+            }
+            return ran;
+        }
+    }
+
+    @Autowired
+    private DoctorDeletionJobs doctorDeletionJobs;
+
+    @Autowired
+    private QueuedExecutor executor;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ArchivedAppointmentRepository archivedAppointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private TokenService tokenService;
+
+    @MockitoBean
+    private PasswordService passwordService;
+
+    @MockitoBean
+    private AuthMetrics authMetrics;
+
+    @MockitoBean
+    private DoctorSearchIndex doctorSearchIndex;
+
+    @MockitoBean
+    private EarliestSlotSearch earliestSlotSearch;
+
+    private Doctor doctor;
+    private Doctor other;
+
+    @BeforeEach
+    void setUp() {
+        Patient patient = new Patient();
+        patient.setName("History Patient");
+        patient.setEmail("history.patient@example.com");
+        patient.setPassword("secret1");
+        patient.setPhone("5550007777");
+        patient.setAddress("Main Street 3");
+        patient = patientRepository.save(patient);
+        doctor = doctorRepository.save(doctor("retiring"));
+        other = doctorRepository.save(doctor("staying"));
+
+        // Years of hourly visits, written straight to the tables, a few of them already archived
+        LocalDateTime first = LocalDate.now().minusYears(3).atTime(9, 0);
+        List<Object[]> rows = new ArrayList<>(HISTORY);
+        for (int i = 0; i < HISTORY; i++) {
+            rows.add(new Object[]{1_000_000L + i, first.plusHours(i), doctor.getId(), patient.getId()});
+        }
+        rows.add(new Object[]{2_000_000L, first, other.getId(), patient.getId()});
+        jdbcTemplate.batchUpdate("INSERT INTO appointment (id, appointment_time, status, duration_minutes, doctor_id, patient_id) "
+                + "VALUES (?, ?, 1, 60, ?, ?)", rows);
+        jdbcTemplate.batchUpdate("INSERT INTO appointment_archive (id, appointment_time, status, duration_minutes, doctor_id, patient_id) "
+                + "VALUES (?, ?, 1, 60, ?, ?)", rows.subList(0, ARCHIVED).stream()
+                .map(r -> new Object[]{(Long) r[0] - 500_000L, ((LocalDateTime) r[1]).minusYears(2), r[2], r[3]}).toList());
+
+        LocalDate holiday = LocalDate.now().plusMonths(1);
+        scheduleExceptionRepository.saveAll(List.of(
+                new ScheduleException(doctor.getId(), holiday, holiday.plusDays(6), "Vacation", List.of()),
+                new ScheduleException(doctor.getId(), holiday.plusDays(10), holiday.plusDays(10), "Clinic day",
+                        List.of(LocalTime.of(14, 0))),
+                new ScheduleException(other.getId(), holiday, holiday, "Holiday", List.of())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        archivedAppointmentRepository.deleteAllInBatch();
+        appointmentRepository.deleteAllInBatch();
+        scheduleExceptionRepository.deleteAllInBatch();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void historyIsDeletedInBatchesInTheBackground() {
+        DeletionJob job = doctorDeletionJobs.start(doctor.getId()).orElseThrow();
+
+        // Nothing has happened on the calling thread yet, and asking again joins the same job
+        assertEquals(DeletionJob.RUNNING, job.getStatus());
+        assertEquals(HISTORY + ARCHIVED, job.getTotal());
+        assertEquals(HISTORY + 1, appointmentRepository.count());
+        assertSame(job, doctorDeletionJobs.start(doctor.getId()).orElseThrow());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(1, executor.runAll());
+
+        assertEquals(DeletionJob.DONE, job.getStatus(), job.getError());
+        assertEquals(HISTORY + ARCHIVED, job.getDeleted());
+        assertEquals(0, archivedAppointmentRepository.count());
+        assertNotNull(job.getFinishedAt());
+        assertSame(job, doctorDeletionJobs.get(job.getId()).orElseThrow());
+        assertFalse(doctorRepository.existsById(doctor.getId()));
+        assertEquals(1, appointmentRepository.countByDoctorId(other.getId()));
+        assertEquals(0, statistics.getEntityStatistics(Appointment.class.getName()).getLoadCount(), "no appointment is loaded");
+        assertEquals(0, statistics.getEntityStatistics(ScheduleException.class.getName()).getLoadCount(), "no exception is loaded");
+        // An id query and a DELETE per batch, an empty id query per table, then deleteDoctor's lookups and
+        // deletes, its slot rows included
+        int batches = (HISTORY + BATCH - 1) / BATCH + 1;
+        assertTrue(statistics.getPrepareStatementCount() <= 2L * batches + 11, "was " + statistics.getPrepareStatementCount());
+        assertEquals(List.of(other.getId()), scheduleExceptionRepository.findAll().stream().map(ScheduleException::getDoctorId).toList());
+    }
+
+    @Test
+    void unknownDoctorsAndJobsAreNotFound() {
+        assertTrue(doctorDeletionJobs.start(-1L).isEmpty());
+        assertTrue(doctorDeletionJobs.get("missing").isEmpty());
+        assertEquals(0, executor.runAll());
+    }
+
+    private static Doctor doctor(String name) {
+        return new Doctor(null, "Dr " + name, "Cardiology", name + "@example.com", "secret1", "5550008888",
+                new ArrayList<>(List.of(LocalTime.of(9, 0))));
+    }
+}
@@ -0,0 +1,131 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Identity lookups are served from the natural-id and entity caches once warm, and every
+ * write path (entity update, bulk password update, delete) leaves no stale entry behind.
+ * Runs without a test transaction so each call gets its own session, as in production.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdentityCacheTest {
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+        adminRepository.deleteAll();
+    }
+
+    @Test
+    void warmLookupsSkipTheDatabase() {
+        patientRepository.save(new Patient(null, "Cache Patient", "cache.patient@example.com", "secret1",
+                "7770000001", "1 Cache Street"));
+        doctorRepository.save(doctor("cache.doctor@example.com"));
+        adminRepository.save(new Admin(null, "cache-admin", "secret1"));
+
+        assertNotNull(patientRepository.findByEmail("cache.patient@example.com"));
+        assertTrue(doctorRepository.findByEmail("cache.doctor@example.com").isPresent());
+        assertNotNull(adminRepository.findByUsername("cache-admin"));
+        Long doctorId = doctorRepository.findByEmail("cache.doctor@example.com").orElseThrow().getId();
+        availableTimes(doctorId);
+
+        statistics.clear();
+        Patient patient = patientRepository.findByEmail("cache.patient@example.com");
+        Doctor doctor = doctorRepository.findByEmail("cache.doctor@example.com").orElseThrow();
+        assertEquals(doctorId, doctor.getId());
+        Admin admin = adminRepository.findByUsername("cache-admin");
+        List<LocalTime> times = availableTimes(doctorId);
+
+        assertEquals("Cache Patient", patient.getName());
+        assertEquals("cache-admin", admin.getUsername());
+        assertEquals(2, times.size());
+        assertEquals(0, statistics.getPrepareStatementCount(), "warm identity lookups hit the cache");
+        assertEquals(3, statistics.getNaturalIdCacheHitCount());
+        assertNull(patientRepository.findByEmail("nobody@example.com"));
+    }
+
+    @Test
+    void updatesAndDeletesInvalidate() {
+        Doctor doctor = doctorRepository.save(doctor("before@example.com"));
+        doctorRepository.findByEmail("before@example.com").orElseThrow();
+
+        // Entity update: email (mutable natural id) and the slot template column
+        doctor.setEmail("after@example.com");
+        doctor.setAvailableTimes(new ArrayList<>(List.of(LocalTime.of(14, 0))));
+        doctorRepository.save(doctor);
+        assertTrue(doctorRepository.findByEmail("before@example.com").isEmpty());
+        Doctor updated = doctorRepository.findByEmail("after@example.com").orElseThrow();
+        assertEquals(List.of(LocalTime.of(14, 0)), availableTimes(updated.getId()));
+
+        // Bulk JPQL update bypasses the entity but must still evict it
+        doctorRepository.updatePassword(updated.getId(), "rehashed");
+        assertEquals("rehashed", doctorRepository.findByEmail("after@example.com").orElseThrow().getPassword());
+
+        doctorRepository.deleteById(updated.getId());
+        assertTrue(doctorRepository.findByEmail("after@example.com").isEmpty());
+        assertTrue(doctorRepository.findById(updated.getId()).isEmpty());
+    }
+
+    @Test
+    void patientUpdatesInvalidate() {
+        Patient patient = patientRepository.save(new Patient(null, "Old Name", "old.patient@example.com", "secret1",
+                "7770000002", "1 Old Street"));
+        patientRepository.findByEmail("old.patient@example.com");
+
+        patient.setName("New Name");
+        patient.setEmail("new.patient@example.com");
+        patientRepository.save(patient);
+
+        assertNull(patientRepository.findByEmail("old.patient@example.com"));
+        assertEquals("New Name", patientRepository.findByEmail("new.patient@example.com").getName());
+    }
+
+    // The slot template is a column of the cached doctor row, so no extra session or query is needed
+    private List<LocalTime> availableTimes(Long doctorId) {
+        return doctorRepository.findById(doctorId).orElseThrow().getAvailableTimes();
+    }
+
+    private static Doctor doctor(String email) {
+        return new Doctor(null, "Cache Doctor", "Cardiology", email, "secret1", "6660000001",
+                new ArrayList<>(List.of(LocalTime.of(9, 0), LocalTime.of(10, 0))));
+    }
+}
@@ -0,0 +1,195 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.CursorPage;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.security.AuthMetrics;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.DoctorSearchIndex;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.EarliestSlotSearch;
+import com.project.back_end.services.PasswordService;
+import com.project.back_end.services.PatientIdentityFilter;
+import com.project.back_end.services.PatientService;
+import com.project.back_end.services.TokenService;
+import com.project.back_end.util.PageCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * The cursor endpoints walked page by page: every row comes back exactly once in order, rows
+ * sharing a timestamp are split across a page boundary by id, and the last page has no next
+ * cursor. A tampered cursor is refused before any query runs.
+ */
+@DataJpaTest
+@Import({PatientService.class, AppointmentService.class, DoctorService.class, AvailabilityIndex.class, AppointmentHistory.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class KeysetPagingTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private TokenService tokenService;
+
+    @MockitoBean
+    private PasswordService passwordService;
+
+    @MockitoBean
+    private PatientIdentityFilter identityFilter;
+
+    @MockitoBean
+    private AuthMetrics authMetrics;
+
+    @MockitoBean
+    private DoctorSearchIndex doctorSearchIndex;
+
+    @MockitoBean
+    private EarliestSlotSearch earliestSlotSearch;
+
+    private final List<Doctor> doctors = new ArrayList<>();
+    private final LocalDateTime noon = LocalDate.now().plusDays(5).atTime(12, 0);
+
+    @BeforeEach
+    void setUp() {
+        Patient p = new Patient();
+        p.setName("Paging Patient");
+        p.setEmail("paging.patient@example.com");
+        p.setPassword("secret1");
+        p.setPhone("5550007777");
+        p.setAddress("Main Street 7");
+        Patient patient = patientRepository.save(p);
+        when(tokenService.currentPatient(anyString())).thenReturn(patient);
+
+        for (int i = 0; i < 5; i++) {
+            doctors.add(doctorRepository.save(new Doctor(null, "Dr paging " + i, "Cardiology", "paging" + i + "@example.com",
+                    "secret1", "5550008888", new ArrayList<>(List.of(LocalTime.NOON)))));
+        }
+        when(tokenService.requireDoctor(anyString())).thenReturn(doctors.get(0));
+
+        // Five visits at noon with five doctors, ids out of insertion order, then one each side
+        long[] noonIds = {9_005L, 9_001L, 9_004L, 9_002L, 9_003L};
+        for (int i = 0; i < noonIds.length; i++) {
+            insert(noonIds[i], noon, doctors.get(i), patient);
+        }
+        insert(9_010L, noon.minusHours(2), doctors.get(0), patient);
+        insert(9_000L, noon.plusHours(2), doctors.get(0), patient);
+        insert(9_020L, noon.plusHours(4), doctors.get(0), patient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAllInBatch();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void patientPagesSplitTiesByIdAndEndWithoutACursor() {
+        List<CursorPage<AppointmentDTO>> pages = walk(cursor -> patientService.getPatientAppointments("token", cursor, 3));
+
+        assertEquals(List.of(3, 3, 2), pages.stream().map(page -> page.getItems().size()).toList());
+        assertEquals(List.of(9_010L, 9_001L, 9_002L, 9_003L, 9_004L, 9_005L, 9_000L, 9_020L), ids(pages));
+        // The first boundary falls between two noon visits
+        assertEquals(PageCursor.after(noon, 9_002L), PageCursor.decode(pages.get(0).getNextCursor()));
+        assertNull(pages.get(2).getNextCursor());
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() {
+        List<CursorPage<AppointmentDTO>> pages = walk(cursor -> patientService.getPatientAppointments("token", cursor, 4));
+
+        assertEquals(List.of(4, 4), pages.stream().map(page -> page.getItems().size()).toList());
+        assertNull(pages.get(1).getNextCursor());
+    }
+
+    @Test
+    void doctorPagesStayWithinTheRange() {
+        LocalDateTime from = noon.minusHours(2);
+        LocalDateTime to = noon.plusHours(3);
+        List<CursorPage<AppointmentDTO>> pages = walk(cursor ->
+                appointmentService.getAppointments("token", from, to, null, cursor, 1));
+
+        assertEquals(List.of(9_010L, 9_005L, 9_000L), ids(pages));
+        assertNull(pages.get(pages.size() - 1).getNextCursor());
+    }
+
+    @Test
+    void doctorListPagesById() {
+        List<CursorPage<Doctor>> pages = walk(cursor -> doctorService.getDoctors(cursor, 2));
+
+        assertEquals(doctors.stream().map(Doctor::getId).sorted(Comparator.naturalOrder()).toList(),
+                pages.stream().flatMap(page -> page.getItems().stream()).map(Doctor::getId).toList());
+        assertEquals(List.of(2, 2, 1), pages.stream().map(page -> page.getItems().size()).toList());
+    }
+
+    @Test
+    void tamperedCursorsAreRefused() {
+        String next = patientService.getPatientAppointments("token", null, 3).getNextCursor();
+
+        assertThrows(PageCursor.InvalidCursorException.class,
+                () -> patientService.getPatientAppointments("token", next.substring(2), 3));
+        assertThrows(PageCursor.InvalidCursorException.class, () -> doctorService.getDoctors("%%%", 3));
+    }
+
+    private static <T> List<CursorPage<T>> walk(Function<String, CursorPage<T>> fetch) {
+        List<CursorPage<T>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<T> page = fetch.apply(cursor);
+            pages.add(page);
+            cursor = page.getNextCursor();
+            assertTrue(pages.size() <= 20, "paging does not terminate");
+        } while (cursor != null);
+        return pages;
+    }
+
+    private static List<Long> ids(List<CursorPage<AppointmentDTO>> pages) {
+        return pages.stream().flatMap(page -> page.getItems().stream()).map(AppointmentDTO::getId).toList();
+    }
+
+    private void insert(long id, LocalDateTime time, Doctor doctor, Patient patient) {
+        jdbcTemplate.update("INSERT INTO appointment (id, appointment_time, status, duration_minutes, doctor_id, patient_id) "
+                + "VALUES (?, ?, 0, 60, ?, ?)", id, time, doctor.getId(), patient.getId());
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.security.AuthMetrics;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.DoctorSearchIndex;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.EarliestSlotSearch;
+import com.project.back_end.services.PasswordService;
+import com.project.back_end.services.PatientIdentityFilter;
+import com.project.back_end.services.PatientService;
+import com.project.back_end.services.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A login that rehashes writes the password back, so it must not run in a read-only
+ * transaction: MySQL rejects the write there, while H2 accepts it. Checked through the
+ * transaction the write sees rather than through the database.
+ */
+@DataJpaTest
+@Import({DoctorService.class, PatientService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoginRehashTest {
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @MockitoBean
+    private DoctorRepository doctorRepository;
+
+    @MockitoBean
+    private PatientRepository patientRepository;
+
+    @MockitoBean
+    private PasswordService passwordService;
+
+    @MockitoBean
+    private TokenService tokenService;
+
+    @MockitoBean
+    private AuthMetrics authMetrics;
+
+    @MockitoBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockitoBean
+    private DoctorSearchIndex doctorSearchIndex;
+
+    @MockitoBean
+    private EarliestSlotSearch earliestSlotSearch;
+
+    @MockitoBean
+    private AppointmentHistory appointmentHistory;
+
+    @MockitoBean
+    private PatientIdentityFilter identityFilter;
+
+    private final List<Boolean> readOnlyWrites = new ArrayList<>();
+
+    @Test
+    void doctorRehashIsNotReadOnly() {
+        Doctor doctor = new Doctor();
+        doctor.setId(7L);
+        doctor.setPassword("plaintext");
+        when(doctorRepository.findByEmail("doctor@example.com")).thenReturn(Optional.of(doctor));
+        when(passwordService.verify("plaintext", "plaintext")).thenReturn(new PasswordService.Verification(true, "hash"));
+        when(doctorRepository.updatePassword(7L, "hash")).thenAnswer(call -> recordWrite());
+        when(tokenService.generateToken(anyString(), anyString(), anyLong())).thenReturn("token");
+
+        assertEquals("token", doctorService.validateDoctor("doctor@example.com", "plaintext"));
+        assertEquals(List.of(false), readOnlyWrites);
+    }
+
+    @Test
+    void patientRehashIsNotReadOnly() {
+        Patient patient = new Patient();
+        patient.setId(8L);
+        patient.setPassword("plaintext");
+        when(patientRepository.findByEmail("patient@example.com")).thenReturn(patient);
+        when(passwordService.verify("plaintext", "plaintext")).thenReturn(new PasswordService.Verification(true, "hash"));
+        when(patientRepository.updatePassword(8L, "hash")).thenAnswer(call -> recordWrite());
+
+        assertSame(patient, patientService.verifyPatientLogin("patient@example.com", "plaintext"));
+        assertEquals(List.of(false), readOnlyWrites);
+    }
+
+    private int recordWrite() {
+        readOnlyWrites.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+        return 1;
+    }
+}
@@ -0,0 +1,154 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.project.back_end.services.Fixtures.appointment;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two application nodes over one database, each with its own availability index and slot
+ * locks. Visits of different lengths that overlap without sharing a start are not covered by
+ * the unique key, so a node whose cached day misses the other's booking must still be refused.
+ */
+@DataJpaTest
+@Import({AppointmentService.class, AvailabilityIndex.class, AppointmentHistory.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MultiNodeBookingTest {
+
+    private static final int ROUNDS = 10;
+    private static final List<LocalTime> HOURS = List.of(LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(11, 0),
+            LocalTime.of(14, 0));
+
+    @Autowired
+    private AppointmentService nodeA;
+
+    @Autowired
+    private AvailabilityIndex indexA;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+
+    @Autowired
+    private AppointmentHistory appointmentHistory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private TokenService tokenService;
+
+    private AvailabilityIndex indexB;
+    private AppointmentService nodeB;
+    private final LocalDate day = LocalDate.now().plusDays(2);
+
+    @BeforeEach
+    void setUp() {
+        Patient p = new Patient();
+        p.setName("Node Patient");
+        p.setEmail("node.patient@example.com");
+        p.setPassword("secret1");
+        p.setPhone("5550005555");
+        p.setAddress("Main Street 1");
+        Patient patient = patientRepository.save(p);
+        when(tokenService.currentPatient(anyString())).thenReturn(patient);
+
+        indexB = new AvailabilityIndex(doctorRepository, appointmentRepository, scheduleExceptionRepository);
+        ReflectionTestUtils.setField(indexB, "windowDays", 14);
+        ReflectionTestUtils.setField(indexB, "ttlSeconds", 30L);
+        nodeB = new AppointmentService(appointmentRepository, tokenService, indexB, patientRepository, appointmentHistory,
+                doctorRepository, transactionTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAllInBatch();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void aStaleCachedDayDoesNotLetANodeDoubleBook() {
+        Long doctorId = doctor("stale").getId();
+        assertEquals(HOURS, indexA.freeSlots(doctorId, day));
+        assertEquals(HOURS, indexB.freeSlots(doctorId, day));
+
+        assertEquals(1, nodeB.bookAppointment(appointment(doctorId, day.atTime(9, 0), 90), "token"));
+        assertFalse(indexA.overlaps(doctorId, day.atTime(10, 0), day.atTime(11, 0), null), "node A has not seen it");
+
+        assertEquals(-1, nodeA.bookAppointment(appointment(doctorId, day.atTime(10, 0), 60), "token"));
+        assertTrue(indexA.overlaps(doctorId, day.atTime(10, 0), day.atTime(11, 0), null), "the refusal reloads the day");
+
+        Appointment later = appointment(doctorId, day.atTime(14, 0), 60);
+        assertEquals(1, nodeA.bookAppointment(later, "token"));
+        assertEquals(AppointmentService.SLOT_TAKEN,
+                nodeB.updateAppointment(later.getId(), appointment(doctorId, day.atTime(10, 15), 30), "token"));
+        assertEquals(2, appointmentRepository.count());
+    }
+
+    @Test
+    void overlappingBookingsRacingOnTwoNodesLeaveOne() throws Exception {
+        try (ExecutorService pool = Executors.newFixedThreadPool(2)) {
+            for (int round = 0; round < ROUNDS; round++) {
+                Long doctorId = doctor("race" + round).getId();
+                indexA.freeSlots(doctorId, day);
+                indexB.freeSlots(doctorId, day);
+
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<Integer> a = pool.submit(() -> {
+                    start.await();
+                    return nodeA.bookAppointment(appointment(doctorId, day.atTime(9, 0), 90), "token");
+                });
+                Future<Integer> b = pool.submit(() -> {
+                    start.await();
+                    return nodeB.bookAppointment(appointment(doctorId, day.atTime(10, 0), 60), "token");
+                });
+
+                List<Integer> results = new ArrayList<>(List.of(a.get(), b.get()));
+                results.sort(null);
+                assertEquals(List.of(-1, 1), results, "round " + round);
+            }
+        }
+        assertEquals(ROUNDS, appointmentRepository.count());
+    }
+
+    private Doctor doctor(String name) {
+        return doctorRepository.save(new Doctor(null, "Dr " + name, "Cardiology", name + "@example.com", "secret1",
+                "5550006666", new ArrayList<>(HOURS)));
+    }
+}
@@ -0,0 +1,186 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.config.SlotMaskMigration;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.ScheduleException;
+import com.project.back_end.models.SlotMask;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Slot templates live in fixed-width columns: the encoding round-trips, the time filter looks up
+ * the doctor_slot rows kept in step with the mask, the startup migration fills both from the old
+ * collection table, and weekly templates and date exceptions are stored and queried alongside it.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SlotMaskStorageTest {
+
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime NINE_FORTY_FIVE = LocalTime.of(9, 45);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS doctor_available_times");
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void encodingRoundTripsInTimeOrder() {
+        SlotMask mask = SlotMask.of(List.of(TEN, NINE, LocalTime.of(23, 45), LocalTime.MIDNIGHT, NINE));
+
+        assertEquals(List.of(LocalTime.MIDNIGHT, NINE, TEN, LocalTime.of(23, 45)), mask.times());
+        // Midnight is the high bit of the first digit, 09:00 (slot 36) of digit 9, 23:45 the last bit
+        assertEquals("800000000880000000000001", mask.encode());
+        assertEquals(mask, SlotMask.decode(mask.encode()));
+        assertEquals(SlotMask.EMPTY, SlotMask.decode("0".repeat(SlotMask.ENCODED_LENGTH)));
+        assertThrows(IllegalArgumentException.class, () -> SlotMask.of(List.of(LocalTime.of(9, 10))));
+        assertThrows(IllegalArgumentException.class, () -> SlotMask.decode("xyz"));
+    }
+
+    @Test
+    void timeFilterLooksUpTheSlotRows() {
+        Doctor early = doctorRepository.save(doctor("early@example.com", "Cardiology", NINE, NINE_FORTY_FIVE));
+        Doctor late = doctorRepository.save(doctor("late@example.com", "Cardiology", TEN));
+        doctorRepository.save(doctor("none@example.com", "Neurology"));
+
+        assertEquals(List.of(early.getId()), ids(filter(null, NINE)));
+        assertEquals(List.of(early.getId()), ids(filter(null, NINE_FORTY_FIVE)));
+        assertEquals(List.of(late.getId()), ids(filter("Cardiology", TEN)));
+        assertEquals(3, filter(null, null).size());
+        assertTrue(filter(null, LocalTime.of(11, 0)).isEmpty());
+        assertEquals(List.of(NINE, NINE_FORTY_FIVE), doctorRepository.findById(early.getId()).orElseThrow().getAvailableTimes());
+        assertEquals(List.of(SlotMask.index(NINE), SlotMask.index(NINE_FORTY_FIVE)), slotRows(early));
+
+        // Changing the template in a transaction, as DoctorService.updateDoctor does, rewrites the rows
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                doctorRepository.findById(early.getId()).orElseThrow().setAvailableTimes(List.of(NINE_FORTY_FIVE, TEN)));
+        assertEquals(List.of(SlotMask.index(NINE_FORTY_FIVE), SlotMask.index(TEN)), slotRows(early));
+        assertTrue(filter(null, NINE).isEmpty());
+        assertEquals(List.of(early.getId(), late.getId()), ids(filter(null, TEN)));
+    }
+
+    @Test
+    void migrationCopiesTheLegacyCollectionTable() {
+        Doctor withSlots = doctorRepository.save(doctor("legacy1@example.com", "Cardiology"));
+        Doctor withoutSlots = doctorRepository.save(doctor("legacy2@example.com", "Cardiology"));
+        Doctor alreadyMigrated = doctorRepository.save(doctor("legacy3@example.com", "Cardiology", TEN));
+        jdbcTemplate.execute("CREATE TABLE doctor_available_times (doctor_id BIGINT NOT NULL, available_times TIME)");
+        jdbcTemplate.batchUpdate("INSERT INTO doctor_available_times VALUES (?, ?)", List.of(
+                new Object[]{withSlots.getId(), NINE},
+                new Object[]{withSlots.getId(), LocalTime.of(9, 10)},
+                new Object[]{withSlots.getId(), NINE_FORTY_FIVE},
+                new Object[]{alreadyMigrated.getId(), NINE}));
+        jdbcTemplate.update("UPDATE doctor SET slot_mask = NULL WHERE id IN (?, ?)", withSlots.getId(), withoutSlots.getId());
+
+        SlotMaskMigration migration = new SlotMaskMigration(jdbcTemplate);
+        ReflectionTestUtils.setField(migration, "batchSize", 1);
+        assertEquals(1, migration.migrate());
+        assertEquals(0, migration.migrate(), "a second start has nothing left to copy");
+        entityManagerFactory.getCache().evictAll();
+
+        assertEquals(List.of(NINE, NINE_FORTY_FIVE), times(withSlots), "off-grid rows are skipped");
+        assertEquals(List.of(), times(withoutSlots));
+        assertEquals(List.of(TEN), times(alreadyMigrated), "masks already set are left alone");
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM doctor_available_times", Integer.class),
+                "the old table is kept for rollback");
+        assertEquals(List.of(SlotMask.index(NINE), SlotMask.index(NINE_FORTY_FIVE)), slotRows(withSlots));
+        assertEquals(List.of(withSlots.getId()), ids(filter(null, NINE)));
+    }
+
+    @Test
+    void slotRowsAreBackfilledFromMasksWrittenWithoutThem() {
+        Doctor doctor = doctorRepository.save(doctor("backfill@example.com", "Cardiology", NINE, TEN));
+        Doctor empty = doctorRepository.save(doctor("nothing@example.com", "Cardiology"));
+        jdbcTemplate.update("DELETE FROM doctor_slot");
+
+        SlotMaskMigration migration = new SlotMaskMigration(jdbcTemplate);
+        ReflectionTestUtils.setField(migration, "batchSize", 1);
+        assertEquals(1, migration.backfillSlots(), "empty masks have no rows to fill");
+        assertEquals(0, migration.backfillSlots());
+
+        assertEquals(List.of(SlotMask.index(NINE), SlotMask.index(TEN)), slotRows(doctor));
+        assertEquals(List.of(), slotRows(empty));
+        assertEquals(List.of(doctor.getId()), ids(filter(null, TEN)));
+    }
+
+    @Test
+    void weeklyTemplatesAndExceptionsRoundTrip() {
+        Doctor doctor = doctor("weekly@example.com", "Cardiology", NINE, TEN);
+        doctor.setWeeklyTimes(Map.of(DayOfWeek.FRIDAY, List.of(NINE_FORTY_FIVE), DayOfWeek.SUNDAY, List.of()));
+        Long doctorId = doctorRepository.save(doctor).getId();
+        LocalDate start = LocalDate.of(2030, 8, 1);
+        scheduleExceptionRepository.save(new ScheduleException(doctorId, start, start.plusDays(13), "Vacation", List.of()));
+        scheduleExceptionRepository.save(new ScheduleException(doctorId, start.plusDays(20), start.plusDays(20), null, List.of(TEN)));
+        entityManagerFactory.getCache().evictAll();
+
+        DoctorRepository.DoctorTemplate template = doctorRepository.findTemplate(doctorId).orElseThrow();
+        assertEquals(List.of(NINE, TEN), template.getSlotMask().times());
+        assertEquals(List.of(NINE_FORTY_FIVE), template.getWeeklySlotMask().forDay(DayOfWeek.FRIDAY, template.getSlotMask()).times());
+        assertEquals(List.of(), template.getWeeklySlotMask().forDay(DayOfWeek.SUNDAY, template.getSlotMask()).times());
+        assertEquals(template.getSlotMask(), template.getWeeklySlotMask().forDay(DayOfWeek.MONDAY, template.getSlotMask()));
+        assertEquals(Map.of(DayOfWeek.FRIDAY, List.of(NINE_FORTY_FIVE), DayOfWeek.SUNDAY, List.of()),
+                doctorRepository.findById(doctorId).orElseThrow().getWeeklyTimes());
+
+        assertTrue(scheduleExceptionRepository.existsOverlapping(doctorId, start.plusDays(13), start.plusDays(15)));
+        assertFalse(scheduleExceptionRepository.existsOverlapping(doctorId, start.plusDays(14), start.plusDays(19)));
+        assertEquals(List.of(List.of(TEN)), scheduleExceptionRepository.findEndingOnOrAfter(List.of(doctorId), start.plusDays(14))
+                .stream().map(ScheduleException::getAvailableTimes).toList());
+        scheduleExceptionRepository.deleteAllByDoctorId(doctorId);
+    }
+
+    private List<Doctor> filter(String specialty, LocalTime time) {
+        return doctorRepository.filterDoctors(null, specialty, time == null ? null : SlotMask.index(time));
+    }
+
+    private List<Integer> slotRows(Doctor doctor) {
+        return jdbcTemplate.queryForList("SELECT slot FROM doctor_slot WHERE doctor_id = ? ORDER BY slot", Integer.class,
+                doctor.getId());
+    }
+
+    private List<LocalTime> times(Doctor doctor) {
+        return doctorRepository.findById(doctor.getId()).orElseThrow().getAvailableTimes();
+    }
+
+    private static List<Long> ids(List<Doctor> doctors) {
+        return doctors.stream().map(Doctor::getId).sorted().toList();
+    }
+
+    private static Doctor doctor(String email, String specialty, LocalTime... times) {
+        return new Doctor(null, "Slot Doctor", specialty, email, "secret1", "6660000002", new ArrayList<>(List.of(times)));
+    }
+}
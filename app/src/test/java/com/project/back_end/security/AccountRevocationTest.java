@@ -0,0 +1,86 @@
+package com.project.back_end.security;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.services.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The deny-list is in memory, so a restarted node knows nothing of earlier revocations. A token
+ * whose account is gone or now has another email is then caught when the account is resolved:
+ * the caller gets UnknownAccountException (401) and the node rejects the token from then on.
+ */
+class AccountRevocationTest {
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final TokenService tokenService = new TokenService(null, doctorRepository, null,
+            new AuthMetrics(new SimpleMeterRegistry()));
+
+    AccountRevocationTest() {
+        ReflectionTestUtils.setField(tokenService, "jwtSecret", "test-secret-key-long-enough-for-hmac-sha256");
+        ReflectionTestUtils.setField(tokenService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(tokenService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(tokenService, "denyListExpectedEntries", 100);
+        tokenService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void existingAccountResolves() {
+        String token = tokenService.generateToken("a@example.com", "doctor", 7L);
+        when(doctorRepository.findById(7L)).thenReturn(Optional.of(doctor("A@example.com")));
+
+        assertTrue(tokenService.validateToken(token, "doctor"));
+        assertEquals(7L, inRequest(token).requireDoctor(token).getId());
+        assertTrue(tokenService.validateToken(token, "doctor"));
+    }
+
+    @Test
+    void deletedAccountIsRejectedFromThenOn() {
+        String token = tokenService.generateToken("a@example.com", "doctor", 7L);
+        when(doctorRepository.findById(7L)).thenReturn(Optional.empty());
+        assertTrue(tokenService.validateToken(token, "doctor"), "nothing revoked on this node yet");
+
+        assertThrows(TokenService.UnknownAccountException.class, () -> inRequest(token).requireDoctor(token));
+        assertFalse(tokenService.validateToken(token, "doctor"));
+    }
+
+    @Test
+    void tokenForAPreviousEmailIsRejected() {
+        String token = tokenService.generateToken("a@example.com", "doctor", 7L);
+        when(doctorRepository.findById(7L)).thenReturn(Optional.of(doctor("renamed@example.com")));
+
+        assertThrows(TokenService.UnknownAccountException.class, () -> inRequest(token).requireDoctor(token));
+        assertFalse(tokenService.validateToken(token, "doctor"));
+    }
+
+    // Publishes the principal the way TokenAuthenticationFilter does
+    private TokenService inRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(AuthPrincipal.REQUEST_ATTRIBUTE, tokenService.authenticate(token));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return tokenService;
+    }
+
+    private static Doctor doctor(String email) {
+        Doctor doctor = new Doctor();
+        doctor.setId(7L);
+        doctor.setEmail(email);
+        return doctor;
+    }
+}
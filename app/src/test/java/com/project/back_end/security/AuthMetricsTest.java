@@ -0,0 +1,56 @@
+package com.project.back_end.security;
+
+import com.project.back_end.services.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Token validations and logins land in per-role success/failure counters.
+ */
+class AuthMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthMetrics metrics = new AuthMetrics(registry);
+
+    @Test
+    void tokenValidationsAreCountedByRoleAndOutcome() {
+        TokenService tokenService = new TokenService(null, null, null, metrics);
+        ReflectionTestUtils.setField(tokenService, "jwtSecret", "test-secret-key-long-enough-for-hmac-sha256");
+        ReflectionTestUtils.setField(tokenService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(tokenService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(tokenService, "denyListExpectedEntries", 100);
+        tokenService.init();
+        String token = tokenService.generateToken("doctor@example.com", "doctor", 7L);
+
+        assertTrue(tokenService.validateToken(token, "doctor"));
+        assertTrue(tokenService.validateToken(token, "DOCTOR"));
+        assertFalse(tokenService.validateToken(token, "admin"));
+        assertFalse(tokenService.validateToken("not-a-token", "patient"));
+        assertFalse(tokenService.validateToken(token, "nurse"));
+
+        assertEquals(2, count("auth.token.validations", "doctor", "success"));
+        assertEquals(1, count("auth.token.validations", "admin", "failure"));
+        assertEquals(1, count("auth.token.validations", "patient", "failure"));
+        assertEquals(1, count("auth.token.validations", "other", "failure"));
+    }
+
+    @Test
+    void loginsAreCountedByRoleAndOutcome() {
+        metrics.login("admin", true);
+        metrics.login("patient", false);
+        metrics.login("patient", false);
+        metrics.login(null, false);
+
+        assertEquals(1, count("auth.logins", "admin", "success"));
+        assertEquals(2, count("auth.logins", "patient", "failure"));
+        assertEquals(0, count("auth.logins", "doctor", "success"));
+        assertEquals(1, count("auth.logins", "other", "failure"));
+    }
+
+    private double count(String name, String role, String outcome) {
+        return registry.get(name).tag("role", role).tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,42 @@
+package com.project.back_end.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A revocation rejects the subject's tokens issued up to the revocation second and nothing
+ * issued later or to other subjects.
+ */
+class TokenDenyListTest {
+
+    @Test
+    void revocationRejectsTokensIssuedUpToItsSecond() {
+        TokenDenyList denyList = new TokenDenyList(100, 60_000);
+        long before = System.currentTimeMillis() - 5_000;
+        // Read before revoking so a second boundary in between cannot move it past the revocation
+        long revokedSecond = System.currentTimeMillis() / 1000 * 1000;
+        denyList.revoke("doctor@example.com");
+
+        assertTrue(denyList.isRevoked("doctor@example.com", before));
+        assertTrue(denyList.isRevoked("doctor@example.com", revokedSecond), "iat has second precision");
+        assertFalse(denyList.isRevoked("doctor@example.com", revokedSecond + 2_000), "a later login is accepted");
+        assertFalse(denyList.isRevoked("other@example.com", before));
+        assertFalse(denyList.isRevoked(null, before));
+    }
+
+    @Test
+    void growsPastItsExpectedSize() {
+        TokenDenyList denyList = new TokenDenyList(4, 60_000);
+        long issued = System.currentTimeMillis() - 1_000;
+        for (int i = 0; i < 50; i++) {
+            denyList.revoke("user" + i + "@example.com");
+        }
+        denyList.revoke(null);
+
+        assertEquals(50, denyList.size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(denyList.isRevoked("user" + i + "@example.com", issued));
+        }
+    }
+}
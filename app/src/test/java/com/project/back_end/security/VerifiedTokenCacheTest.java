@@ -0,0 +1,80 @@
+package com.project.back_end.security;
+
+import com.project.back_end.security.VerifiedTokenCache.VerifiedToken;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verified tokens are served until their exp claim, only for the role they were checked for,
+ * and dropped per subject or when the cache fills up.
+ */
+class VerifiedTokenCacheTest {
+
+    private final long now = System.currentTimeMillis();
+
+    @Test
+    void entriesAreServedForTheirRoleUntilExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("live", token("a@example.com", "doctor", now + 60_000));
+        cache.put("expired", token("a@example.com", "doctor", now - 1));
+
+        assertNotNull(cache.get("live", "doctor"));
+        assertNull(cache.get("live", "admin"), "verified for another role");
+        assertNull(cache.get("expired", "doctor"), "expired tokens are never stored");
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void expiredEntriesAreEvictedOnRead() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("short", token("a@example.com", "doctor", System.currentTimeMillis() + 20));
+        Thread.sleep(40);
+
+        assertNull(cache.peek("short"));
+        assertNull(cache.get("short", "doctor"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void fullCacheShedsExpiredEntriesFirst() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("short", token("a@example.com", "doctor", System.currentTimeMillis() + 20));
+        for (int i = 0; i < 9; i++) {
+            cache.put("t" + i, token("b@example.com", "doctor", now + 60_000));
+        }
+        Thread.sleep(40);
+
+        cache.put("new", token("c@example.com", "doctor", now + 60_000));
+        assertNull(cache.peek("short"));
+        assertNotNull(cache.peek("new"));
+        assertEquals(10, cache.size());
+
+        for (int i = 0; i < 5; i++) {
+            cache.put("more" + i, token("c@example.com", "doctor", now + 60_000));
+        }
+        assertTrue(cache.size() <= 10, "was " + cache.size());
+    }
+
+    @Test
+    void invalidateSubjectDropsOnlyThatSubject() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("a1", token("a@example.com", "doctor", now + 60_000));
+        cache.put("a2", token("a@example.com", "patient", now + 60_000));
+        cache.put("b1", token("b@example.com", "doctor", now + 60_000));
+
+        cache.invalidateSubject("a@example.com");
+        cache.invalidateSubject(null);
+
+        assertNull(cache.peek("a1"));
+        assertNull(cache.peek("a2"));
+        assertNotNull(cache.peek("b1"));
+    }
+
+    private VerifiedToken token(String subject, String role, long expiresAt) {
+        return new VerifiedToken(subject, role, 1L, now - 1_000, expiresAt);
+    }
+}
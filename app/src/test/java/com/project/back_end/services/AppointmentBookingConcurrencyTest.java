@@ -0,0 +1,164 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.project.back_end.services.Fixtures.appointment;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Many patients racing for the same slots: every slot must end up with exactly one booking
+ * and every loser must get the conflict result, with overlap checks answered by the real
+ * availability index. Only a violation of the slot key counts as a conflict.
+ */
+class AppointmentBookingConcurrencyTest {
+
+    private static final int DOCTORS = 32;
+    private static final int SLOTS_PER_DOCTOR = 8;
+    private static final int CONTENDERS_PER_SLOT = 4;
+    private static final long STORE_LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    // Stands in for the appointment table, including its (doctor_id, appointment_time) unique key
+    private final Map<String, Appointment> table = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @Test
+    void everySlotIsBookedExactlyOnceAtAnyConcurrency() throws Exception {
+        for (int clients = 1; clients <= 256; clients *= 2) {
+            table.clear();
+            AppointmentService service = newService();
+            Result result = run(service, clients);
+
+            int slots = DOCTORS * SLOTS_PER_DOCTOR;
+            assertEquals(slots, result.booked(), "one winner per slot at " + clients + " clients");
+            assertEquals(slots * (CONTENDERS_PER_SLOT - 1), result.conflicts(), "losers get -1 at " + clients + " clients");
+            assertEquals(slots, table.size());
+        }
+    }
+
+    @Test
+    void otherConstraintViolationsAreNotConflicts() {
+        assertEquals(-1, AppointmentService.violation(violation("PUBLIC.UK_APPOINTMENT_DOCTOR_TIME_INDEX_9", "23505", 23505)));
+        assertEquals(-1, AppointmentService.violation(violation("appointment.uk_appointment_doctor_time", "23000", 1062)));
+        assertEquals(-3, AppointmentService.violation(violation("FKOQ3Y8JX6W6VHRY0TPB2K0P8HY", "23506", 23506)), "H2 foreign key");
+        assertEquals(-3, AppointmentService.violation(violation("appointment_doctor_id_fkey", "23503", 0)));
+        assertEquals(-3, AppointmentService.violation(violation(null, "23000", 1452)), "MySQL foreign key");
+        assertEquals(-4, AppointmentService.violation(violation(null, "23000", 1048)), "MySQL NOT NULL");
+        assertEquals(-4, AppointmentService.violation(violation("CHK_DURATION", "23513", 23513)));
+
+        AppointmentService service = newService();
+        AppointmentRepository repository = (AppointmentRepository) ReflectionTestUtils.getField(service, "appointmentRepository");
+        when(repository.saveAndFlush(any(Appointment.class))).thenThrow(violation(null, "23000", 1452));
+        assertEquals(-3, service.bookAppointment(appointment(99L, LocalDate.now().plusDays(1).atTime(9, 0)), "token"));
+    }
+
+    private static DataIntegrityViolationException violation(String constraint, String sqlState, int errorCode) {
+        SQLException sql = new SQLException("constraint violated", sqlState, errorCode);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, constraint));
+    }
+
+    private record Result(int booked, int conflicts) {
+    }
+
+    private Result run(AppointmentService service, int clients) throws Exception {
+        LocalDateTime day = LocalDate.now().plusDays(1).atTime(9, 0);
+        List<Appointment> attempts = new ArrayList<>();
+        for (int contender = 0; contender < CONTENDERS_PER_SLOT; contender++) {
+            for (long doctor = 1; doctor <= DOCTORS; doctor++) {
+                for (int slot = 0; slot < SLOTS_PER_DOCTOR; slot++) {
+                    attempts.add(appointment(doctor, day.plusHours(slot)));
+                }
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Integer>> outcomes = new ArrayList<>();
+            for (Appointment attempt : attempts) {
+                outcomes.add(pool.submit(() -> service.bookAppointment(attempt, "token")));
+            }
+            int booked = 0;
+            int conflicts = 0;
+            for (Future<Integer> outcome : outcomes) {
+                int code = outcome.get();
+                if (code == 1) booked++;
+                else if (code == -1) conflicts++;
+                else fail("unexpected booking result " + code);
+            }
+            return new Result(booked, conflicts);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private AppointmentService newService() {
+        AppointmentRepository repository = mock(AppointmentRepository.class);
+        when(repository.findIntervals(anyLong(), any(), any())).thenAnswer(call -> {
+            LockSupport.parkNanos(STORE_LATENCY_NANOS);
+            Long doctorId = call.getArgument(0);
+            LocalDateTime from = call.getArgument(1);
+            LocalDateTime to = call.getArgument(2);
+            return table.values().stream().filter(a -> a.getDoctor().getId().equals(doctorId)
+                    && !a.getAppointmentTime().isBefore(from) && a.getAppointmentTime().isBefore(to))
+                    .map(Fixtures::interval).toList();
+        });
+        when(repository.saveAndFlush(any(Appointment.class))).thenAnswer(call -> {
+            LockSupport.parkNanos(STORE_LATENCY_NANOS);
+            Appointment appointment = call.getArgument(0);
+            String key = appointment.getDoctor().getId() + "|" + appointment.getAppointmentTime();
+            if (table.putIfAbsent(key, appointment) != null) {
+                throw new DataIntegrityViolationException("Duplicate entry for uk_appointment_doctor_time");
+            }
+            appointment.setId(ids.incrementAndGet());
+            return appointment;
+        });
+        // Overlap checks look only at appointments; the template is needed to keep a day cached
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        DoctorTemplate template = mock(DoctorTemplate.class);
+        when(template.getSlotMask()).thenReturn(SlotMask.of(List.of(LocalTime.of(9, 0))));
+        when(doctorRepository.findTemplate(anyLong())).thenReturn(Optional.of(template));
+        when(doctorRepository.lockByIds(any())).thenAnswer(call -> List.copyOf(call.<List<Long>>getArgument(0)));
+        AvailabilityIndex index = new AvailabilityIndex(doctorRepository, repository, mock(ScheduleExceptionRepository.class));
+        ReflectionTestUtils.setField(index, "windowDays", 14);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 30L);
+
+        TokenService tokenService = mock(TokenService.class);
+        Patient patient = new Patient();
+        patient.setId(1L);
+        when(tokenService.currentPatient(anyString())).thenReturn(patient);
+
+        return new AppointmentService(repository, tokenService, index, mock(PatientRepository.class), null,
+                doctorRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+}
@@ -0,0 +1,143 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.FreeGap;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.project.back_end.services.Fixtures.appointment;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Appointments of any length: overlap checks and free gaps come from the per-day interval
+ * index, honour visits that cross midnight, and follow bookings without going back to the
+ * database.
+ */
+class AppointmentIntervalIndexTest {
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository,
+            mock(ScheduleExceptionRepository.class));
+    private final List<Appointment> table = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final LocalDate day = LocalDate.now().plusDays(2);
+
+    AppointmentIntervalIndexTest() {
+        ReflectionTestUtils.setField(index, "windowDays", 14);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 30L);
+        // 08:00 to 12:00 every quarter hour
+        List<LocalTime> morning = new ArrayList<>();
+        for (LocalTime time = LocalTime.of(8, 0); time.isBefore(LocalTime.NOON); time = time.plusMinutes(SlotMask.SLOT_MINUTES)) {
+            morning.add(time);
+        }
+        DoctorTemplate template = mock(DoctorTemplate.class);
+        when(template.getSlotMask()).thenReturn(SlotMask.of(morning));
+        when(doctorRepository.findTemplate(1L)).thenReturn(Optional.of(template));
+        when(appointmentRepository.findIntervals(anyLong(), any(), any())).thenAnswer(call -> {
+            LocalDateTime from = call.getArgument(1);
+            LocalDateTime to = call.getArgument(2);
+            return table.stream().filter(a -> !a.getAppointmentTime().isBefore(from) && a.getAppointmentTime().isBefore(to))
+                    .map(Fixtures::interval).toList();
+        });
+    }
+
+    @Test
+    void overlapsFollowDurationsAcrossMidnight() {
+        Long nineOClock = store(day.atTime(9, 0), 90);
+        store(day.minusDays(1).atTime(23, 30), 60);
+
+        assertTrue(index.overlaps(1L, day.atTime(10, 0), day.atTime(10, 15), null));
+        assertFalse(index.overlaps(1L, day.atTime(10, 30), day.atTime(11, 0), null), "the 90 minutes end at 10:30");
+        assertFalse(index.overlaps(1L, day.atTime(8, 0), day.atTime(9, 0), null), "intervals are half-open");
+        assertFalse(index.overlaps(1L, day.atTime(9, 30), day.atTime(10, 0), nineOClock), "rescheduling skips itself");
+        assertTrue(index.overlaps(1L, day.atTime(0, 15), day.atTime(0, 45), null), "the late visit runs into the day");
+        assertTrue(index.overlaps(1L, day.minusDays(1).atTime(22, 0), day.atTime(0, 30), null), "checks span both days");
+    }
+
+    @Test
+    void gapsAreRunsOfFreeSlotsLongEnough() {
+        store(day.atTime(9, 0), 90);
+
+        assertEquals(List.of(new FreeGap(day.atTime(8, 0), day.atTime(9, 0), 60),
+                new FreeGap(day.atTime(10, 30), day.atTime(12, 0), 90)), index.freeGaps(1L, day, 15));
+        assertEquals(List.of(new FreeGap(day.atTime(10, 30), day.atTime(12, 0), 90)), index.freeGaps(1L, day, 75));
+        assertEquals(List.of(), index.freeGaps(1L, day, 120));
+        assertFalse(index.freeSlots(1L, day).contains(LocalTime.of(10, 15)));
+        assertTrue(index.freeSlots(1L, day).contains(LocalTime.of(10, 30)));
+    }
+
+    @Test
+    void cachedDaysFollowBookingsWithoutQueries() {
+        index.freeGaps(1L, day, 15);
+        index.freeGaps(1L, day.plusDays(1), 15);
+        clearInvocations(appointmentRepository, doctorRepository);
+
+        index.markBooked(1L, 5L, day.atTime(10, 0), 45);
+        assertTrue(index.overlaps(1L, day.atTime(10, 30), day.atTime(11, 30), null));
+        assertEquals(List.of(new FreeGap(day.atTime(8, 0), day.atTime(10, 0), 120),
+                new FreeGap(day.atTime(10, 45), day.atTime(12, 0), 75)), index.freeGaps(1L, day, 15));
+
+        // An evening visit running past midnight is filed under both days
+        index.markBooked(1L, 6L, day.atTime(23, 0), 600);
+        assertEquals(List.of(new FreeGap(day.plusDays(1).atTime(9, 0), day.plusDays(1).atTime(12, 0), 180)),
+                index.freeGaps(1L, day.plusDays(1), 15));
+
+        index.markFree(1L, 5L, day.atTime(10, 0), 45);
+        index.markFree(1L, 6L, day.atTime(23, 0), 600);
+        assertFalse(index.overlaps(1L, day.atTime(10, 0), day.atTime(12, 0), null));
+        assertEquals(1, index.freeGaps(1L, day.plusDays(1), 240).size());
+        verifyNoInteractions(appointmentRepository, doctorRepository);
+    }
+
+    @Test
+    void bookingRejectsAnyOverlapAndAcceptsBackToBack() {
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(call -> {
+            Appointment appointment = call.getArgument(0);
+            appointment.setId(ids.incrementAndGet());
+            table.add(appointment);
+            return appointment;
+        });
+        TokenService tokenService = mock(TokenService.class);
+        when(tokenService.currentPatient(anyString())).thenReturn(new Patient());
+        when(doctorRepository.lockByIds(any())).thenReturn(List.of(1L));
+        AppointmentService service = new AppointmentService(appointmentRepository, tokenService, index, mock(PatientRepository.class),
+                null, doctorRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        assertEquals(1, service.bookAppointment(appointment(1L, day.atTime(9, 0), 90), "token"));
+        assertEquals(-1, service.bookAppointment(appointment(1L, day.atTime(10, 15), 15), "token"));
+        assertEquals(-1, service.bookAppointment(appointment(1L, day.atTime(8, 30), 45), "token"));
+        assertEquals(1, service.bookAppointment(appointment(1L, day.atTime(10, 30), 15), "token"));
+        assertEquals(1, service.bookAppointment(appointment(1L, day.atTime(8, 0), 60), "token"));
+        // The day is loaded once; rejections come from the index, and each of the three bookings
+        // it accepts is confirmed against the database under the doctor's row lock
+        verify(appointmentRepository, times(4)).findIntervals(eq(1L), any(), any());
+        verify(doctorRepository, times(3)).lockByIds(List.of(1L));
+    }
+
+    private Long store(LocalDateTime time, int minutes) {
+        Appointment appointment = appointment(1L, time, minutes);
+        appointment.setId(ids.incrementAndGet());
+        table.add(appointment);
+        return appointment.getId();
+    }
+}
@@ -0,0 +1,91 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Slot validation answers from the availability index once the doctor is known to exist, and
+ * doctor filtering is one repository query with blank filters dropped and the time turned into
+ * a slot index.
+ */
+class AppointmentValidationTest {
+
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository,
+            mock(ScheduleExceptionRepository.class));
+    private final DoctorService doctorService = new DoctorService(doctorRepository, appointmentRepository, null, index,
+            null, null, null, null, null, null);
+    private final Service service = new Service(null, null, null, doctorService, null, null, null, null);
+    private final LocalDate day = LocalDate.now().plusDays(3);
+
+    AppointmentValidationTest() {
+        ReflectionTestUtils.setField(index, "windowDays", 14);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 30L);
+        DoctorTemplate template = mock(DoctorTemplate.class);
+        when(template.getSlotMask()).thenReturn(SlotMask.of(List.of(NINE, TEN)));
+        when(doctorRepository.findTemplate(1L)).thenReturn(Optional.of(template));
+        when(doctorRepository.existsById(1L)).thenReturn(true);
+        AppointmentInterval booked = mock(AppointmentInterval.class);
+        when(booked.getId()).thenReturn(5L);
+        when(booked.getAppointmentTime()).thenReturn(day.atTime(TEN));
+        when(booked.getDurationMinutes()).thenReturn(60);
+        when(appointmentRepository.findIntervals(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(booked));
+    }
+
+    @Test
+    void validationReportsFreeTakenAndUnknownDoctors() {
+        assertEquals(1, service.validateAppointment(1L, day, NINE));
+        assertEquals(0, service.validateAppointment(1L, day, TEN), "booked");
+        assertEquals(0, service.validateAppointment(1L, day, LocalTime.of(9, 30)), "not offered");
+        assertEquals(-1, service.validateAppointment(2L, day, NINE));
+        assertEquals(-1, service.validateAppointment(null, day, NINE));
+
+        verify(doctorRepository, never()).findTemplate(2L);
+        verify(appointmentRepository, times(1)).findIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    void validationFailuresAreNotAvailable() {
+        when(doctorRepository.existsById(3L)).thenReturn(true);
+        when(doctorRepository.findTemplate(3L)).thenThrow(new IllegalStateException("connection reset"));
+
+        assertEquals(0, service.validateAppointment(3L, day, NINE));
+    }
+
+    @Test
+    void filtersArePushedDownAsOneQuery() {
+        Doctor doctor = new Doctor();
+        when(doctorRepository.filterDoctors(any(), any(), any())).thenReturn(List.of(doctor));
+
+        assertEquals(List.of(doctor), service.filterDoctor(" ", "Cardiology", NINE));
+        verify(doctorRepository).filterDoctors(null, "Cardiology", SlotMask.index(NINE));
+
+        assertEquals(List.of(doctor), doctorService.filterDoctors("ann", "", null));
+        verify(doctorRepository).filterDoctors("ann", null, null);
+
+        assertEquals(List.of(), doctorService.filterDoctors(null, null, LocalTime.of(9, 7)), "off the slot grid");
+        verify(doctorRepository, times(2)).filterDoctors(any(), any(), any());
+    }
+}
@@ -0,0 +1,151 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.models.WeeklySlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Free slots are the doctor's template minus the booked bits. A day inside the window is read
+ * from the database once and then follows the booking paths; days outside it are not kept.
+ */
+class AvailabilityIndexTest {
+
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+    private static final LocalTime ELEVEN = LocalTime.of(11, 0);
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository,
+            mock(ScheduleExceptionRepository.class));
+    private final LocalDate day = LocalDate.now().plusDays(1);
+
+    AvailabilityIndexTest() {
+        ReflectionTestUtils.setField(index, "windowDays", 14);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 30L);
+        when(doctorRepository.findTemplate(1L))
+                .thenReturn(Optional.of(template(1L, SlotMask.of(List.of(ELEVEN, NINE, TEN, NINE)))));
+        // An hour from 10:00, so the 10:00 slot is taken and 09:00 and 11:00 are not
+        AppointmentInterval booked = visit(1L, 5L, day.atTime(TEN), 60);
+        when(appointmentRepository.findIntervals(eq(1L), any(), any())).thenAnswer(call ->
+                booked.getAppointmentTime().isBefore(call.getArgument(1))
+                        || !booked.getAppointmentTime().isBefore(call.getArgument(2)) ? List.of() : List.of(booked));
+    }
+
+    @Test
+    void freeSlotsAreTheTemplateMinusBookings() {
+        assertEquals(List.of(NINE, ELEVEN), index.freeSlots(1L, day));
+        assertEquals(List.of(NINE, ELEVEN), index.freeSlots(1L, day));
+
+        verify(doctorRepository, times(1)).findTemplate(1L);
+        verify(appointmentRepository, times(1)).findIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    void cachedDaysFollowBookingsAndCancellations() {
+        index.freeSlots(1L, day);
+
+        index.markBooked(1L, 20L, day.atTime(NINE), 30);
+        index.markBooked(1L, 21L, day.atTime(11, 30), 15);
+        assertEquals(List.of(ELEVEN), index.freeSlots(1L, day), "cells between offered slots block none of them");
+
+        index.markFree(1L, 5L, day.atTime(TEN), 60);
+        assertEquals(List.of(TEN, ELEVEN), index.freeSlots(1L, day));
+        verify(appointmentRepository, times(1)).findIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    void daysOutsideTheWindowAreReadEveryTime() {
+        LocalDate later = LocalDate.now().plusDays(30);
+
+        assertEquals(List.of(NINE, TEN, ELEVEN), index.freeSlots(1L, later));
+        index.freeSlots(1L, later);
+
+        verify(appointmentRepository, times(2)).findIntervals(eq(1L), any(), any());
+        verify(doctorRepository, times(1)).findTemplate(1L);
+    }
+
+    @Test
+    void evictingADoctorRebuildsItsDays() {
+        index.freeSlots(1L, day);
+        when(doctorRepository.findTemplate(1L)).thenReturn(Optional.of(template(1L, SlotMask.of(List.of(ELEVEN)))));
+
+        index.evictDoctor(1L);
+
+        assertEquals(List.of(ELEVEN), index.freeSlots(1L, day));
+        verify(appointmentRepository, times(2)).findIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    void templatesLongerThanOneWordKeepEverySlot() {
+        List<LocalTime> quarters = new ArrayList<>();
+        for (int i = 0; i < 90; i++) {
+            quarters.add(LocalTime.of(0, 0).plusMinutes(15L * i));
+        }
+        when(doctorRepository.findTemplate(2L)).thenReturn(Optional.of(template(2L, SlotMask.of(quarters))));
+        LocalDateTime late = day.atStartOfDay().plusMinutes(15L * 70);
+        AppointmentInterval booked = visit(2L, 7L, late, 15);
+        when(appointmentRepository.findIntervals(eq(2L), any(), any())).thenReturn(List.of(booked));
+
+        List<LocalTime> free = index.freeSlots(2L, day);
+
+        assertEquals(89, free.size());
+        assertFalse(free.contains(late.toLocalTime()));
+        index.markFree(2L, 7L, late, 15);
+        assertEquals(quarters, index.freeSlots(2L, day));
+    }
+
+    @Test
+    void unknownDoctorsAreRejected() {
+        when(doctorRepository.findTemplate(9L)).thenReturn(Optional.empty());
+        when(doctorRepository.findTemplate(3L)).thenReturn(Optional.of(template(3L, SlotMask.EMPTY)));
+
+        assertThrows(IllegalArgumentException.class, () -> index.freeSlots(9L, day));
+        assertEquals(List.of(), index.freeSlots(3L, day), "a doctor without a template has no slots");
+    }
+
+    private static AppointmentInterval visit(Long doctorId, Long id, LocalDateTime start, int minutes) {
+        AppointmentInterval visit = mock(AppointmentInterval.class);
+        when(visit.getId()).thenReturn(id);
+        when(visit.getDoctorId()).thenReturn(doctorId);
+        when(visit.getAppointmentTime()).thenReturn(start);
+        when(visit.getDurationMinutes()).thenReturn(minutes);
+        return visit;
+    }
+
+    private static DoctorTemplate template(Long doctorId, SlotMask mask) {
+        return new DoctorTemplate() {
+            @Override
+            public Long getDoctorId() {
+                return doctorId;
+            }
+
+            @Override
+            public SlotMask getSlotMask() {
+                return mask;
+            }
+
+            @Override
+            public WeeklySlotMask getWeeklySlotMask() {
+                return null;
+            }
+        };
+    }
+}
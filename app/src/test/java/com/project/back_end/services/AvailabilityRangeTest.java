@@ -0,0 +1,131 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.DoctorAvailability;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.models.WeeklySlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.project.back_end.services.Fixtures.interval;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A multi-doctor, multi-day availability request costs one template query and one appointment
+ * query however many doctors and days it covers, and later requests for cached days cost none.
+ */
+class AvailabilityRangeTest {
+
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+    private static final LocalTime ELEVEN = LocalTime.of(11, 0);
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository,
+            mock(ScheduleExceptionRepository.class));
+    private final LocalDate today = LocalDate.now();
+
+    AvailabilityRangeTest() {
+        ReflectionTestUtils.setField(index, "windowDays", 14);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 30L);
+    }
+
+    @Test
+    void buildsTheMatrixFromTwoQueries() {
+        when(doctorRepository.findTemplatesByDoctorIds(anyCollection())).thenReturn(List.of(
+                template(1L, TEN, NINE, ELEVEN), template(2L, NINE), template(3L)));
+        when(appointmentRepository.findIntervalsByDoctorIds(anyCollection(), any(), any())).thenReturn(List.of(
+                interval(null, 1L, today.atTime(TEN)), interval(null, 1L, today.plusDays(2).atTime(NINE)), interval(null, 2L, today.plusDays(1).atTime(NINE))));
+
+        List<DoctorAvailability> matrix = index.matrix(List.of(1L, 2L, 3L, 99L), today, today.plusDays(2));
+
+        assertEquals(List.of(1L, 2L, 3L), matrix.stream().map(DoctorAvailability::getDoctorId).toList(), "unknown ids are left out");
+        assertEquals(List.of(NINE, TEN, ELEVEN), matrix.get(0).getSlots());
+        assertEquals(Map.of(today, "101", today.plusDays(1), "111", today.plusDays(2), "011"), matrix.get(0).getDays());
+        assertEquals(Map.of(today, "1", today.plusDays(1), "0", today.plusDays(2), "1"), matrix.get(1).getDays());
+        assertEquals(List.of(), matrix.get(2).getSlots());
+        assertEquals("", matrix.get(2).getDays().get(today));
+        verify(doctorRepository, times(1)).findTemplatesByDoctorIds(anyCollection());
+        verify(appointmentRepository, times(1)).findIntervalsByDoctorIds(
+                argThat(ids -> ids.containsAll(List.of(1L, 2L)) && !ids.contains(3L)), any(), any());
+
+        // The single-day endpoint reads the same cached days
+        assertEquals(List.of(NINE, ELEVEN), index.freeSlots(1L, today));
+        verifyNoMoreInteractions(appointmentRepository);
+    }
+
+    @Test
+    void cachedDaysCostNothingAndFollowBookings() {
+        when(doctorRepository.findTemplatesByDoctorIds(anyCollection())).thenReturn(List.of(template(1L, NINE, TEN)));
+        when(appointmentRepository.findIntervalsByDoctorIds(anyCollection(), any(), any())).thenReturn(List.of());
+        index.matrix(List.of(1L), today, today.plusDays(6));
+        clearInvocations(doctorRepository, appointmentRepository);
+
+        index.markBooked(1L, 7L, today.plusDays(3).atTime(TEN), 60);
+        DoctorAvailability week = index.matrix(List.of(1L), today, today.plusDays(6)).get(0);
+
+        assertEquals("10", week.getDays().get(today.plusDays(3)));
+        assertEquals("11", week.getDays().get(today.plusDays(4)));
+        verifyNoInteractions(doctorRepository, appointmentRepository);
+    }
+
+    @Test
+    void manyDoctorsAndDaysStillTakeTwoQueries() {
+        List<Long> doctorIds = new ArrayList<>();
+        List<DoctorTemplate> slots = new ArrayList<>();
+        List<AppointmentInterval> bookings = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            doctorIds.add(id);
+            slots.add(template(id, NINE, TEN));
+            bookings.add(interval(null, id, today.plusDays(id % 30).atTime(id % 2 == 0 ? NINE : TEN)));
+        }
+        when(doctorRepository.findTemplatesByDoctorIds(anyCollection())).thenReturn(slots);
+        when(appointmentRepository.findIntervalsByDoctorIds(anyCollection(), any(), any())).thenReturn(bookings);
+
+        List<DoctorAvailability> matrix = index.matrix(doctorIds, today, today.plusDays(29));
+
+        assertEquals(100, matrix.size());
+        for (DoctorAvailability row : matrix) {
+            long id = row.getDoctorId();
+            assertEquals(30, row.getDays().size());
+            assertEquals(id % 2 == 0 ? "01" : "10", row.getDays().get(today.plusDays(id % 30)));
+            assertEquals(59, row.getDays().values().stream().mapToLong(mask -> mask.chars().filter(c -> c == '1').count()).sum());
+        }
+        verify(doctorRepository, times(1)).findTemplatesByDoctorIds(anyCollection());
+        verify(appointmentRepository, times(1)).findIntervalsByDoctorIds(anyCollection(), any(), any());
+        verify(appointmentRepository, never()).findIntervals(anyLong(), any(), any());
+    }
+
+    private static DoctorTemplate template(Long doctorId, LocalTime... times) {
+        SlotMask mask = SlotMask.of(List.of(times));
+        return new DoctorTemplate() {
+            @Override
+            public Long getDoctorId() {
+                return doctorId;
+            }
+
+            @Override
+            public SlotMask getSlotMask() {
+                return mask;
+            }
+
+            @Override
+            public WeeklySlotMask getWeeklySlotMask() {
+                return null;
+            }
+        };
+    }
+}
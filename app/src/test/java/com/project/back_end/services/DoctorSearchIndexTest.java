@@ -0,0 +1,246 @@
+package com.project.back_end.services;
+
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Typeahead lookups fold case and accents, rank exact and leading matches first, follow every
+ * write, and memoize broad prefixes until a write changes them. Lookup latency at scale is
+ * measured by DoctorSearchBenchmark.
+ */
+class DoctorSearchIndexTest {
+
+    private static final String[] FIRST = {"Anna", "Élodie", "Bruno", "Chen", "Dmitri", "Fatima", "Greta", "Hiro",
+            "Ines", "José", "Kofi", "Lena", "Mateo", "Nadia", "Omar", "Priya", "Rosa", "Sven", "Tomás", "Yara"};
+    private static final String[] LAST = {"Martin", "Müller", "Nguyen", "García", "Okafor", "Rossi", "Silva",
+            "Tanaka", "Kowalski", "Dubois", "Haddad", "Larsen", "Novak", "Park", "Singh", "Weber"};
+    private static final String[] SPECIALTIES = {"Cardiology", "Dermatology", "Neurology", "Pediatrics",
+            "Orthopedics", "Oncology", "Psychiatry", "Radiology"};
+
+    @Test
+    void foldsCaseAndAccentsAndRanksExactMatchesFirst() {
+        DoctorSearchIndex index = warmIndex(List.of(
+                summary(1L, "Dr. Élodie Dubois", "Cardiology"),
+                summary(2L, "Elena Marsh", "Dermatology"),
+                summary(3L, "Eli Stone", "Neurology"),
+                summary(4L, "Marc Eliot", "Cardiology")));
+
+        assertEquals(List.of(3L, 4L), ids(index.search("ELI", null)), "exact token before prefix");
+        assertEquals(List.of(3L, 2L, 4L, 1L), ids(index.search("el", null)), "names starting with the term lead");
+        assertEquals(List.of(1L), ids(index.search("elodie", null)));
+        assertEquals(List.of(4L, 1L), ids(index.search("cardio", null)));
+        assertEquals(List.of(4L), ids(index.search("eli card", null)), "every term has to match");
+        assertEquals(List.of(3L), ids(index.search("eli", 1)));
+        assertTrue(index.search("  ", null).isEmpty());
+        assertTrue(index.search("zz", null).isEmpty());
+    }
+
+    @Test
+    void followsSavesUpdatesAndDeletes() {
+        DoctorSearchIndex index = warmIndex(List.of(summary(1L, "Anna Weber", "Cardiology")));
+
+        index.put(2L, "Bruno Silva", "Radiology");
+        assertEquals(List.of(2L), ids(index.search("bru", null)));
+
+        index.put(1L, "Anna Novak", "Oncology");
+        assertTrue(index.search("weber", null).isEmpty(), "old name tokens are dropped");
+        assertTrue(index.search("cardio", null).isEmpty(), "old specialty tokens are dropped");
+        assertEquals(List.of(1L), ids(index.search("anna onc", null)));
+
+        index.remove(1L);
+        assertTrue(index.search("anna", null).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void warmUpDoesNotOverwriteConcurrentWrites() {
+        DoctorRepository repository = mock(DoctorRepository.class);
+        DoctorSearchIndex index = newIndex(repository);
+        // The write paths run while the warm-up is still reading the page that holds these rows
+        when(repository.findSummariesAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            index.put(1L, "Renamed Doctor", "Neurology");
+            index.remove(2L);
+            return List.of(summary(1L, "Stale Name", "Cardiology"), summary(2L, "Deleted Doctor", "Radiology"));
+        });
+
+        index.warmUp();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L), ids(index.search("renamed", null)));
+        assertTrue(index.search("stale", null).isEmpty());
+        assertTrue(index.search("deleted", null).isEmpty());
+    }
+
+    @Test
+    void refreshPicksUpWritesFromOtherNodes() {
+        List<DoctorSummary> rows = new ArrayList<>(List.of(
+                summary(1L, "Anna Weber", "Cardiology"),
+                summary(2L, "Bruno Silva", "Radiology"),
+                summary(3L, "Chen Park", "Neurology")));
+        DoctorSearchIndex index = warmIndex(rows);
+        Map<String, ?> memo = memo(index);
+        ReflectionTestUtils.setField(index, "memoThreshold", 0);
+        index.search("bru", null);
+
+        // Another node renames doctor 1, deletes doctor 3 and adds doctor 4
+        rows.set(0, summary(1L, "Anna Novak", "Oncology"));
+        rows.remove(2);
+        rows.add(summary(4L, "Dmitri Rossi", "Pediatrics"));
+        index.refresh();
+
+        assertEquals(List.of(1L), ids(index.search("novak", null)));
+        assertTrue(index.search("weber", null).isEmpty());
+        assertTrue(index.search("chen", null).isEmpty());
+        assertEquals(List.of(4L), ids(index.search("dmitri", null)));
+        assertEquals(3, index.size());
+        assertTrue(memo.containsKey("bru"), "unchanged doctors keep their memoized queries");
+    }
+
+    @Test
+    void refreshDoesNotOverwriteConcurrentWrites() {
+        List<DoctorSummary> rows = new ArrayList<>(List.of(summary(1L, "Anna Weber", "Cardiology")));
+        DoctorRepository repository = mock(DoctorRepository.class);
+        DoctorSearchIndex index = newIndex(repository);
+        when(repository.findSummariesAfter(anyLong(), any(Pageable.class))).thenReturn(rows);
+        index.warmUp();
+
+        // This node adds and renames doctors after the refresh read the table
+        when(repository.findSummariesAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            index.put(1L, "Anna Novak", "Oncology");
+            index.put(2L, "Bruno Silva", "Radiology");
+            return rows;
+        });
+        index.refresh();
+
+        assertEquals(List.of(1L), ids(index.search("novak", null)));
+        assertEquals(List.of(2L), ids(index.search("bruno", null)));
+        assertTrue(index.search("weber", null).isEmpty());
+    }
+
+    @Test
+    void broadQueriesAreMemoizedUntilAWriteMatchesThem() {
+        DoctorSearchIndex index = warmIndex(generated(20_000));
+        Map<String, ?> memo = memo(index);
+
+        // Warm-up primes every single-letter query, and narrow queries are never memoized
+        assertTrue(memo.containsKey("a"));
+        assertTrue(memo.containsKey("b"));
+        String narrow = suffix(1_234);
+        assertEquals(List.of(1_235L), ids(index.search(narrow, 10)));
+        assertFalse(memo.containsKey(narrow));
+
+        // A memoized list serves every limit
+        List<DoctorSearchIndex.Suggestion> ten = index.search("a", 10);
+        assertEquals(10, ten.size());
+        assertEquals(ten.subList(0, 3), index.search("a", 3));
+
+        // A write drops the memoized prefixes it matches, and the rest keep serving
+        index.put(1_000_000L, "Aaron Abbott", "Cardiology");
+        assertFalse(memo.containsKey("a"));
+        assertTrue(memo.containsKey("b"));
+        assertEquals(List.of(1_000_000L), ids(index.search("a", 1)));
+        assertTrue(memo.containsKey("a"), "re-memoized on the next lookup");
+
+        index.remove(1_000_000L);
+        assertFalse(memo.containsKey("a"));
+        assertEquals(ids(ten), ids(index.search("a", 10)));
+    }
+
+    @Test
+    void foldsAndRanksAcrossALargeIndex() {
+        DoctorSearchIndex index = warmIndex(generated(5_000));
+        assertEquals(5_000, index.size());
+
+        List<DoctorSearchIndex.Suggestion> elodie = index.search("elodie mu", 10);
+        assertFalse(elodie.isEmpty());
+        assertTrue(elodie.stream().allMatch(s -> s.name().startsWith("Élodie Müller")), "every term has to match");
+        assertEquals(ids(elodie), ids(index.search("ÉLODIE MÜ", 10)));
+
+        List<DoctorSearchIndex.Suggestion> radiology = index.search("radiology priya", 10);
+        assertFalse(radiology.isEmpty());
+        assertTrue(radiology.stream().allMatch(s -> s.name().startsWith("Priya") && s.specialty().equals("Radiology")));
+        assertTrue(index.search("n", 10).get(0).name().startsWith("Nadia"));
+        assertEquals(50, index.search("n", 500).size(), "limit is clamped to max-limit");
+    }
+
+    // Distinct doctors over combinations of first and last names, specialties and a suffix token
+    private static List<DoctorSummary> generated(int doctors) {
+        List<DoctorSummary> rows = new ArrayList<>(doctors);
+        for (int i = 0; i < doctors; i++) {
+            String name = FIRST[i % FIRST.length] + " " + LAST[(i / FIRST.length) % LAST.length] + " " + suffix(i);
+            rows.add(summary((long) i + 1, name, SPECIALTIES[i % SPECIALTIES.length]));
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ?> memo(DoctorSearchIndex index) {
+        return (Map<String, ?>) ReflectionTestUtils.getField(index, "memo");
+    }
+
+    private static DoctorSearchIndex warmIndex(List<DoctorSummary> rows) {
+        DoctorRepository repository = mock(DoctorRepository.class);
+        when(repository.findSummariesAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            long afterId = call.getArgument(0);
+            int size = call.getArgument(1, Pageable.class).getPageSize();
+            return rows.stream().filter(r -> r.getId() > afterId).limit(size).toList();
+        });
+        DoctorSearchIndex index = newIndex(repository);
+        index.warmUp();
+        return index;
+    }
+
+    private static DoctorSearchIndex newIndex(DoctorRepository repository) {
+        DoctorSearchIndex index = new DoctorSearchIndex(repository);
+        ReflectionTestUtils.setField(index, "defaultLimit", 10);
+        ReflectionTestUtils.setField(index, "maxLimit", 50);
+        ReflectionTestUtils.setField(index, "memoThreshold", 500);
+        ReflectionTestUtils.setField(index, "memoMaxEntries", 10_000);
+        return index;
+    }
+
+    private static List<Long> ids(List<DoctorSearchIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(DoctorSearchIndex.Suggestion::id).toList();
+    }
+
+    // Distinct pronounceable third name token so the index holds many different keys
+    private static String suffix(int i) {
+        char[] letters = new char[4];
+        for (int k = 0; k < letters.length; k++) {
+            letters[k] = (char) ('a' + (i % 26));
+            i /= 26;
+        }
+        return new String(letters);
+    }
+
+    private static DoctorSummary summary(Long id, String name, String specialty) {
+        return new DoctorSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getSpecialty() {
+                return specialty;
+            }
+        };
+    }
+}
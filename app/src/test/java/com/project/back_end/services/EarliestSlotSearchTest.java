@@ -0,0 +1,156 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.models.WeeklySlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.project.back_end.services.Fixtures.interval;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The earliest-slot search merges doctors in time order, honours the time-of-day window and
+ * stops at K: with free slots near the start it reads one week of the matrix, whatever the
+ * roster size or horizon.
+ */
+class EarliestSlotSearchTest {
+
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+    private static final LocalTime FOURTEEN = LocalTime.of(14, 0);
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final Map<Long, List<LocalTime>> templates = new HashMap<>();
+    private final List<AppointmentInterval> bookings = new ArrayList<>();
+    private final EarliestSlotSearch search;
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+    EarliestSlotSearchTest() {
+        AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository,
+                mock(ScheduleExceptionRepository.class));
+        ReflectionTestUtils.setField(index, "windowDays", 14);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 30L);
+        search = new EarliestSlotSearch(index);
+
+        when(doctorRepository.findTemplatesByDoctorIds(anyCollection())).thenAnswer(call -> {
+            List<DoctorTemplate> rows = new ArrayList<>();
+            for (Long id : call.<Collection<Long>>getArgument(0)) {
+                if (templates.containsKey(id)) {
+                    rows.add(template(id, templates.get(id).toArray(LocalTime[]::new)));
+                }
+            }
+            return rows;
+        });
+        when(appointmentRepository.findIntervalsByDoctorIds(anyCollection(), any(), any())).thenAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            LocalDateTime start = call.getArgument(1);
+            LocalDateTime end = call.getArgument(2);
+            return bookings.stream().filter(b -> ids.contains(b.getDoctorId())
+                    && !b.getAppointmentTime().isBefore(start) && b.getAppointmentTime().isBefore(end)).toList();
+        });
+    }
+
+    @Test
+    void mergesDoctorsInTimeOrderAndStopsAtK() {
+        templates.put(1L, List.of(NINE, TEN, FOURTEEN));
+        templates.put(2L, List.of(TEN, FOURTEEN));
+        book(1L, tomorrow.atTime(NINE));
+        book(2L, tomorrow.atTime(TEN));
+        book(2L, tomorrow.atTime(FOURTEEN));
+
+        List<EarliestSlotSearch.Slot> slots = search.search(List.of(1L, 2L, 99L), tomorrow.atStartOfDay(), null, null, 60, 4);
+
+        assertEquals(List.of(
+                new EarliestSlotSearch.Slot(1L, tomorrow.atTime(TEN)),
+                new EarliestSlotSearch.Slot(1L, tomorrow.atTime(FOURTEEN)),
+                new EarliestSlotSearch.Slot(1L, tomorrow.plusDays(1).atTime(NINE)),
+                new EarliestSlotSearch.Slot(1L, tomorrow.plusDays(1).atTime(TEN))), slots);
+        assertTrue(search.search(List.of(1L), tomorrow.atTime(TEN), null, null, 60, 1).get(0).time().isAfter(tomorrow.atTime(TEN)),
+                "strictly after the requested time");
+    }
+
+    @Test
+    void timeOfDayWindowFiltersSlots() {
+        templates.put(1L, List.of(NINE, TEN, FOURTEEN));
+        templates.put(2L, List.of(NINE, FOURTEEN));
+
+        List<EarliestSlotSearch.Slot> afternoons = search.search(List.of(1L, 2L), tomorrow.atStartOfDay(),
+                LocalTime.of(12, 0), LocalTime.of(18, 0), 60, 3);
+
+        assertEquals(List.of(
+                new EarliestSlotSearch.Slot(1L, tomorrow.atTime(FOURTEEN)),
+                new EarliestSlotSearch.Slot(2L, tomorrow.atTime(FOURTEEN)),
+                new EarliestSlotSearch.Slot(1L, tomorrow.plusDays(1).atTime(FOURTEEN))), afternoons);
+
+        // Nothing in the window: no walk through the horizon
+        clearInvocations(appointmentRepository);
+        assertTrue(search.search(List.of(1L, 2L), tomorrow.atStartOfDay(), LocalTime.of(18, 0), null, 60, 3).isEmpty());
+        verify(appointmentRepository, atMost(1)).findIntervalsByDoctorIds(anyCollection(), any(), any());
+    }
+
+    @Test
+    void costDependsOnKNotRosterTimesHorizon() {
+        List<Long> roster = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            roster.add(id);
+            templates.put(id, List.of(NINE, TEN, FOURTEEN));
+        }
+        // The first doctor is booked solid for three weeks; the merge must read past it only as needed
+        for (int day = 0; day < 21; day++) {
+            for (LocalTime time : templates.get(1L)) {
+                book(1L, tomorrow.plusDays(day).atTime(time));
+            }
+        }
+
+        List<EarliestSlotSearch.Slot> slots = search.search(roster, tomorrow.atStartOfDay(), null, null, 365, 5);
+
+        assertEquals(5, slots.size());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), slots.stream().map(EarliestSlotSearch.Slot::doctorId).toList());
+        assertTrue(slots.stream().allMatch(s -> s.time().equals(tomorrow.atTime(NINE))));
+        verify(doctorRepository, times(1)).findTemplatesByDoctorIds(anyCollection());
+        // Week one for everyone, then weeks two to four because doctor 1 was still looking
+        verify(appointmentRepository, times(4)).findIntervalsByDoctorIds(anyCollection(), any(), any());
+        verify(appointmentRepository, never()).findIntervals(anyLong(), any(), any());
+    }
+
+    private void book(Long doctorId, LocalDateTime time) {
+        bookings.add(interval(null, doctorId, time));
+    }
+
+    private static DoctorTemplate template(Long doctorId, LocalTime... times) {
+        SlotMask mask = SlotMask.of(List.of(times));
+        return new DoctorTemplate() {
+            @Override
+            public Long getDoctorId() {
+                return doctorId;
+            }
+
+            @Override
+            public SlotMask getSlotMask() {
+                return mask;
+            }
+
+            @Override
+            public WeeklySlotMask getWeeklySlotMask() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository.AppointmentInterval;
+
+import java.time.LocalDateTime;
+
+/**
+ * Appointments and booked intervals shared by the booking and availability tests.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    // Unsaved appointment of the default length with a doctor reference carrying only its id
+    public static Appointment appointment(long doctorId, LocalDateTime time) {
+        return appointment(doctorId, time, Appointment.DEFAULT_DURATION_MINUTES);
+    }
+
+    public static Appointment appointment(long doctorId, LocalDateTime time, int minutes) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentTime(time);
+        appointment.setDurationMinutes(minutes);
+        return appointment;
+    }
+
+    // Live projection of an appointment, as the interval queries return it
+    public static AppointmentInterval interval(Appointment appointment) {
+        return new AppointmentInterval() {
+            @Override
+            public Long getId() {
+                return appointment.getId();
+            }
+
+            @Override
+            public Long getDoctorId() {
+                return appointment.getDoctor().getId();
+            }
+
+            @Override
+            public LocalDateTime getAppointmentTime() {
+                return appointment.getAppointmentTime();
+            }
+
+            @Override
+            public int getDurationMinutes() {
+                return appointment.getDurationMinutes();
+            }
+        };
+    }
+
+    // Booking of the default length that has no entity behind it
+    public static AppointmentInterval interval(Long id, long doctorId, LocalDateTime time) {
+        Appointment appointment = appointment(doctorId, time);
+        appointment.setId(id);
+        return interval(appointment);
+    }
+}
@@ -0,0 +1,119 @@
+package com.project.back_end.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hashing runs on the bounded executor: a saturated queue is rejected at once, logins upgrade
+ * plaintext and lower-cost hashes, and startup calibration never drops below the minimum cost.
+ */
+class PasswordServiceTest {
+
+    private PasswordService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void hashesAndVerifiesAtTheConfiguredCost() {
+        service = newService(6, 2, 8);
+        String hash = service.hashPassword("secret1");
+
+        assertTrue(hash.startsWith("$2a$06$"));
+        assertTrue(service.verifyPassword("secret1", hash));
+        assertFalse(service.verifyPassword("wrong", hash));
+        assertFalse(service.verifyPassword("secret1", "secret1"), "plaintext is not a hash");
+    }
+
+    @Test
+    void loginMigratesPlaintextAndRehashesLowerCosts() {
+        service = newService(6, 1, 8);
+
+        PasswordService.Verification plaintext = service.verify("secret1", "secret1");
+        assertTrue(plaintext.matches());
+        assertNotNull(plaintext.rehash());
+        assertTrue(service.verifyPassword("secret1", plaintext.rehash()));
+
+        PasswordService.Verification outdated = service.verify("secret1", new BCryptPasswordEncoder(4).encode("secret1"));
+        assertTrue(outdated.matches());
+        assertTrue(outdated.rehash().startsWith("$2a$06$"));
+
+        // A hash from a node that calibrated higher stays as it is
+        PasswordService.Verification stronger = service.verify("secret1", new BCryptPasswordEncoder(7).encode("secret1"));
+        assertTrue(stronger.matches());
+        assertNull(stronger.rehash());
+
+        PasswordService.Verification current = service.verify("secret1", service.hashPassword("secret1"));
+        assertTrue(current.matches());
+        assertNull(current.rehash());
+
+        assertFalse(service.verify("wrong", "secret1").matches());
+        assertNull(service.verify("wrong", "secret1").rehash());
+    }
+
+    @Test
+    void saturatedExecutorRejectsInsteadOfQueueing() throws Exception {
+        service = newService(12, 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> service.hashPassword("secret1")));
+            }
+            int hashed = 0;
+            int rejected = 0;
+            for (Future<String> result : results) {
+                try {
+                    result.get();
+                    hashed++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(PasswordService.HashingBusyException.class, e.getCause());
+                    rejected++;
+                }
+            }
+            assertTrue(hashed >= 1, "the running and queued tasks complete");
+            assertTrue(rejected >= 1, "callers beyond the queue are turned away");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void calibrationStaysWithinBounds() {
+        service = newService(0, 1, 8);
+        ReflectionTestUtils.setField(service, "minCost", 5);
+        ReflectionTestUtils.setField(service, "targetMillis", 1L);
+        service.shutdown();
+        service.init();
+
+        assertEquals(5, service.getCost(), "a tiny target still keeps the minimum cost");
+        assertTrue(service.hashPassword("secret1").startsWith("$2a$05$"));
+    }
+
+    private static PasswordService newService(int cost, int threads, int queueCapacity) {
+        PasswordService service = new PasswordService();
+        ReflectionTestUtils.setField(service, "configuredCost", cost);
+        ReflectionTestUtils.setField(service, "minCost", 10);
+        ReflectionTestUtils.setField(service, "targetMillis", 250L);
+        ReflectionTestUtils.setField(service, "threads", threads);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "timeoutMillis", 30_000L);
+        service.init();
+        return service;
+    }
+}
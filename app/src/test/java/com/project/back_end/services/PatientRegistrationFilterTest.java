@@ -0,0 +1,144 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.PatientRepository.PatientIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Duplicate detection on registration: the identity filter clears new patients without a
+ * lookup, and existsByEmailOrPhone still catches every duplicate. Password hashing is
+ * stubbed out. Latency against the patient count is measured by PatientRegistrationBenchmark.
+ */
+class PatientRegistrationFilterTest {
+
+    private static final int EXISTING = 2_000;
+    private static final int REGISTRATIONS = 200;
+
+    private final List<Patient> existing = new ArrayList<>();
+    private final Set<String> taken = new HashSet<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private PatientRepository repository;
+    private PatientIdentityFilter filter;
+    private PatientService service;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < EXISTING; i++) {
+            Patient patient = patient(i);
+            patient.setId((long) i + 1);
+            existing.add(patient);
+            taken.add(patient.getEmail().toLowerCase(Locale.ROOT));
+            taken.add(patient.getPhone());
+        }
+
+        repository = mock(PatientRepository.class);
+        when(repository.count()).thenAnswer(call -> (long) existing.size());
+        when(repository.findIdentitiesAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            long afterId = call.getArgument(0);
+            Pageable page = call.getArgument(1);
+            int from = (int) Math.min(afterId, existing.size());
+            int to = Math.min(existing.size(), from + page.getPageSize());
+            List<PatientIdentity> identities = new ArrayList<>();
+            for (Patient p : existing.subList(from, to)) {
+                identities.add(new Identity(p.getId(), p.getEmail(), p.getPhone()));
+            }
+            return identities;
+        });
+        when(repository.existsByEmailOrPhone(anyString(), anyString())).thenAnswer(call -> {
+            lookups.incrementAndGet();
+            String email = call.getArgument(0);
+            return taken.contains(email.toLowerCase(Locale.ROOT)) || taken.contains((String) call.getArgument(1));
+        });
+        when(repository.save(any(Patient.class))).thenAnswer(call -> {
+            Patient saved = call.getArgument(0);
+            taken.add(saved.getEmail().toLowerCase(Locale.ROOT));
+            taken.add(saved.getPhone());
+            return saved;
+        });
+
+        filter = new PatientIdentityFilter(repository);
+        ReflectionTestUtils.setField(filter, "minCapacity", 1_000);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.01);
+
+        PasswordService passwordService = mock(PasswordService.class);
+        when(passwordService.hashPassword(anyString())).thenAnswer(call -> call.getArgument(0));
+        service = new PatientService(repository, null, null, passwordService, filter);
+    }
+
+    @Test
+    void filterClearsNewRegistrationsWithoutALookup() {
+        filter.warmUp();
+
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            assertEquals(1, service.createPatient(patient(EXISTING + i)));
+        }
+
+        assertTrue(lookups.get() <= REGISTRATIONS / 20, "only false positives should reach the database, got " + lookups.get());
+        verify(repository, times(REGISTRATIONS)).save(any(Patient.class));
+    }
+
+    @Test
+    void duplicatesAreCaughtByTheLookup() {
+        filter.warmUp();
+
+        Patient sameEmail = patient(EXISTING + 1);
+        sameEmail.setEmail(existing.get(7).getEmail().toUpperCase(Locale.ROOT));
+        Patient samePhone = patient(EXISTING + 2);
+        samePhone.setPhone(existing.get(11).getPhone());
+
+        assertEquals(-1, service.createPatient(sameEmail));
+        assertEquals(-1, service.createPatient(samePhone));
+        assertEquals(2, lookups.get());
+        verify(repository, never()).save(any(Patient.class));
+    }
+
+    @Test
+    void registrationsAfterWarmUpAreAddedToTheFilter() {
+        filter.warmUp();
+
+        Patient first = patient(EXISTING + 1);
+        assertEquals(1, service.createPatient(first));
+        assertTrue(filter.mightExist(first.getEmail(), null));
+        assertTrue(filter.mightExist(null, first.getPhone()));
+
+        assertEquals(-1, service.createPatient(patient(EXISTING + 1)));
+    }
+
+    @Test
+    void everyRegistrationIsLookedUpBeforeWarmUp() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, service.createPatient(patient(EXISTING + i)));
+        }
+        assertEquals(-1, service.createPatient(patient(3)));
+
+        assertEquals(11, lookups.get());
+    }
+
+    private record Identity(Long getId, String getEmail, String getPhone) implements PatientIdentity {
+    }
+
+    private static Patient patient(int n) {
+        Patient patient = new Patient();
+        patient.setName("Patient " + n);
+        patient.setEmail("patient" + n + "@example.com");
+        patient.setPhone(String.format("%010d", n));
+        patient.setPassword("secret" + n);
+        patient.setAddress("1 Main St");
+        return patient;
+    }
+}
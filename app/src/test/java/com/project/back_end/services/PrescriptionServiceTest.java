@@ -0,0 +1,49 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.PrescriptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Saving a prescription is one insert; the unique appointmentId index turns a second one into
+ * the "already exists" answer instead of a duplicate document.
+ */
+class PrescriptionServiceTest {
+
+    private final PrescriptionRepository repository = mock(PrescriptionRepository.class);
+    private final PrescriptionService service = new PrescriptionService(repository);
+
+    @Test
+    void savesWithASingleInsert() {
+        Prescription prescription = prescription(7L);
+        when(repository.insert(any(Prescription.class))).thenReturn(prescription);
+
+        ResponseEntity<?> response = service.savePrescription(prescription);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(repository).insert(prescription);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void duplicateKeyMeansAlreadyExists() {
+        when(repository.insert(any(Prescription.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error index: uk_prescription_appointment"));
+
+        ResponseEntity<?> response = service.savePrescription(prescription(7L));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("A prescription already exists for this appointment.", response.getBody());
+    }
+
+    private static Prescription prescription(Long appointmentId) {
+        return new Prescription(null, "Jane Doe", appointmentId, "Amoxicillin", "500mg", "Twice daily");
+    }
+}
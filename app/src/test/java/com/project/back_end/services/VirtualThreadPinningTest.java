@@ -0,0 +1,216 @@
+package com.project.back_end.services;
+
+import com.project.back_end.BackEndApplication;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.project.back_end.services.Fixtures.appointment;
+import static com.project.back_end.services.Fixtures.interval;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Booking and availability on one virtual thread per request, with every store call blocking
+ * behind a connection pool, must never pin a carrier thread; and no compiled main class may
+ * hold a monitor. Throughput against a platform pool is measured by VirtualThreadBenchmark.
+ */
+class VirtualThreadPinningTest {
+
+    private static final int REQUESTS = 200;
+    private static final int POOL_SIZE = 20;
+    private static final long STORE_LATENCY_MILLIS = 5;
+    private static final int SLOTS_PER_DOCTOR = 4;
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(30);
+    private static final List<LocalTime> TEMPLATE = List.of(LocalTime.of(9, 0), LocalTime.of(10, 0),
+            LocalTime.of(11, 0), LocalTime.of(12, 0));
+
+    // Stands in for the database: every call holds a pooled connection for the store latency
+    private static final class Store {
+        private final Semaphore connections = new Semaphore(POOL_SIZE);
+        private final Map<String, Appointment> table = new ConcurrentHashMap<>();
+
+        private <T> T call(Callable<T> query) throws Exception {
+            connections.acquire();
+            try {
+                Thread.sleep(STORE_LATENCY_MILLIS);
+                return query.call();
+            } finally {
+                connections.release();
+            }
+        }
+    }
+
+    @Test
+    void virtualThreadsNeverPin() throws Exception {
+        AtomicInteger pinned = new AtomicInteger();
+        List<String> stacks = new ArrayList<>();
+        try (RecordingStream events = new RecordingStream()) {
+            events.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            events.onEvent("jdk.VirtualThreadPinned", event -> {
+                pinned.incrementAndGet();
+                stacks.add(String.valueOf(event.getStackTrace()));
+            });
+            events.startAsync();
+
+            availability();
+            booking();
+            events.stop();
+        }
+        assertEquals(0, pinned.get(), "virtual threads pinned to their carrier: " + stacks);
+    }
+
+    // A monitor held across blocking I/O pins the carrier, so main code uses java.util.concurrent
+    // locks. Checks the bytecode for synchronized methods and synchronized blocks.
+    @Test
+    void mainClassesHoldNoMonitors() throws Exception {
+        Path classes = Path.of(BackEndApplication.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<String> offenders = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(classes)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".class")).toList()) {
+                offenders.addAll(monitors(file));
+            }
+        }
+        assertTrue(offenders.isEmpty(), "synchronized found in " + offenders);
+    }
+
+    private static List<String> monitors(Path file) throws IOException {
+        List<String> found = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            ClassReader reader = new ClassReader(in);
+            reader.accept(new ClassVisitor(Opcodes.ASM9) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                    String method = reader.getClassName().replace('/', '.') + "." + name;
+                    if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+                        found.add(method);
+                    }
+                    return new MethodVisitor(Opcodes.ASM9) {
+                        @Override
+                        public void visitInsn(int opcode) {
+                            if (opcode == Opcodes.MONITORENTER) {
+                                found.add(method);
+                            }
+                        }
+                    };
+                }
+            }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        }
+        return found;
+    }
+
+    // Cold availability reads: every request loads the template and the day's bookings
+    private static void availability() throws Exception {
+        Store store = new Store();
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        DoctorTemplate template = mock(DoctorTemplate.class);
+        when(template.getSlotMask()).thenReturn(SlotMask.of(TEMPLATE));
+        when(doctorRepository.findTemplate(anyLong())).thenAnswer(call -> store.call(() -> Optional.of(template)));
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        Appointment booked = appointment(1, DAY.atTime(10, 0));
+        when(appointmentRepository.findIntervals(anyLong(), any(), any()))
+                .thenAnswer(call -> store.call(() -> List.of(interval(booked))));
+
+        AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository, mock(ScheduleExceptionRepository.class));
+        ReflectionTestUtils.setField(index, "windowDays", 0);
+        DoctorService service = new DoctorService(doctorRepository, appointmentRepository, null, index, null, null, null, null, null, null);
+
+        List<Callable<Boolean>> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            long doctorId = i + 1;
+            requests.add(() -> service.getDoctorAvailability(doctorId, DAY).size() == TEMPLATE.size() - 1);
+        }
+        run(requests);
+    }
+
+    // Bookings spread over many doctors, contending on the slot locks for the same doctor.
+    // The day is outside the index window, so every overlap check is a store call
+    private static void booking() throws Exception {
+        Store store = new Store();
+        AppointmentRepository repository = mock(AppointmentRepository.class);
+        when(repository.findIntervals(anyLong(), any(), any())).thenAnswer(call -> store.call(() -> {
+            Long doctorId = call.getArgument(0);
+            LocalDateTime from = call.getArgument(1);
+            LocalDateTime to = call.getArgument(2);
+            return store.table.values().stream().filter(a -> a.getDoctor().getId().equals(doctorId)
+                    && !a.getAppointmentTime().isBefore(from) && a.getAppointmentTime().isBefore(to))
+                    .map(Fixtures::interval).toList();
+        }));
+        when(repository.saveAndFlush(any(Appointment.class))).thenAnswer(call -> store.call(() -> {
+            Appointment appointment = call.getArgument(0);
+            String key = appointment.getDoctor().getId() + "|" + appointment.getAppointmentTime();
+            if (store.table.putIfAbsent(key, appointment) != null) {
+                throw new DataIntegrityViolationException("Duplicate entry for uk_appointment_doctor_time");
+            }
+            return appointment;
+        }));
+
+        TokenService tokenService = mock(TokenService.class);
+        Patient patient = new Patient();
+        patient.setId(1L);
+        when(tokenService.currentPatient(anyString())).thenReturn(patient);
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.lockByIds(any())).thenAnswer(call -> store.call(() -> List.copyOf(call.<List<Long>>getArgument(0))));
+        AvailabilityIndex index = new AvailabilityIndex(doctorRepository, repository, mock(ScheduleExceptionRepository.class));
+        AppointmentService service = new AppointmentService(repository, tokenService, index, mock(PatientRepository.class), null,
+                doctorRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        List<Callable<Boolean>> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            Appointment appointment = appointment(i / SLOTS_PER_DOCTOR + 1, DAY.atTime(TEMPLATE.get(i % SLOTS_PER_DOCTOR)));
+            requests.add(() -> service.bookAppointment(appointment, "token") == 1);
+        }
+        run(requests);
+        assertEquals(REQUESTS, store.table.size());
+    }
+
+    private static void run(List<Callable<Boolean>> requests) throws Exception {
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> outcomes = new ArrayList<>(requests.size());
+            for (Callable<Boolean> request : requests) {
+                outcomes.add(pool.submit(request));
+            }
+            for (Future<Boolean> outcome : outcomes) {
+                assertTrue(outcome.get(), "request failed");
+            }
+        }
+    }
+}
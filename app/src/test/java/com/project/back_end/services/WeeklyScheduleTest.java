@@ -0,0 +1,155 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.DoctorAvailability;
+import com.project.back_end.models.ScheduleException;
+import com.project.back_end.models.SlotMask;
+import com.project.back_end.models.WeeklySlotMask;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorRepository.DoctorTemplate;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Days are expanded from the weekly template and date exceptions when they are read, for any
+ * horizon, and the schedule itself is loaded once per doctor.
+ */
+class WeeklyScheduleTest {
+
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+    private static final LocalTime FOURTEEN = LocalTime.of(14, 0);
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final ScheduleExceptionRepository exceptionRepository = mock(ScheduleExceptionRepository.class);
+    private final AvailabilityIndex index = new AvailabilityIndex(doctorRepository, appointmentRepository, exceptionRepository);
+    private final List<ScheduleException> exceptions = new ArrayList<>();
+    private final LocalDate monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    WeeklyScheduleTest() {
+        ReflectionTestUtils.setField(index, "windowDays", 14);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 30L);
+        // Daily 09:00 and 10:00, Fridays only 14:00, no Sundays
+        DoctorTemplate template = template(1L, SlotMask.of(List.of(NINE, TEN)),
+                WeeklySlotMask.of(Map.of(DayOfWeek.FRIDAY, List.of(FOURTEEN), DayOfWeek.SUNDAY, List.of())));
+        when(doctorRepository.findTemplate(1L)).thenReturn(Optional.of(template));
+        when(doctorRepository.findTemplatesByDoctorIds(anyCollection()))
+                .thenAnswer(call -> call.<Collection<Long>>getArgument(0).contains(1L) ? List.of(template) : List.of());
+        when(exceptionRepository.findEndingOnOrAfter(anyCollection(), any())).thenAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            LocalDate from = call.getArgument(1);
+            return exceptions.stream().filter(e -> ids.contains(e.getDoctorId()) && !e.getEndDate().isBefore(from)).toList();
+        });
+    }
+
+    @Test
+    void weekdaysAndExceptionsReplaceTheDailyTemplate() {
+        exceptions.add(new ScheduleException(1L, monday.plusDays(7), monday.plusDays(11), "Vacation", List.of()));
+        exceptions.add(new ScheduleException(1L, monday.plusDays(15), monday.plusDays(15), "Late clinic", List.of(FOURTEEN)));
+
+        assertEquals(List.of(NINE, TEN), index.freeSlots(1L, monday));
+        assertEquals(List.of(FOURTEEN), index.freeSlots(1L, monday.plusDays(4)), "Friday hours");
+        assertEquals(List.of(), index.freeSlots(1L, monday.plusDays(6)), "no Sunday hours");
+        assertEquals(List.of(), index.freeSlots(1L, monday.plusDays(8)), "vacation");
+        assertEquals(List.of(NINE, TEN), index.freeSlots(1L, monday.plusDays(14)), "back after vacation");
+        assertEquals(List.of(FOURTEEN), index.freeSlots(1L, monday.plusDays(15)), "one-off hours");
+        verify(doctorRepository, times(1)).findTemplate(1L);
+        verify(exceptionRepository, times(1)).findEndingOnOrAfter(anyCollection(), any());
+    }
+
+    @Test
+    void matrixColumnsAreEverySlotOfferedInTheRange() {
+        exceptions.add(new ScheduleException(1L, monday.plusDays(2), monday.plusDays(2), "Holiday", List.of()));
+
+        DoctorAvailability week = index.matrix(List.of(1L), monday, monday.plusDays(6)).get(0);
+
+        assertEquals(List.of(NINE, TEN, FOURTEEN), week.getSlots());
+        assertEquals("110", week.getDays().get(monday));
+        assertEquals("000", week.getDays().get(monday.plusDays(2)), "holiday");
+        assertEquals("001", week.getDays().get(monday.plusDays(4)), "Friday");
+        assertEquals("000", week.getDays().get(monday.plusDays(6)), "Sunday");
+    }
+
+    @Test
+    void farHorizonsExpandWithoutStoredDays() {
+        LocalDate farMonday = monday.plusWeeks(52 * 5);
+        exceptions.add(new ScheduleException(1L, farMonday, farMonday, "Conference", List.of()));
+
+        assertEquals(List.of(), index.freeSlots(1L, farMonday));
+        assertEquals(List.of(NINE, TEN), index.freeSlots(1L, farMonday.plusDays(1)));
+        assertEquals(List.of(FOURTEEN), index.freeSlots(1L, farMonday.plusDays(4)));
+
+        // A past date is outside what was loaded, so the schedule is reloaded from that date
+        LocalDate pastMonday = monday.minusWeeks(4);
+        exceptions.add(new ScheduleException(1L, pastMonday, pastMonday, "Sick day", List.of()));
+        assertEquals(List.of(), index.freeSlots(1L, pastMonday));
+        verify(doctorRepository, times(2)).findTemplate(1L);
+        // Days outside the window are read from the database every time and never kept
+        verify(appointmentRepository, times(2)).findIntervals(anyLong(), any(), any());
+    }
+
+    @Test
+    void cachedSchedulesExpireSoOtherNodesChangesShowUp() {
+        assertEquals(List.of(NINE, TEN), index.freeSlots(1L, monday));
+
+        // Saved on another node, so nothing here evicted the cached schedule
+        exceptions.add(new ScheduleException(1L, monday.plusDays(1), monday.plusDays(1), "Training", List.of()));
+        assertEquals(List.of(NINE, TEN), index.freeSlots(1L, monday.plusDays(1)), "still within the time to live");
+
+        ReflectionTestUtils.setField(index, "ttlSeconds", 0L);
+        assertEquals(List.of(), index.freeSlots(1L, monday.plusDays(1)));
+        assertEquals(-2, index.checkBatch(List.of(new AvailabilityIndex.Proposal(1L, monday.plusDays(1).atTime(NINE), 60)))[0],
+                "bulk booking sees the exception too");
+        verify(doctorRepository, times(2)).findTemplate(1L);
+    }
+
+    @Test
+    void lookupsOfUnknownDoctorsLeaveNoVersions() {
+        assertEquals(List.of(1L), index.matrix(List.of(1L, 2L, 3L), monday, monday.plusDays(1)).stream()
+                .map(DoctorAvailability::getDoctorId).toList());
+        assertEquals(-3, index.checkBatch(List.of(new AvailabilityIndex.Proposal(4L, monday.atTime(NINE), 60)))[0]);
+        Map<?, ?> versions = (Map<?, ?>) ReflectionTestUtils.getField(index, "versions");
+        assertTrue(versions.isEmpty());
+
+        index.markBooked(1L, 10L, monday.atTime(NINE), 60);
+        assertEquals(Set.of(1L), versions.keySet());
+        index.forgetDoctor(1L);
+        assertTrue(versions.isEmpty(), "a deleted doctor's version goes with it");
+    }
+
+    private static DoctorTemplate template(Long doctorId, SlotMask daily, WeeklySlotMask weekly) {
+        return new DoctorTemplate() {
+            @Override
+            public Long getDoctorId() {
+                return doctorId;
+            }
+
+            @Override
+            public SlotMask getSlotMask() {
+                return daily;
+            }
+
+            @Override
+            public WeeklySlotMask getWeeklySlotMask() {
+                return weekly;
+            }
+        };
+    }
+}
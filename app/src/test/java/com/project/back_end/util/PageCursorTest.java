@@ -0,0 +1,79 @@
+package com.project.back_end.util;
+
+import com.project.back_end.DTO.CursorPage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cursors survive the round trip through their opaque form, anything encode could not have
+ * produced is rejected, and a page only offers a next cursor when a further row exists.
+ */
+class PageCursorTest {
+
+    @Test
+    void cursorsRoundTrip() {
+        PageCursor timed = PageCursor.after(LocalDateTime.of(2026, 3, 14, 9, 30, 15), 42L);
+        PageCursor byId = PageCursor.afterId(7L);
+
+        assertEquals(timed, PageCursor.decode(timed.encode()));
+        assertEquals(byId, PageCursor.decode(byId.encode()));
+        assertNull(PageCursor.decode(byId.encode()).time());
+        assertFalse(timed.encode().contains("="), "URL-safe without padding");
+    }
+
+    @Test
+    void noCursorStartsAtTheBeginning() {
+        assertEquals(PageCursor.start(), PageCursor.decode(null));
+        assertEquals(PageCursor.start(), PageCursor.decode(" "));
+        assertEquals(PageCursor.ORIGIN, PageCursor.decode(null).timeOr(LocalDateTime.MAX));
+        assertEquals(LocalDateTime.MIN, PageCursor.afterId(3L).timeOr(LocalDateTime.MIN));
+    }
+
+    @Test
+    void malformedAndTamperedCursorsAreRejected() {
+        String valid = PageCursor.after(LocalDateTime.of(2026, 3, 14, 9, 30), 42L).encode();
+        List<String> bad = List.of(
+                "not base64!",
+                valid.substring(0, valid.length() - 3),
+                "*" + valid.substring(1),
+                raw("2026-03-14T09:30"),
+                raw("2026-13-14T09:30|42"),
+                raw("2026-03-14T09:30|forty-two"),
+                raw("|-1"),
+                raw("|99999999999999999999"));
+
+        for (String cursor : bad) {
+            assertThrows(PageCursor.InvalidCursorException.class, () -> PageCursor.decode(cursor), cursor);
+        }
+    }
+
+    @Test
+    void pageSizesAreDefaultedAndCapped() {
+        assertEquals(PageCursor.DEFAULT_PAGE_SIZE, PageCursor.pageSize(null));
+        assertEquals(PageCursor.DEFAULT_PAGE_SIZE, PageCursor.pageSize(0));
+        assertEquals(5, PageCursor.pageSize(5));
+        assertEquals(PageCursor.MAX_PAGE_SIZE, PageCursor.pageSize(10_000));
+    }
+
+    @Test
+    void onlyAnExtraRowProducesANextCursor() {
+        CursorPage<Long> full = CursorPage.of(List.of(1L, 2L, 3L), 2, PageCursor::afterId);
+        assertEquals(List.of(1L, 2L), full.getItems());
+        assertEquals(PageCursor.afterId(2L), PageCursor.decode(full.getNextCursor()));
+
+        CursorPage<Long> last = CursorPage.of(List.of(3L, 4L), 2, PageCursor::afterId);
+        assertEquals(List.of(3L, 4L), last.getItems());
+        assertNull(last.getNextCursor());
+        assertNull(CursorPage.of(List.<Long>of(), 2, PageCursor::afterId).getNextCursor());
+    }
+
+    private static String raw(String payload) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}